@@ -0,0 +1,52 @@
+package org.risc.simulator.bench;
+
+/**
+ * An operation measured by the {@link BenchmarkRunner}.
+ * <br> {@link #operation()} is called many times in a loop, so it should do a small
+ * and repeatable amount of work and return something computed from it, which keeps
+ * the JIT from removing the work.
+ * @author Victor J.
+ */
+public abstract class Benchmark {
+
+	private final String name;
+
+	/**
+	 * @param name unique name of the benchmark, used in the reports and the baseline file
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepares the benchmark before the first call to {@link #operation()}.
+	 * @throws Exception if the benchmark can't be prepared
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Runs the measured operation once.
+	 * @return a value that depends on the work done
+	 * @throws Exception if the operation fails
+	 */
+	public abstract int operation() throws Exception;
+
+	/**
+	 * @return the number of simulated instructions executed by each operation, or 0
+	 * if the benchmark doesn't run the processor.
+	 */
+	public long getInstructionsPerOperation() {
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,324 @@
+package org.risc.simulator.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the {@link Benchmarks} without any library besides the JDK.
+ * <pre>
+ * java org.risc.simulator.bench.BenchmarkRunner [options]
+ *   --filter REGEX        only run the benchmarks whose name matches
+ *   --forks N             fresh JVMs per benchmark, 0 runs them in this JVM (default 2)
+ *   --warmup N            warmup iterations per fork (default 5)
+ *   --iterations N        measured iterations per fork (default 5)
+ *   --time MILLIS         duration of each iteration (default 500)
+ *   --save FILE           writes the results as a baseline
+ *   --baseline FILE       compares the results against a baseline
+ *   --tolerance PERCENT   slowdown allowed against the baseline (default 10)
+ * </pre>
+ * Each benchmark reports the mean time per operation with its standard deviation, the
+ * bytes allocated per operation and, for the benchmarks that run the processor, the
+ * simulated instructions per second. The exit status is 1 when a benchmark is slower
+ * than the baseline by more than the tolerance.
+ * @author Victor J.
+ */
+public class BenchmarkRunner {
+
+	private static final String CHILD = "--child";
+	private static final String RESULT = "RESULT";
+	private static final long NANOS_PER_MILLI = 1000000;
+
+	/**
+	 * Keeps the results of the operations alive.
+	 */
+	private static volatile int sink;
+
+	private String filter = ".*";
+	private int forks = 2;
+	private int warmup = 5;
+	private int iterations = 5;
+	private long time = 500;
+	private File save;
+	private File baseline;
+	private double tolerance = 10;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 5 && args[0].equals(CHILD)) {
+			runChild(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]));
+			return;
+		}
+		BenchmarkRunner runner = new BenchmarkRunner();
+		try {
+			runner.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+		System.exit(runner.run() ? 0 : 1);
+	}
+
+	private void parse(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value of " + args[i]);
+			}
+			String arg = args[i], value = args[++i];
+			if (arg.equals("--filter")) {
+				filter = value;
+			} else if (arg.equals("--forks")) {
+				forks = Integer.parseInt(value);
+			} else if (arg.equals("--warmup")) {
+				warmup = Integer.parseInt(value);
+			} else if (arg.equals("--iterations")) {
+				iterations = Integer.parseInt(value);
+			} else if (arg.equals("--time")) {
+				time = Long.parseLong(value);
+			} else if (arg.equals("--save")) {
+				save = new File(value);
+			} else if (arg.equals("--baseline")) {
+				baseline = new File(value);
+			} else if (arg.equals("--tolerance")) {
+				tolerance = Double.parseDouble(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		if (iterations < 1) {
+			throw new IllegalArgumentException("At least one iteration is needed");
+		}
+	}
+
+	/**
+	 * Runs every benchmark selected.
+	 * @return false if any benchmark regressed against the baseline
+	 */
+	private boolean run() throws Exception {
+		Properties expected = new Properties();
+		if (baseline != null) {
+			InputStream in = new FileInputStream(baseline);
+			try {
+				expected.load(in);
+			} finally {
+				in.close();
+			}
+		}
+
+		Pattern pattern = Pattern.compile(filter);
+		Map<String, Statistics> results = new LinkedHashMap<String, Statistics>();
+		System.out.println(String.format(Locale.ENGLISH, "%-30s %14s %10s %12s %14s %s",
+				"Benchmark", "ns/op", "+-", "B/op", "instr/s", ""));
+		boolean passed = true;
+		for (Benchmark benchmark : Benchmarks.all()) {
+			if (!pattern.matcher(benchmark.getName()).find()) {
+				continue;
+			}
+			Statistics statistics = new Statistics();
+			if (forks == 0) {
+				measure(benchmark, warmup, iterations, time, statistics, null);
+			} else {
+				for (int fork = 0; fork < forks; fork++) {
+					fork(benchmark.getName(), statistics);
+				}
+			}
+			results.put(benchmark.getName(), statistics);
+
+			String verdict = "";
+			String base = expected.getProperty(benchmark.getName());
+			if (base != null) {
+				double change = 100 * (statistics.getMean() / Double.parseDouble(base) - 1);
+				boolean regressed = change > tolerance;
+				passed &= !regressed;
+				verdict = String.format(Locale.ENGLISH, "%+.1f%% %s", change, regressed ? "REGRESSION" : "ok");
+			}
+			System.out.println(String.format(Locale.ENGLISH, "%-30s %14.2f %10.2f %12.1f %14s %s",
+					benchmark.getName(), statistics.getMean(), statistics.getDeviation(),
+					statistics.getBytesPerOperation(), statistics.getInstructionsPerSecond(), verdict));
+		}
+
+		if (save != null) {
+			Properties properties = new Properties();
+			for (Map.Entry<String, Statistics> entry : results.entrySet()) {
+				properties.setProperty(entry.getKey(), String.format(Locale.ENGLISH, "%.3f", entry.getValue().getMean()));
+			}
+			OutputStream out = new FileOutputStream(save);
+			try {
+				properties.store(out, "ns/op of each benchmark");
+			} finally {
+				out.close();
+			}
+		}
+		return passed;
+	}
+
+	/**
+	 * Runs a benchmark in a new JVM with the same class path and adds the iterations it reports.
+	 */
+	private void fork(String name, Statistics statistics) throws IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				BenchmarkRunner.class.getName(), CHILD, name, String.valueOf(warmup), String.valueOf(iterations),
+				String.valueOf(time));
+		builder.redirectErrorStream(true);
+		Process process = builder.start();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(RESULT)) {
+					String[] values = line.split(" ");
+					statistics.add(Double.parseDouble(values[1]), Double.parseDouble(values[2]), Long.parseLong(values[3]));
+				} else {
+					System.err.println(line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		if (process.waitFor() != 0) {
+			throw new IllegalStateException("Fork of " + name + " failed");
+		}
+	}
+
+	private static void runChild(String name, int warmup, int iterations, long time) throws Exception {
+		for (Benchmark benchmark : Benchmarks.all()) {
+			if (benchmark.getName().equals(name)) {
+				PrintStream out = System.out;
+				measure(benchmark, warmup, iterations, time, null, out);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Unknown benchmark " + name);
+	}
+
+	/**
+	 * Warms up and measures a benchmark, adding each measured iteration to the statistics
+	 * or printing it to the output of a fork.
+	 */
+	private static void measure(Benchmark benchmark, int warmup, int iterations, long time,
+	                            Statistics statistics, PrintStream out) throws Exception {
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(new OutputStream() {//the code measured may print
+			@Override
+			public void write(int b) {
+			}
+		}));
+		try {
+			benchmark.setUp();
+			long batch = calibrate(benchmark);
+			for (int i = 0; i < warmup + iterations; i++) {
+				long operations = 0;
+				long bytes = allocatedBytes();
+				long start = System.nanoTime();
+				long end = start + time * NANOS_PER_MILLI;
+				long now;
+				do {
+					for (long j = 0; j < batch; j++) {
+						sink += benchmark.operation();
+					}
+					operations += batch;
+					now = System.nanoTime();
+				} while (now < end);
+				bytes = allocatedBytes() - bytes;
+				if (i >= warmup) {
+					double nanosPerOperation = (double) (now - start) / operations;
+					double bytesPerOperation = bytes < 0 ? Double.NaN : (double) bytes / operations;
+					long instructions = benchmark.getInstructionsPerOperation();
+					if (statistics != null) {
+						statistics.add(nanosPerOperation, bytesPerOperation, instructions);
+					} else {
+						out.println(RESULT + " " + nanosPerOperation + " " + bytesPerOperation + " " + instructions);
+					}
+				}
+			}
+		} finally {
+			System.setOut(stdout);
+		}
+	}
+
+	/**
+	 * Finds a number of operations that takes about a millisecond, so reading the clock
+	 * doesn't add to the time of short operations.
+	 */
+	private static long calibrate(Benchmark benchmark) throws Exception {
+		long batch = 1;
+		while (true) {
+			long start = System.nanoTime();
+			for (long j = 0; j < batch; j++) {
+				sink += benchmark.operation();
+			}
+			if (System.nanoTime() - start >= NANOS_PER_MILLI || batch >= 1 << 24) {
+				return batch;
+			}
+			batch <<= 1;
+		}
+	}
+
+	/**
+	 * @return the bytes allocated by this thread or -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Mean and standard deviation of the measured iterations of a benchmark.
+	 */
+	private static class Statistics {
+		private final List<Double> nanos = new ArrayList<Double>();
+		private double bytes;
+		private long instructionsPerOperation;
+
+		void add(double nanosPerOperation, double bytesPerOperation, long instructionsPerOperation) {
+			nanos.add(nanosPerOperation);
+			bytes += bytesPerOperation;
+			this.instructionsPerOperation = instructionsPerOperation;
+		}
+
+		double getMean() {
+			double sum = 0;
+			for (double n : nanos) {
+				sum += n;
+			}
+			return sum / nanos.size();
+		}
+
+		double getDeviation() {
+			double mean = getMean(), sum = 0;
+			for (double n : nanos) {
+				sum += (n - mean) * (n - mean);
+			}
+			return nanos.size() < 2 ? 0 : Math.sqrt(sum / (nanos.size() - 1));
+		}
+
+		double getBytesPerOperation() {
+			return bytes / nanos.size();
+		}
+
+		String getInstructionsPerSecond() {
+			if (instructionsPerOperation == 0) {
+				return "-";
+			}
+			return String.format(Locale.ENGLISH, "%.0f", instructionsPerOperation * 1e9 / getMean());
+		}
+	}
+
+}
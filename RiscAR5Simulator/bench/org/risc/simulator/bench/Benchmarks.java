@@ -0,0 +1,266 @@
+package org.risc.simulator.bench;
+
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.instructionSet.FlagManagement;
+import org.risc.simulator.io.FileLoader;
+import org.risc.simulator.memory.ArrayListMemory;
+import org.risc.simulator.memory.ByteArrayMemory;
+import org.risc.simulator.memory.Memory;
+import org.risc.simulator.memory.StatusRegister;
+import org.risc.simulator.processor.Breakpoints;
+import org.risc.simulator.processor.Instruction;
+import org.risc.simulator.processor.PeepholeOptimizer;
+import org.risc.simulator.processor.Processor;
+import org.risc.simulator.processor.ProgramImage;
+import org.risc.simulator.processor.RISCAR5Processor;
+import org.risc.simulator.util.BitFields;
+import org.risc.simulator.util.NumberUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The benchmarks of the interpreter hot paths.
+ * <br> The programs used are part of this class, so the suite doesn't depend on the
+ * test resources or on the working directory.
+ * @author Victor J.
+ */
+public class Benchmarks {
+
+	/**
+	 * Multiplies and adds in a loop 128 times before stopping.
+	 */
+	static final String MUL_LOOP = "ldi 1\nstar 1\nldi -128\nstar 0\nldi 12\nstar 7\nldi 3\nmul 1\n"
+			+ "addc 2\nstar 2\nldar 0\naddc 1\nstar 0\nbrn\nstop\n";
+
+	/**
+	 * Never stops, used to measure single steps.
+	 */
+	static final String INFINITE = "ldi 0\nstar 7\nldi 0\nstar 0\nand 0\nbrz\nstop\n";
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private Benchmarks() {
+	}
+
+	/**
+	 * @return every benchmark, in the order they are reported.
+	 */
+	public static List<Benchmark> all() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new Benchmark("processor.step") {
+			private Processor processor;
+
+			@Override
+			public void setUp() throws Exception {
+				processor = new RISCAR5Processor();
+				processor.init(assemble(INFINITE));
+			}
+
+			@Override
+			public int operation() {
+				processor.step();
+				return processor.getRegister(Processor.PC).getData();
+			}
+
+			@Override
+			public long getInstructionsPerOperation() {
+				return 1;
+			}
+		});
+		benchmarks.add(new ProgramBenchmark("processor.run", false, null));
+		benchmarks.add(new ProgramBenchmark("processor.run.translated", true, null));
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.add(200);
+		breakpoints.watch(Processor.MEMORY_SIZE - 1, Breakpoints.READ | Breakpoints.WRITE);
+		benchmarks.add(new ProgramBenchmark("processor.run.breakpoints", false, breakpoints));
+		benchmarks.add(new MemoryBenchmark("memory.arrayList.getDataAt",
+				new ArrayListMemory(Processor.MEMORY_SIZE, Processor.MEMORY_CELL_SIZE)));
+		benchmarks.add(new MemoryBenchmark("memory.byteArray.getDataAt", new ByteArrayMemory(Processor.MEMORY_SIZE)));
+		benchmarks.add(new Benchmark("flags.setFlags") {
+			private final StatusRegister sr = new StatusRegister(Processor.SR);
+			private int value;
+
+			@Override
+			public int operation() {
+				value = (value + 37) & 0xFFFF;
+				int acc = (byte) value, op = (byte) (value >> 8);
+				FlagManagement.setFlags(acc, op, 0, acc + op, sr, FlagManagement.Operation.ADDC);
+				return sr.getData();
+			}
+		});
+		benchmarks.add(new Benchmark("numberUtils.getSignedValueOf") {
+			private int value;
+
+			@Override
+			public int operation() {
+				value = (value + 0x1357) & 0xFFFF;
+				return NumberUtils.getSignedValueOf(value, 8, 15, Processor.IR_SIZE);
+			}
+		});
+		benchmarks.add(new Benchmark("bitFields.operand") {
+			private int value;
+
+			@Override
+			public int operation() {
+				value = (value + 0x1357) & 0xFFFF;
+				return BitFields.operand(value);
+			}
+		});
+		benchmarks.add(new Benchmark("instruction.new") {
+			private int value;
+
+			@Override
+			public int operation() {
+				value = (value + 0x0801) & 0xFFFF;
+				return new Instruction(value).getOpCode();
+			}
+		});
+		benchmarks.add(new Benchmark("assembler.assemble") {
+			private File file;
+
+			@Override
+			public void setUp() throws Exception {
+				file = write(MUL_LOOP, ".asm");
+			}
+
+			@Override
+			public int operation() throws Exception {
+				return new Assembler(file).assemble().size();
+			}
+		});
+		benchmarks.add(new Benchmark("assembler.assembleImage") {
+			private File file;
+
+			@Override
+			public void setUp() throws Exception {
+				file = write(MUL_LOOP, ".asm");
+			}
+
+			@Override
+			public int operation() throws Exception {
+				return new Assembler(file).assembleImage().size();
+			}
+		});
+		benchmarks.add(new Benchmark("optimizer.optimize") {
+			private ProgramImage image;
+
+			@Override
+			public void setUp() throws Exception {
+				image = ProgramImage.of(assemble(MUL_LOOP));
+			}
+
+			@Override
+			public int operation() {
+				return PeepholeOptimizer.optimize(image).size();
+			}
+		});
+		benchmarks.add(new Benchmark("fileLoader.parse") {
+			private File file;
+
+			@Override
+			public void setUp() throws Exception {
+				StringBuilder hex = new StringBuilder();
+				for (Instruction instruction : assemble(MUL_LOOP)) {
+					hex.append(instruction.getInstructionInHex()).append('\n');
+				}
+				file = write(hex.toString(), ".txt");
+			}
+
+			@Override
+			public int operation() {
+				return new FileLoader(file).getInstructionMapList().size();
+			}
+		});
+		return benchmarks;
+	}
+
+	/**
+	 * Loads and runs a whole program in a new processor, with breakpoints that are never reached
+	 * if they are given.
+	 */
+	private static class ProgramBenchmark extends Benchmark {
+		private final boolean translated;
+		private final Breakpoints breakpoints;
+		private List<Instruction> program;
+		private long instructions;
+
+		ProgramBenchmark(String name, boolean translated, Breakpoints breakpoints) {
+			super(name);
+			this.translated = translated;
+			this.breakpoints = breakpoints;
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			program = assemble(MUL_LOOP);
+			RISCAR5Processor processor = new RISCAR5Processor();
+			processor.init(program);
+			processor.run();
+			instructions = processor.getCycleCount();
+		}
+
+		@Override
+		public int operation() {
+			RISCAR5Processor processor = new RISCAR5Processor();
+			processor.setTranslationEnabled(translated);
+			processor.setBreakpoints(breakpoints);
+			processor.init(program);
+			processor.run();
+			return processor.getRegister(Processor.ACC).getData();
+		}
+
+		@Override
+		public long getInstructionsPerOperation() {
+			return instructions;
+		}
+	}
+
+	/**
+	 * Fetches instruction words from a memory full of a program.
+	 */
+	private static class MemoryBenchmark extends Benchmark {
+		private final Memory memory;
+		private int location;
+
+		MemoryBenchmark(String name, Memory memory) {
+			super(name);
+			this.memory = memory;
+		}
+
+		@Override
+		public void setUp() {
+			for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+				memory.setDataAt(i, i * 31);
+			}
+		}
+
+		@Override
+		public int operation() {
+			location = (location + Processor.PC_INCREMENT) & 0xFE;
+			return memory.getDataAt(location, Processor.PC_INCREMENT);
+		}
+	}
+
+	static List<Instruction> assemble(String source) throws Exception {
+		return new Assembler(write(source, ".asm")).assemble();
+	}
+
+	private static File write(String contents, String suffix) throws IOException {
+		File file = File.createTempFile("benchmark", suffix);
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(contents);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+}
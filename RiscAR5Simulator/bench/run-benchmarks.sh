@@ -0,0 +1,12 @@
+#!/bin/sh
+# Compiles the simulator and the benchmarks with the JDK only and runs them.
+# Usage: bench/run-benchmarks.sh [BenchmarkRunner options]
+#   bench/run-benchmarks.sh --save bench/baseline.properties
+#   bench/run-benchmarks.sh --baseline bench/baseline.properties
+set -e
+root=$(cd "$(dirname "$0")/.." && pwd)
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+find "$root/src" "$root/bench" -name '*.java' > "$out/sources"
+javac -nowarn -d "$out/classes" @"$out/sources"
+java -cp "$out/classes" org.risc.simulator.bench.BenchmarkRunner "$@"
@@ -11,4 +11,18 @@ public interface AddressingModeBuilder {
 	
 	public Instruction getInstruction(int opcode,String[] args) throws AssemblerException;
 
+	/**
+	 * Builds the word of an instruction
+	 * @param opcode opcode of the instruction
+	 * @param operand register or constant, ignored if the mode doesn't have one
+	 * @return the instruction word
+	 * @throws AssemblerException if the operand is out of range
+	 */
+	public int encode(int opcode, int operand) throws AssemblerException;
+
+	/**
+	 * @return true if the instructions of this mode have a register or constant operand
+	 */
+	public boolean hasOperand();
+
 }
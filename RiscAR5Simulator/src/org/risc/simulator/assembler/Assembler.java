@@ -1,15 +1,22 @@
 package org.risc.simulator.assembler;
 
 import org.risc.simulator.processor.Instruction;
+import org.risc.simulator.processor.Processor;
+import org.risc.simulator.processor.ProgramImage;
+import org.risc.simulator.util.BitFields;
+import org.risc.simulator.util.NumberUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
-import java.util.Scanner;
 /**
  * RISC AR5 assembler
  * <br> instruction format: mnemonic [register number] [constant]
+ * <br> The source is read in a single pass by an {@link AssemblerLexer}. An assembler keeps
+ * the state of its source, so each thread needs its own one, see {@link AssemblyService}.
  * @author Victor J.
  *
  * @version $Revision: 1.0 $
@@ -19,19 +26,15 @@ public class Assembler {
 	/**
 	 * Field assambled.
 	 */
-	private List<Instruction> assambled;
+	private ProgramImage assambled;
 	/**
 	 * Field in.
 	 */
-	private Scanner in;
+	private Reader in;
 	/**
-	 * Field lineNumber.
+	 * Field lexer.
 	 */
-	private int lineNumber = 1;
-	/**
-	 * Field set.
-	 */
-	private InstructionSet set;
+	private AssemblerLexer lexer;
 
 	/**
 	 * Constructor for Assembler accepts a file with instruction to be assembled.
@@ -41,66 +44,96 @@ public class Assembler {
 	 */
 	public Assembler(File input) throws FileNotFoundException, AssemblerException {
 		if (input != null && input.isFile()) {
-			in = new Scanner(input);
-			set = InstructionSet.getInstance();
-			assambled = new ArrayList<Instruction>();
+			init(new FileReader(input));
 		} else {
 			throw new AssemblerException("Invalid File" + input);
 		}
 	}
 
 	/**
-	 * Parses the file and assembles the instructions
+	 * Constructor for Assembler accepts the source of the instructions to be assembled.
+	 * @param input Reader, closed by {@link #assemble()}
+	 */
+	public Assembler(Reader input) {
+		init(input);
+	}
+
+	private void init(Reader input) {
+		in = input;
+		lexer = new AssemblerLexer(input, InstructionSet.getInstance().getTrie());
+		assambled = new ProgramImage();
+	}
+
+	/**
+	 * Parses the source and assembles the instructions
 	 * @return the assembled instructions 
 	 * @throws AssemblerException if a there is an invalid mnemonic or if an
-	 * operand is out of range. 
+	 * operand is out of range, or if the source can't be read.
 	 * */
 	public List<Instruction> assemble() throws AssemblerException {
-		while (in.hasNextLine()) {
-			Instruction inst = nextInstruction();
-			if (!inst.isValid()) {
-				throw new AssemblerException(String.format(
-						"Invalid assambled instruction %s in line %d", inst,
-						lineNumber));
-			}
-			assambled.add(inst);
-			if (inst.isStopInstruction()) {//shortcut
-				System.out.println("found stop instruction");
-				return assambled;
-			}
-			lineNumber++;
-		}
-		return assambled;
+		return assembleImage().toInstructions();
 	}
 
 	/**
-	 * Parses the next instruction	
-	 * @return the assembled instruction 
-	 * @throws AssemblerException any error parsing the instruction 
+	 * Parses the source and assembles the instruction words, without making an
+	 * {@link Instruction} for each one.
+	 * @return the assembled program
+	 * @throws AssemblerException if a there is an invalid mnemonic or if an
+	 * operand is out of range, or if the source can't be read.
 	 * */
-	private Instruction nextInstruction() throws AssemblerException {
-		String line = in.nextLine().toLowerCase().trim();
-		if (!line.matches("([a-zA-z]+)(\\s+[-]{0,1}\\d+){0,2}")) {
-			throw new AssemblerException("Invalid format at line " + lineNumber);
+	public ProgramImage assembleImage() throws AssemblerException {
+		try {
+			while (lexer.next()) {
+				int word = nextInstruction();
+				try {
+					assambled.add(word);
+				} catch (IllegalArgumentException e) {
+					throw new AssemblerException(String.format(
+							"Invalid assambled instruction %s in line %d", NumberUtils.intToHexString(word, 4),
+							lexer.getLine()));
+				}
+				if (BitFields.opCode(word) == Processor.STOP_INSTRUCTION) {//shortcut
+					return assambled;
+				}
+			}
+			return assambled;
+		} catch (IOException e) {
+			throw new AssemblerException("The source can't be read: " + e.getMessage());
+		} finally {
+			close();
 		}
-
-		return assembleInstruction(line.split("\\s+"));
 	}
 
 	/**
-	 * Method assembleInstruction.
-	 * @param args String[]
-	 * @return Instruction
-	 * @throws AssemblerException
-	 */
-	private Instruction assembleInstruction(String[] args)
-			throws AssemblerException {
-		AssemblerInstruction a = set.get(args[0]);
-		if (a == null) {
-			throw new AssemblerException(String.format(
-					"Invalid mnemonic %s at line %d", args[0], lineNumber));
+	 * Assembles the line read by the lexer
+	 * @return the assembled instruction word
+	 * @throws AssemblerException if a register or constant is missing or out of range
+	 * */
+	private int nextInstruction() throws AssemblerException {
+		AssemblerInstruction a = lexer.getInstruction();
+		AddressingModeBuilder mode = a.getMode();
+		int operand = 0;
+		if (mode.hasOperand()) {
+			if (lexer.getOperandCount() == 0) {
+				throw lexer.error("Missing operand of " + a.getMnemonic(), 1);
+			}
+			if (lexer.isOperandTooLarge(0)) {
+				throw lexer.error("Number too large", lexer.getOperandColumn(0));
+			}
+			operand = lexer.getOperand(0);
+		}
+		try {
+			return mode.encode(a.getOpcode(), operand);
+		} catch (AssemblerException e) {
+			throw lexer.error(e.getMessage(), lexer.getOperandColumn(0));
 		}
+	}
 
-		return a.getMode().getInstruction(a.getOpcode(), args);
+	private void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			//nothing was lost, the source was only read
+		}
 	}
 }
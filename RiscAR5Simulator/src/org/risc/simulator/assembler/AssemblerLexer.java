@@ -0,0 +1,218 @@
+package org.risc.simulator.assembler;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the source of a program one line at a time in a single pass:
+ * <pre>
+ * mnemonic [operand] [operand]
+ * </pre>
+ * The mnemonic is matched with a {@link MnemonicTrie} while it is read and the operands,
+ * decimal numbers with an optional minus sign, are parsed directly from the characters read,
+ * so nothing is allocated for the lines that are right.
+ * <br> Lines end with \n, \r\n or \r. Errors tell the line and column where they were found.
+ * @author Victor J.
+ */
+final class AssemblerLexer {
+
+	static final int MAX_OPERANDS = 2;
+	private static final int BUFFER_SIZE = 1 << 13;
+	private static final int EOF = -1;
+	/**
+	 * Characters of a wrong mnemonic kept for the error message.
+	 */
+	private static final int MAX_MNEMONIC = 16;
+
+	private final Reader in;
+	private final MnemonicTrie trie;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position, limit;
+	private int line, column;
+
+	private AssemblerInstruction instruction;
+	private final int[] operands = new int[MAX_OPERANDS];
+	private final int[] operandColumns = new int[MAX_OPERANDS];
+	private final boolean[] operandTooLarge = new boolean[MAX_OPERANDS];
+	private int operandCount;
+	private final char[] mnemonic = new char[MAX_MNEMONIC];
+
+	AssemblerLexer(Reader in, MnemonicTrie trie) {
+		this.in = in;
+		this.trie = trie;
+	}
+
+	/**
+	 * Reads the next line.
+	 * @return false if there are no more lines
+	 * @throws IOException if the source can't be read
+	 * @throws AssemblerException if the line is not an instruction
+	 */
+	boolean next() throws IOException, AssemblerException {
+		int c = read();
+		if (c == EOF) {
+			return false;
+		}
+		line++;
+		column = 1;
+		c = skipSpaces(c);
+
+		//mnemonic
+		int start = column;
+		int node = MnemonicTrie.ROOT;
+		int length = 0;
+		while (isLetter(c)) {
+			if (length < MAX_MNEMONIC) {
+				mnemonic[length] = (char) (c | 0x20);
+			}
+			length++;
+			node = trie.next(node, c);
+			c = advance();
+		}
+		if (length == 0 || !isSpace(c) && !isEndOfLine(c)) {
+			throw error("Invalid format", column);
+		}
+		instruction = trie.get(node);
+		if (instruction == null) {
+			String name = new String(mnemonic, 0, Math.min(length, MAX_MNEMONIC));
+			throw error("Invalid mnemonic " + name, start);
+		}
+
+		//operands, each one after at least one space
+		operandCount = 0;
+		while (!isEndOfLine(c)) {
+			c = skipSpaces(c);
+			if (isEndOfLine(c)) {
+				break;
+			}
+			if (operandCount == MAX_OPERANDS) {
+				throw error("Invalid format", column);
+			}
+			operandColumns[operandCount] = column;
+			boolean negative = c == '-';
+			if (negative) {
+				c = advance();
+			}
+			if (!isDigit(c)) {
+				throw error("Invalid format", column);
+			}
+			long value = 0;
+			long max = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+			boolean tooLarge = false;
+			while (isDigit(c)) {
+				value = value * 10 + c - '0';
+				if (value > max) {
+					tooLarge = true;
+					value = max;
+				}
+				c = advance();
+			}
+			if (!isSpace(c) && !isEndOfLine(c)) {
+				throw error("Invalid format", column);
+			}
+			operandTooLarge[operandCount] = tooLarge;
+			operands[operandCount++] = (int) (negative ? -value : value);
+		}
+		if (c == '\r' && peek() == '\n') {
+			read();
+		}
+		return true;
+	}
+
+	AssemblerInstruction getInstruction() {
+		return instruction;
+	}
+
+	int getOperandCount() {
+		return operandCount;
+	}
+
+	int getOperand(int index) {
+		return operands[index];
+	}
+
+	/**
+	 * @return true if the operand doesn't fit in an int, then {@link #getOperand(int)} is
+	 * the closest int.
+	 */
+	boolean isOperandTooLarge(int index) {
+		return operandTooLarge[index];
+	}
+
+	/**
+	 * @return the line read, starting at 1.
+	 */
+	int getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the column of an operand, starting at 1.
+	 */
+	int getOperandColumn(int index) {
+		return operandColumns[index];
+	}
+
+	/**
+	 * @return an exception with the message followed by the line and column.
+	 */
+	AssemblerException error(String message, int column) {
+		return new AssemblerException(String.format("%s at line %d, column %d", message, line, column));
+	}
+
+	private int skipSpaces(int c) throws IOException {
+		while (isSpace(c)) {
+			c = advance();
+		}
+		return c;
+	}
+
+	/**
+	 * Reads the next character of the line.
+	 */
+	private int advance() throws IOException {
+		column++;
+		return read();
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return EOF;
+		}
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return EOF;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		int read = in.read(buffer, 0, buffer.length);
+		if (read <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = read;
+		return true;
+	}
+
+	private static boolean isLetter(int c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isSpace(int c) {
+		return c == ' ' || c == '\t' || c == '\f' || c == 0x0B;
+	}
+
+	private static boolean isEndOfLine(int c) {
+		return c == '\n' || c == '\r' || c == EOF;
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.risc.simulator.assembler;
+
+import java.util.Locale;
+
+/**
+ * Totals of the files assembled by the {@link AssemblyService} and its throughput.
+ * @author Victor J.
+ */
+public class AssemblyReport {
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final int assembled;
+	private final int failed;
+	private final long instructions;
+	private final long elapsedNanos;
+	private final int threads;
+
+	public AssemblyReport(int assembled, int failed, long instructions, long elapsedNanos, int threads) {
+		this.assembled = assembled;
+		this.failed = failed;
+		this.instructions = instructions;
+		this.elapsedNanos = elapsedNanos;
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the number of files assembled without errors.
+	 */
+	public int getAssembled() {
+		return assembled;
+	}
+
+	/**
+	 * @return the number of files with errors.
+	 */
+	public int getFailed() {
+		return failed;
+	}
+
+	public int getFiles() {
+		return assembled + failed;
+	}
+
+	/**
+	 * @return the number of instructions in the files assembled.
+	 */
+	public long getInstructions() {
+		return instructions;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public double getFilesPerSecond() {
+		return elapsedNanos == 0 ? 0 : getFiles() * NANOS_PER_SECOND / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d files, %d with errors, %d instructions in %.3f s, %.0f files/s with %d threads",
+				getFiles(), failed, instructions, elapsedNanos / NANOS_PER_SECOND, getFilesPerSecond(), threads);
+	}
+
+}
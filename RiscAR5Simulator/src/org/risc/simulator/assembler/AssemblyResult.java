@@ -0,0 +1,59 @@
+package org.risc.simulator.assembler;
+
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.File;
+
+/**
+ * Result of assembling one file with the {@link AssemblyService}: the program image or the
+ * error found.
+ * @author Victor J.
+ */
+public class AssemblyResult {
+
+	private final File file;
+	private final ProgramImage image;
+	private final String error;
+
+	private AssemblyResult(File file, ProgramImage image, String error) {
+		this.file = file;
+		this.image = image;
+		this.error = error;
+	}
+
+	static AssemblyResult of(File file, ProgramImage image) {
+		return new AssemblyResult(file, image, null);
+	}
+
+	static AssemblyResult error(File file, String error) {
+		return new AssemblyResult(file, null, error);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the assembled program, null if the file has errors.
+	 */
+	public ProgramImage getImage() {
+		return image;
+	}
+
+	/**
+	 * @return the error that stopped the assembly, with its line and column, null if there was none.
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return file + (isSuccessful() ? ": " + image.size() + " instructions" : ": " + error);
+	}
+
+}
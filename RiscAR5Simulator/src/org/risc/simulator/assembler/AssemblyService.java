@@ -0,0 +1,208 @@
+package org.risc.simulator.assembler;
+
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Assembles many files in parallel.
+ * <br> Each file is assembled by its own {@link Assembler} on a fork-join pool, all of them
+ * sharing the immutable {@link InstructionSet}. The results are given to a {@link Listener}
+ * as the files are assembled, so the images don't have to be kept until the last one:
+ * <pre>
+ * java org.risc.simulator.assembler.AssemblyService [-j N] file|directory...
+ * </pre>
+ * prints the errors of each file and the number of files assembled per second. Directories
+ * are searched for {@value #ASSEMBLY_EXTENSION} files recursively. The exit status is 0 when
+ * every file was assembled, 1 when any has errors and 2 when the arguments are wrong.
+ * @author Victor J.
+ */
+public class AssemblyService {
+
+	/**
+	 * Extension of the files searched in the directories.
+	 */
+	public static final String ASSEMBLY_EXTENSION = ".asm";
+
+	private static final String USAGE = "Usage: AssemblyService [-j threads] file|directory...";
+
+	/**
+	 * Receives the results in the order the files are assembled, always on the thread that
+	 * called {@link AssemblyService#assemble(Collection, Listener)}.
+	 */
+	public interface Listener {
+
+		void assembled(AssemblyResult result);
+	}
+
+	private final int threads;
+
+	/**
+	 * Creates a service that uses every available processor.
+	 */
+	public AssemblyService() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads number of files assembled at the same time
+	 */
+	public AssemblyService(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Assembles every file.
+	 * @param files    files to assemble
+	 * @param listener receives each result as soon as it is ready, null to only count them
+	 * @return the totals of the files assembled
+	 */
+	public AssemblyReport assemble(Collection<File> files, Listener listener) {
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		CompletionService<AssemblyResult> completion = new ExecutorCompletionService<AssemblyResult>(pool);
+		int assembled = 0, failed = 0;
+		long instructions = 0;
+		try {
+			for (final File file : files) {
+				completion.submit(new Callable<AssemblyResult>() {
+					@Override
+					public AssemblyResult call() {
+						return assemble(file);
+					}
+				});
+			}
+			for (int i = 0; i < files.size(); i++) {
+				AssemblyResult result = completion.take().get();
+				if (result.isSuccessful()) {
+					assembled++;
+					instructions += result.getImage().size();
+				} else {
+					failed++;
+				}
+				if (listener != null) {
+					listener.assembled(result);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Assembly interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Assembly failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return new AssemblyReport(assembled, failed, instructions, System.nanoTime() - start, threads);
+	}
+
+	/**
+	 * Assembles a single file, it can be called from any thread.
+	 * @param file file to assemble
+	 * @return the image or the error of the file
+	 */
+	public static AssemblyResult assemble(File file) {
+		try {
+			ProgramImage image = new Assembler(file).assembleImage();
+			return AssemblyResult.of(file, image);
+		} catch (AssemblerException e) {
+			return AssemblyResult.error(file, e.getMessage());
+		} catch (IOException e) {//FileNotFoundException
+			return AssemblyResult.error(file, e.getMessage());
+		}
+	}
+
+	/**
+	 * @param directory directory searched recursively
+	 * @return the {@value #ASSEMBLY_EXTENSION} files in the directory, in name order.
+	 * @throws IllegalArgumentException if it is not a directory
+	 */
+	public static List<File> findSources(File directory) {
+		List<File> sources = new ArrayList<File>();
+		addSources(directory, sources);
+		return sources;
+	}
+
+	private static void addSources(File directory, List<File> sources) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IllegalArgumentException("Not a directory " + directory);
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addSources(file, sources);
+			} else if (file.getName().endsWith(ASSEMBLY_EXTENSION)) {
+				sources.add(file);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Assembles the files given in the arguments.
+	 * @param args the command line arguments
+	 * @param out  where the errors of the files and the totals are printed
+	 * @param err  where the errors in the arguments are printed
+	 * @return the exit status
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<File> files = new ArrayList<File>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-j") && i + 1 < args.length) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].startsWith("-")) {
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				} else {
+					File file = new File(args[i]);
+					if (file.isDirectory()) {
+						files.addAll(findSources(file));
+					} else {
+						files.add(file);
+					}
+				}
+			}
+			if (files.isEmpty()) {
+				throw new IllegalArgumentException("No files given");
+			}
+			final PrintStream errors = out;
+			AssemblyReport report = new AssemblyService(threads).assemble(files, new Listener() {
+				@Override
+				public void assembled(AssemblyResult result) {
+					if (!result.isSuccessful()) {
+						errors.println(result);
+					}
+				}
+			});
+			out.println(report);
+			return report.getFailed() == 0 ? 0 : 1;
+		} catch (IllegalArgumentException e) {//NumberFormatException too
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return 2;
+		}
+	}
+
+}
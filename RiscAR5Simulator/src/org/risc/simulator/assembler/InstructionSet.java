@@ -1,5 +1,6 @@
 package org.risc.simulator.assembler;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -9,60 +10,75 @@ import org.risc.simulator.assembler.addressingmode.ImplicitAddressing;
 import org.risc.simulator.assembler.addressingmode.RegisterDirectAddressing;
 import org.risc.simulator.processor.Processor;
 
-public class InstructionSet {
+/**
+ * The mnemonics of the RISC AR5 and how they are assembled.
+ * <br> The single instance is built when the class is loaded and never changes afterwards,
+ * the addressing mode builders have no state, so it can be used by many assemblers at the
+ * same time without locking.
+ */
+public final class InstructionSet {
 	private final Map<String,AssemblerInstruction> instructions;
 	private final AddressingModeBuilder direct,register,implicit, immediate;
-	private static InstructionSet singleton;
+	private final MnemonicTrie trie;
+	private static final InstructionSet singleton = new InstructionSet();
 	
 	private InstructionSet(){
-		instructions = new HashMap<String, AssemblerInstruction>(Processor.NUMBER_OF_INSTRUCTIONS);
+		Map<String,AssemblerInstruction> table = new HashMap<String, AssemblerInstruction>(Processor.NUMBER_OF_INSTRUCTIONS);
 		direct = new DirectAddressing();
 		register = new RegisterDirectAddressing();
 		implicit = new ImplicitAddressing();
 		immediate = new ImmediateAddressing();
-		build();
+		build(table);
+		instructions = Collections.unmodifiableMap(table);
+		trie = new MnemonicTrie(instructions.values());
 	}
 	
-	private void build() {
+	private void build(Map<String,AssemblerInstruction> table) {
 
-		add("and",0, register);
-		add("or", 1, register);
-		add("addc", 3, register);
-		add("sub", 4, register);
-		add("mul", 5, register);
-		add("neg",6, implicit);
-		add("not",7,implicit);
-		add("rlc",8, implicit);
-		add("rrc",9, implicit);
-		add("ldar",10, register);
-		add("star",11,register);
-		add("lda",12,direct);
-		add("sta",13, direct);
-		add("ldi",14,immediate);
-		add("brz",16,implicit);
-		add("brc",17,implicit);
-		add("brn",18,implicit);
-		add("bro",19,implicit);
-		add("stop",31,implicit);
-		add("nop",24,implicit);
+		add(table, "and",0, register);
+		add(table, "or", 1, register);
+		add(table, "addc", 3, register);
+		add(table, "sub", 4, register);
+		add(table, "mul", 5, register);
+		add(table, "neg",6, implicit);
+		add(table, "not",7,implicit);
+		add(table, "rlc",8, implicit);
+		add(table, "rrc",9, implicit);
+		add(table, "ldar",10, register);
+		add(table, "star",11,register);
+		add(table, "lda",12,direct);
+		add(table, "sta",13, direct);
+		add(table, "ldi",14,immediate);
+		add(table, "brz",16,implicit);
+		add(table, "brc",17,implicit);
+		add(table, "brn",18,implicit);
+		add(table, "bro",19,implicit);
+		add(table, "stop",31,implicit);
+		add(table, "nop",24,implicit);
 		
 		
 		
 	}
 	
+	/**
+	 * The instance is created when the class is loaded so it can be shared between threads.
+	 */
 	public static InstructionSet getInstance(){
-		if(singleton == null){
-			singleton = new InstructionSet();
-		}
-		
 		return singleton;
 	}
 	public AssemblerInstruction get(String mnemonic){
 		return instructions.get(mnemonic);
 	}
+
+	/**
+	 * @return the mnemonics in a trie, for the {@link AssemblerLexer}.
+	 */
+	MnemonicTrie getTrie(){
+		return trie;
+	}
 	
-	private void add(String mnemonic, int opcode, AddressingModeBuilder mode){
-		if(instructions.put(mnemonic, new AssemblerInstruction(mnemonic,opcode,mode)) != null){
+	private static void add(Map<String,AssemblerInstruction> table, String mnemonic, int opcode, AddressingModeBuilder mode){
+		if(table.put(mnemonic, new AssemblerInstruction(mnemonic,opcode,mode)) != null){
 			System.out.println("A copy has made " + mnemonic);
 		}
 	}
@@ -0,0 +1,81 @@
+package org.risc.simulator.assembler;
+
+import java.util.Collection;
+
+/**
+ * Trie of the mnemonics of an {@link InstructionSet}, so a mnemonic can be recognized one
+ * character at a time while it is read, without making a string of it.
+ * <pre>
+ * int node = MnemonicTrie.ROOT;
+ * for (char c : "ldi".toCharArray()) {
+ *     node = trie.next(node, c);
+ * }
+ * trie.get(node);
+ * </pre>
+ * Letters are matched ignoring their case. The trie doesn't change after it is built.
+ * @author Victor J.
+ */
+final class MnemonicTrie {
+
+	static final int ROOT = 0;
+	/**
+	 * Node reached by a prefix that is not the one of any mnemonic.
+	 */
+	static final int NONE = -1;
+	private static final int LETTERS = 26;
+
+	private final int[] children;
+	private final AssemblerInstruction[] instructions;
+	private int nodes = 1;
+
+	MnemonicTrie(Collection<AssemblerInstruction> instructions) {
+		int maxNodes = 1;
+		for (AssemblerInstruction instruction : instructions) {
+			maxNodes += instruction.getMnemonic().length();
+		}
+		children = new int[maxNodes * LETTERS];
+		this.instructions = new AssemblerInstruction[maxNodes];
+		for (AssemblerInstruction instruction : instructions) {
+			add(instruction);
+		}
+	}
+
+	private void add(AssemblerInstruction instruction) {
+		int node = ROOT;
+		String mnemonic = instruction.getMnemonic();
+		for (int i = 0; i < mnemonic.length(); i++) {
+			int index = node * LETTERS + letter(mnemonic.charAt(i));
+			if (children[index] == 0) {//the root is never a child
+				children[index] = nodes++;
+			}
+			node = children[index];
+		}
+		instructions[node] = instruction;
+	}
+
+	/**
+	 * @param node node of the characters read so far, {@link #ROOT} before the first one
+	 * @param c    next character
+	 * @return the node of the characters read followed by c, or {@link #NONE}
+	 */
+	int next(int node, int c) {
+		int letter = letter(c);
+		if (node == NONE || letter < 0 || letter >= LETTERS) {
+			return NONE;
+		}
+		int child = children[node * LETTERS + letter];
+		return child == 0 ? NONE : child;
+	}
+
+	/**
+	 * @return the instruction whose mnemonic ends at the node, null if there is none.
+	 */
+	AssemblerInstruction get(int node) {
+		return node == NONE ? null : instructions[node];
+	}
+
+	private static int letter(int c) {
+		return (c | 0x20) - 'a';
+	}
+
+}
@@ -6,7 +6,6 @@ import org.risc.simulator.assembler.AddressingModeBuilder;
 import static org.risc.simulator.util.NumberUtils.fitsInBits;
 import org.risc.simulator.processor.Instruction;
 import org.risc.simulator.processor.Processor;
-import org.risc.simulator.util.NumberUtils;
 
 /**
  * 
@@ -44,9 +43,11 @@ public abstract class AbstractAddressingModeBuilder implements AddressingModeBui
 	protected int maskConstant(int constant){
 		return constant &= byteMask;
 	}
+	/**
+	 * Builds the instruction from its word, written in hex like the instructions of a loaded file.
+	 */
 	protected Instruction buildInstruction(int inst){
-		String hex = NumberUtils.intToHexString(inst, 4);
-		return new Instruction(hex);  
+		return Instruction.ofWord(inst);
 	}
 	
 	protected String getString(String[] args){
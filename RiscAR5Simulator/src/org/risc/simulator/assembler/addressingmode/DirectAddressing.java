@@ -9,14 +9,23 @@ public class DirectAddressing extends AbstractAddressingModeBuilder {
 
 	@Override
 	public Instruction getInstruction(int opcode, String[] args) throws AssemblerException {
-		int constant = getInt(args[1]);
+		return buildInstruction(encode(opcode, getInt(args[1])));
+	}
+
+	@Override
+	public int encode(int opcode, int constant) throws AssemblerException {
 		if(!fitsInBits(constant, 8)) {
-			throw new AssemblerException("Constant doesn't fit in 8 bits " + getString(args));
+			throw new AssemblerException("Constant doesn't fit in 8 bits " + constant);
 		}
 		constant = maskConstant(constant);
 		int op = shiftOpcode(opcode);
 		op |= constant;
-		return buildInstruction(op);
+		return op;
+	}
+
+	@Override
+	public boolean hasOperand() {
+		return true;
 	}
 
 }
@@ -6,8 +6,17 @@ public class ImplicitAddressing extends AbstractAddressingModeBuilder {
 
 	@Override
 	public Instruction getInstruction(int opcode, String[] args) {
-		int inst= shiftOpcode(opcode);
-		return buildInstruction(inst);
+		return buildInstruction(encode(opcode, 0));
+	}
+
+	@Override
+	public int encode(int opcode, int operand) {
+		return shiftOpcode(opcode);
+	}
+
+	@Override
+	public boolean hasOperand() {
+		return false;
 	}
 
 }
@@ -7,14 +7,23 @@ public class RegisterDirectAddressing extends AbstractAddressingModeBuilder {
 
 	@Override
 	public Instruction getInstruction(int opcode, String[] args) throws AssemblerException {
+		return buildInstruction(encode(opcode, getInt(args[1])));
+	}
+
+	@Override
+	public int encode(int opcode, int reg) throws AssemblerException {
 		int op = shiftOpcode(opcode);
-		int reg = getInt(args[1]);
 		if(reg < 0 || reg > 7){
-			throw new AssemblerException("Invalid register in " + getString(args));
+			throw new AssemblerException("Invalid register " + reg);
 		}
 		reg= shiftandMaskRegister(reg);
 		op |= reg;
-		return buildInstruction(op);
+		return op;
+	}
+
+	@Override
+	public boolean hasOperand() {
+		return true;
 	}
 
 }
@@ -0,0 +1,160 @@
+package org.risc.simulator.batch;
+
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.assembler.AssemblerException;
+import org.risc.simulator.io.FileLoader;
+import org.risc.simulator.processor.Instruction;
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A program to be simulated by the {@link BatchSimulator}.
+ * <br> Files ending in {@value #ASSEMBLY_EXTENSION} are assembled with the
+ * {@link Assembler}, any other file is read as a hex file with the {@link FileLoader}.
+ * @author Victor J.
+ */
+public class BatchJob {
+
+	/**
+	 * Extension of the files that contain assembly code.
+	 */
+	public static final String ASSEMBLY_EXTENSION = ".asm";
+
+	private final String name;
+	private final File file;
+	private final List<Instruction> instructions;
+
+	private BatchJob(String name, File file, List<Instruction> instructions) {
+		this.name = name;
+		this.file = file;
+		this.instructions = instructions;
+	}
+
+	/**
+	 * Creates a job that loads its program from a file when it is run.
+	 * @param file hex or assembly file
+	 */
+	public static BatchJob fromFile(File file) {
+		return new BatchJob(file.getPath(), file, null);
+	}
+
+	/**
+	 * Creates a job for every file in the directory, in name order.
+	 * @param directory directory with hex and assembly files
+	 * @throws IllegalArgumentException if it is not a directory
+	 */
+	public static List<BatchJob> fromDirectory(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IllegalArgumentException("Not a directory " + directory);
+		}
+		Arrays.sort(files);
+		List<BatchJob> jobs = new ArrayList<BatchJob>(files.length);
+		for (File file : files) {
+			if (file.isFile()) {
+				jobs.add(fromFile(file));
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * Creates a job for a program that is already loaded.
+	 * @param name         name used in the results
+	 * @param instructions the program
+	 */
+	public static BatchJob fromInstructions(String name, List<Instruction> instructions) {
+		return new BatchJob(name, null, instructions);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the file of this job or null if it was created with the instructions.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Loads the program of this job.
+	 * @return the instructions to initialize the processor with
+	 * @throws IOException if the file can't be read or it is not a valid hex file
+	 * @throws AssemblerException if the assembly file has errors
+	 */
+	public List<Instruction> load() throws IOException, AssemblerException {
+		if (instructions != null) {
+			return instructions;
+		}
+		if (file.getName().endsWith(ASSEMBLY_EXTENSION)) {
+			return new Assembler(file).assemble();
+		}
+		FileLoader loader = new FileLoader(file);
+		if (!loader.isFileLoaded()) {
+			throw new IOException("Could not read " + file);
+		} else if (loader.isFileTooLong()) {
+			throw new IOException("File too long " + file);
+		} else if (!loader.isFileValid()) {
+			throw new IOException("Invalid instructions or missing stop instruction in " + file);
+		}
+		return loader.getInstructionMapList();
+	}
+
+	/**
+	 * Loads the program of this job as an image. The image of an assembly file is taken from
+	 * the cache when its text was already assembled, and added to it otherwise.
+	 * @param cache cache of the images, null to always assemble
+	 * @return the image to initialize the processor with
+	 * @throws IOException if the file or the cache can't be read or it is not a valid hex file
+	 * @throws AssemblerException if the assembly file has errors
+	 */
+	public ProgramImage loadImage(SimulationCache cache) throws IOException, AssemblerException {
+		if (instructions != null || !file.getName().endsWith(ASSEMBLY_EXTENSION)) {
+			return ProgramImage.of(load());
+		}
+		if (cache == null) {
+			return new Assembler(file).assembleImage();
+		}
+		byte[] source = read(file);
+		String key = SimulationCache.imageKey(source);
+		ProgramImage image = cache.getImage(key);
+		if (image == null) {
+			image = new Assembler(new InputStreamReader(new ByteArrayInputStream(source))).assembleImage();
+			cache.putImage(key, image);
+		}
+		return image;
+	}
+
+	private static byte[] read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				bytes.write(buffer, 0, n);
+			}
+			return bytes.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BatchJob [name=" + name + "]";
+	}
+
+}
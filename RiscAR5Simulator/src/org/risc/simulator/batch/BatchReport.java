@@ -0,0 +1,86 @@
+package org.risc.simulator.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of a batch run with its aggregate throughput.
+ * @author Victor J.
+ */
+public class BatchReport {
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final List<BatchResult> results;
+	private final long elapsedNanos;
+	private final int threads;
+
+	public BatchReport(List<BatchResult> results, long elapsedNanos, int threads) {
+		this.results = Collections.unmodifiableList(results);
+		this.elapsedNanos = elapsedNanos;
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the results in the same order as the jobs.
+	 */
+	public List<BatchResult> getResults() {
+		return results;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the number of results with the given status.
+	 */
+	public int count(BatchResult.Status status) {
+		int count = 0;
+		for (BatchResult result : results) {
+			if (result.getStatus() == status) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public long getTotalCycles() {
+		long cycles = 0;
+		for (BatchResult result : results) {
+			cycles += result.getCycles();
+		}
+		return cycles;
+	}
+
+	public double getProgramsPerSecond() {
+		return results.size() * NANOS_PER_SECOND / Math.max(1, elapsedNanos);
+	}
+
+	public double getCyclesPerSecond() {
+		return getTotalCycles() * NANOS_PER_SECOND / Math.max(1, elapsedNanos);
+	}
+
+	/**
+	 * @return the totals, with the number of programs of every status.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder counts = new StringBuilder();
+		for (BatchResult.Status status : BatchResult.Status.values()) {
+			if (counts.length() > 0) {
+				counts.append(", ");
+			}
+			counts.append(count(status)).append(' ').append(status.name().toLowerCase(Locale.ROOT).replace('_', ' '));
+		}
+		return String.format("%d programs (%s) in %.3f s on %d threads: %.1f programs/s, %.0f cycles/s",
+				results.size(), counts, elapsedNanos / NANOS_PER_SECOND, threads,
+				getProgramsPerSecond(), getCyclesPerSecond());
+	}
+
+}
@@ -0,0 +1,207 @@
+package org.risc.simulator.batch;
+
+import org.risc.simulator.processor.Processor;
+import org.risc.simulator.processor.RunStatus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Final state of a program run by the {@link BatchSimulator}.
+ * @author Victor J.
+ */
+public class BatchResult {
+
+	/**
+	 * How the simulation of a program ended.
+	 */
+	public enum Status {
+		/**
+		 * The stop instruction was executed.
+		 */
+		STOPPED,
+		/**
+		 * The cycle limit was reached before the stop instruction.
+		 */
+		CYCLE_LIMIT,
+		/**
+		 * The timeout passed before the stop instruction.
+		 */
+		DEADLINE,
+		/**
+		 * The processor repeated a state, so the program would never stop.
+		 */
+		NON_TERMINATING,
+		/**
+		 * The PC left the memory.
+		 */
+		TRAPPED,
+		/**
+		 * The program could not be loaded or the processor failed while running it.
+		 */
+		ERROR
+	}
+
+	private final String name;
+	private final Status status;
+	private final String error;
+	private final int acc, sr, pc, ir;
+	private final int[] gpr;
+	private final String memoryDigest;
+	private final String output;
+	private final long cycles;
+
+	private BatchResult(String name, Status status, String error, int acc, int sr, int pc, int ir,
+	                    int[] gpr, String memoryDigest, String output, long cycles) {
+		this.name = name;
+		this.status = status;
+		this.error = error;
+		this.acc = acc;
+		this.sr = sr;
+		this.pc = pc;
+		this.ir = ir;
+		this.gpr = gpr;
+		this.memoryDigest = memoryDigest;
+		this.output = output;
+		this.cycles = cycles;
+	}
+
+	/**
+	 * Takes the final state of a processor.
+	 * @param name      name of the program
+	 * @param processor processor that ran the program
+	 * @param runStatus how the run ended
+	 * @param cycles    number of cycles executed
+	 */
+	public static BatchResult of(String name, Processor processor, RunStatus runStatus, long cycles) {
+		int[] gpr = new int[Processor.NUMBER_OF_GPR];
+		for (int i = 0; i < gpr.length; i++) {
+			gpr[i] = processor.getRegister(i).getData();
+		}
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+			crc.update(processor.getMemory().getDataAt(i));
+		}
+		return new BatchResult(name, Status.valueOf(runStatus.name()), null,
+				processor.getRegister(Processor.ACC).getData(), processor.getRegister(Processor.SR).getData(),
+				processor.getRegister(Processor.PC).getData(), processor.getRegister(Processor.IR).getData(),
+				gpr, String.format("%08x", crc.getValue()),
+				processor.getOutputChannel().readString(), cycles);
+	}
+
+	/**
+	 * Creates the result of a program that failed.
+	 * @param name   name of the program
+	 * @param error  the cause of the failure
+	 * @param cycles number of cycles executed before failing
+	 */
+	public static BatchResult error(String name, Throwable error, long cycles) {
+		return new BatchResult(name, Status.ERROR, String.valueOf(error), 0, 0, 0, 0,
+				new int[Processor.NUMBER_OF_GPR], "", "", cycles);
+	}
+
+	/**
+	 * Reads a result written by {@link #write(DataOutputStream)}.
+	 * @param name name of the program the result is given to
+	 */
+	static BatchResult read(String name, DataInputStream in) throws IOException {
+		Status status = Status.values()[in.readByte()];
+		String error = in.readBoolean() ? SimulationCache.readString(in) : null;
+		int acc = in.readInt(), sr = in.readInt(), pc = in.readInt(), ir = in.readInt();
+		int[] gpr = new int[Processor.NUMBER_OF_GPR];
+		for (int i = 0; i < gpr.length; i++) {
+			gpr[i] = in.readInt();
+		}
+		String memoryDigest = SimulationCache.readString(in);
+		String output = SimulationCache.readString(in);
+		return new BatchResult(name, status, error, acc, sr, pc, ir, gpr, memoryDigest, output, in.readLong());
+	}
+
+	/**
+	 * Writes everything but the name, for the {@link SimulationCache}.
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeByte(status.ordinal());
+		out.writeBoolean(error != null);
+		if (error != null) {
+			SimulationCache.writeString(out, error);
+		}
+		out.writeInt(acc);
+		out.writeInt(sr);
+		out.writeInt(pc);
+		out.writeInt(ir);
+		for (int value : gpr) {
+			out.writeInt(value);
+		}
+		SimulationCache.writeString(out, memoryDigest);
+		SimulationCache.writeString(out, output);
+		out.writeLong(cycles);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the description of the failure or null if the program didn't fail.
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public int getAcc() {
+		return acc;
+	}
+
+	public int getSr() {
+		return sr;
+	}
+
+	public int getPc() {
+		return pc;
+	}
+
+	public int getIr() {
+		return ir;
+	}
+
+	/**
+	 * @param i number of the general purpose register, from 0 to 7
+	 */
+	public int getRegister(int i) {
+		return gpr[i];
+	}
+
+	/**
+	 * @return the CRC-32 of the memory cells in hex.
+	 */
+	public String getMemoryDigest() {
+		return memoryDigest;
+	}
+
+	/**
+	 * @return the contents of the output port.
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	public long getCycles() {
+		return cycles;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [name=" + name + ", status=" + status + ", error=" + error + ", acc=" + acc
+				+ ", sr=" + sr + ", pc=" + pc + ", ir=" + ir + ", gpr=" + Arrays.toString(gpr)
+				+ ", memoryDigest=" + memoryDigest + ", cycles=" + cycles + "]";
+	}
+
+}
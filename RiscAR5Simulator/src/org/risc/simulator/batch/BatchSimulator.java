@@ -0,0 +1,215 @@
+package org.risc.simulator.batch;
+
+import org.risc.simulator.processor.PeepholeOptimizer;
+import org.risc.simulator.processor.ProgramImage;
+import org.risc.simulator.processor.RISCAR5Processor;
+import org.risc.simulator.processor.RunLimits;
+import org.risc.simulator.processor.RunStatus;
+import org.risc.simulator.util.RangePolicy;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless engine that simulates many programs in parallel.
+ * <br> Every program runs in its own {@link RISCAR5Processor} on a fork-join pool, with
+ * the same input port contents and {@link RunLimits}. Programs that fail to load or make the
+ * processor fail get an {@link BatchResult.Status#ERROR} result instead of stopping
+ * the batch. Programs whose PC leaves the memory are stopped with the {@link RangePolicy#TRAP}
+ * policy, which is much cheaper than failing with an exception.
+ * <br> With a {@link SimulationCache} the programs already assembled or run with the same input
+ * and limits are taken from the cache instead.
+ * <br> With optimization enabled every image goes through the {@link PeepholeOptimizer} before
+ * it runs, which changes the cycle count and the addresses of the code but not the output.
+ * @author Victor J.
+ */
+public class BatchSimulator {
+
+	/**
+	 * Default maximum number of cycles a program can run.
+	 */
+	public static final long DEFAULT_CYCLE_LIMIT = 1000000;
+
+	private final int threads;
+	private long cycleLimit = DEFAULT_CYCLE_LIMIT;
+	private long timeoutMillis = RunLimits.NO_LIMIT;
+	private boolean loopDetection = true;
+	private String input = "";
+	private SimulationCache cache;
+	private boolean optimization;
+
+	/**
+	 * Creates a simulator that uses every available processor.
+	 */
+	public BatchSimulator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads number of programs simulated at the same time
+	 */
+	public BatchSimulator(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public long getCycleLimit() {
+		return cycleLimit;
+	}
+
+	/**
+	 * @param cycleLimit maximum number of cycles a program can run
+	 */
+	public void setCycleLimit(long cycleLimit) {
+		this.cycleLimit = cycleLimit;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * @param timeoutMillis maximum wall clock time a program can run or {@link RunLimits#NO_LIMIT}
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public boolean isLoopDetection() {
+		return loopDetection;
+	}
+
+	/**
+	 * @param loopDetection true to end the programs that repeat a state as
+	 *                      {@link BatchResult.Status#NON_TERMINATING} instead of running them
+	 *                      until the cycle limit. It is enabled by default.
+	 */
+	public void setLoopDetection(boolean loopDetection) {
+		this.loopDetection = loopDetection;
+	}
+
+	public String getInput() {
+		return input;
+	}
+
+	/**
+	 * @param input contents of the input port for every program
+	 */
+	public void setInput(String input) {
+		this.input = input;
+	}
+
+	public SimulationCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * @param cache cache of the images and results, null to assemble and run every program
+	 */
+	public void setCache(SimulationCache cache) {
+		this.cache = cache;
+	}
+
+	public boolean isOptimization() {
+		return optimization;
+	}
+
+	/**
+	 * @param optimization true to run the programs through the {@link PeepholeOptimizer}.
+	 *                     It is disabled by default.
+	 */
+	public void setOptimization(boolean optimization) {
+		this.optimization = optimization;
+	}
+
+	/**
+	 * Simulates every file in the directory, in name order.
+	 * @param directory directory with hex and assembly files
+	 * @return the report of the batch
+	 */
+	public BatchReport run(File directory) {
+		return run(BatchJob.fromDirectory(directory));
+	}
+
+	/**
+	 * Simulates every job.
+	 * @param jobs programs to simulate
+	 * @return the report of the batch, with the results in the same order as the jobs
+	 */
+	public BatchReport run(Collection<BatchJob> jobs) {
+		List<Callable<BatchResult>> tasks = new ArrayList<Callable<BatchResult>>(jobs.size());
+		for (final BatchJob job : jobs) {
+			tasks.add(new Callable<BatchResult>() {
+				@Override
+				public BatchResult call() {
+					return simulate(job);
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<BatchResult> results = new ArrayList<BatchResult>(tasks.size());
+		try {
+			for (Future<BatchResult> future : pool.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Batch interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Batch failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return new BatchReport(results, System.nanoTime() - start, threads);
+	}
+
+	/**
+	 * Simulates a single job in a new processor.
+	 * @param job program to simulate
+	 * @return the final state of the processor
+	 */
+	public BatchResult simulate(BatchJob job) {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		try {
+			ProgramImage image = job.loadImage(cache);
+			if (optimization) {
+				image = PeepholeOptimizer.optimize(image);
+			}
+			String key = null;
+			if (cache != null) {
+				key = SimulationCache.resultKey(image, input, cycleLimit, loopDetection);
+				BatchResult cached = cache.getResult(key, job.getName());
+				if (cached != null) {
+					return cached;
+				}
+			}
+			processor.getInputChannel().write(input);
+			processor.init(image);
+			processor.setTranslationEnabled(true);
+			processor.setRangePolicy(RangePolicy.TRAP);
+			RunStatus status = processor.run(new RunLimits(cycleLimit, timeoutMillis, loopDetection));
+			BatchResult result = BatchResult.of(job.getName(), processor, status, processor.getCycleCount());
+			if (cache != null && status != RunStatus.DEADLINE) {//the only result that depends on the time
+				cache.putResult(key, result);
+			}
+			return result;
+		} catch (Exception e) {
+			return BatchResult.error(job.getName(), e, processor.getCycleCount());
+		}
+	}
+
+}
@@ -0,0 +1,495 @@
+package org.risc.simulator.batch;
+
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk cache of the programs assembled and the results simulated by the {@link BatchSimulator},
+ * so the programs repeated in a batch, or in batches run again, are only assembled and run once.
+ * <br> The entries are addressed by the SHA-256 of everything their value depends on: the
+ * {@link #VERSION} and the source text for an image, the {@link #VERSION}, the image, the input
+ * and the limits for a result. A changed program, input or simulator never gets an old entry.
+ * <p>
+ * The values are appended to {@value #DATA_FILE} and their locations are kept in memory in
+ * least recently used order. The locations are written to {@value #INDEX_FILE} by {@link #close()},
+ * if the index is missing or doesn't match the data, for example after a crash, it is rebuilt by
+ * reading the data file. When the values take more than the maximum size the least recently used
+ * are evicted, and once the data file is more than half dead entries the live ones are copied to
+ * a new file.
+ * <p>
+ * Data file, all values are big endian:
+ * <pre>
+ * 0  int   magic number
+ * 4  int   version
+ * then one record per value:
+ * 0  32    key
+ * 32 int   length of the value
+ * 36 ...   value
+ * </pre>
+ * The methods are synchronized, one cache can be shared by the threads of a batch.
+ * @author Victor J.
+ */
+public class SimulationCache implements Closeable {
+
+	/**
+	 * Changes whenever the simulator or the format of the entries change, so old entries are never used.
+	 */
+	public static final int VERSION = 2;
+
+	public static final String DATA_FILE = "cache.dat", INDEX_FILE = "cache.idx";
+
+	/**
+	 * Default maximum size of the values, 256 MB.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+	private static final int MAGIC = 0x52414343; // RACC
+	private static final int HEADER_SIZE = 8;
+	private static final int KEY_SIZE = 32;
+	private static final int RECORD_HEADER_SIZE = KEY_SIZE + 4;
+	private static final byte IMAGE = 1, RESULT = 2;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Location of a value in the data file.
+	 */
+	private static class Entry {
+		final long offset;
+		final int length;
+
+		Entry(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		long size() {
+			return RECORD_HEADER_SIZE + length;
+		}
+	}
+
+	private final File directory;
+	private final long maxBytes;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private RandomAccessFile data;
+	private long liveBytes;
+	private long hits, misses;
+
+	/**
+	 * Opens the cache in a directory, creating it if it doesn't exist.
+	 * @param directory where the cache files are kept
+	 * @param maxBytes  size of the values above which the least recently used are evicted
+	 * @throws IOException if the cache files can't be read or created
+	 */
+	public SimulationCache(File directory, long maxBytes) throws IOException {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("The size of the cache can't be negative");
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create " + directory);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		data = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+		if (data.length() < HEADER_SIZE || data.readInt() != MAGIC || data.readInt() != VERSION) {
+			data.setLength(0);
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+		} else if (!readIndex()) {
+			scan();
+		}
+		new File(directory, INDEX_FILE).delete();
+		evict();
+	}
+
+	/**
+	 * @param source text of an assembly program
+	 * @return the key of the image assembled from the source.
+	 */
+	public static String imageKey(byte[] source) {
+		MessageDigest digest = digest(IMAGE);
+		digest.update(source);
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * @param image         program simulated
+	 * @param input         contents of the input port
+	 * @param cycleLimit    maximum number of cycles of the run
+	 * @param loopDetection true if the run ends when a state repeats
+	 * @return the key of the result of the run.
+	 */
+	public static String resultKey(ProgramImage image, String input, long cycleLimit, boolean loopDetection) {
+		MessageDigest digest = digest(RESULT);
+		digest.update(toBytes(image));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(image.size());
+			writeString(out, input);
+			out.writeLong(cycleLimit);
+			out.writeBoolean(loopDetection);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);//not thrown by a byte array
+		}
+		digest.update(bytes.toByteArray());
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * @return the image of the key or null if it is not cached.
+	 * @throws IOException if the data file can't be read
+	 */
+	public ProgramImage getImage(String key) throws IOException {
+		byte[] value = get(key);
+		if (value == null) {
+			return null;
+		}
+		ProgramImage image = new ProgramImage(value.length / 2);
+		for (int i = 0; i < value.length; i += 2) {
+			image.add((value[i] & 0xFF) << 8 | value[i + 1] & 0xFF);
+		}
+		return image;
+	}
+
+	/**
+	 * Caches an image, see {@link #imageKey(byte[])}.
+	 * @throws IOException if the data file can't be written
+	 */
+	public void putImage(String key, ProgramImage image) throws IOException {
+		put(key, toBytes(image));
+	}
+
+	/**
+	 * @param key  key of the result
+	 * @param name name of the program the result is given to
+	 * @return the result of the key or null if it is not cached.
+	 * @throws IOException if the data file can't be read
+	 */
+	public BatchResult getResult(String key, String name) throws IOException {
+		byte[] value = get(key);
+		return value == null ? null : BatchResult.read(name, new DataInputStream(new ByteArrayInputStream(value)));
+	}
+
+	/**
+	 * Caches a result, see {@link #resultKey(ProgramImage, String, long, boolean)}. The name
+	 * of the program is not kept.
+	 * @throws IOException if the data file can't be written
+	 */
+	public void putResult(String key, BatchResult result) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		result.write(new DataOutputStream(bytes));
+		put(key, bytes.toByteArray());
+	}
+
+	/**
+	 * @return the value of the key or null if it is not cached, the key becomes the most recently used.
+	 * @throws IOException if the data file can't be read
+	 */
+	public synchronized byte[] get(String key) throws IOException {
+		checkOpen();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		byte[] value = new byte[entry.length];
+		data.seek(entry.offset + RECORD_HEADER_SIZE);
+		data.readFully(value);
+		return value;
+	}
+
+	/**
+	 * Appends a value, replacing the one the key had, and evicts the least recently used
+	 * values if the cache is too big.
+	 * @param key   64 hex digits, like the ones of {@link #imageKey(byte[])}
+	 * @param value the value
+	 * @throws IOException if the data file can't be written
+	 */
+	public synchronized void put(String key, byte[] value) throws IOException {
+		checkOpen();
+		byte[] keyBytes = fromHex(key);
+		long offset = data.length();
+		data.seek(offset);
+		data.write(keyBytes);
+		data.writeInt(value.length);
+		data.write(value);
+		add(key, new Entry(offset, value.length));
+		evict();
+	}
+
+	/**
+	 * @return the number of values cached.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the bytes taken by the values cached and their keys.
+	 */
+	public synchronized long getLiveBytes() {
+		return liveBytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return the number of gets that found their key.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of gets that didn't find their key.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Copies the live values to a new data file, dropping the ones evicted or replaced.
+	 * @throws IOException if the new file can't be written
+	 */
+	public synchronized void compact() throws IOException {
+		checkOpen();
+		File file = new File(directory, DATA_FILE), compacted = new File(directory, DATA_FILE + ".tmp");
+		RandomAccessFile out = new RandomAccessFile(compacted, "rw");
+		LinkedHashMap<String, Entry> moved = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+		try {
+			out.setLength(0);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			byte[] record = new byte[0];
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				if (record.length < entry.size()) {
+					record = new byte[(int) entry.size()];
+				}
+				data.seek(entry.offset);
+				data.readFully(record, 0, (int) entry.size());
+				moved.put(e.getKey(), new Entry(out.getFilePointer(), entry.length));
+				out.write(record, 0, (int) entry.size());
+			}
+		} finally {
+			out.close();
+		}
+		data.close();
+		if (!file.delete() || !compacted.renameTo(file)) {
+			data = null;
+			throw new IOException("Could not replace " + file);
+		}
+		data = new RandomAccessFile(file, "rw");
+		entries.clear();
+		entries.putAll(moved);
+	}
+
+	/**
+	 * Writes the index and closes the data file. The cache can't be used anymore.
+	 * @throws IOException if the index can't be written
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (data == null) {
+			return;
+		}
+		try {
+			writeIndex();
+		} finally {
+			data.close();
+			data = null;
+		}
+	}
+
+	/**
+	 * Index file: magic number, version, length of the data file, number of entries and then
+	 * the key, offset and length of each entry, from the least to the most recently used.
+	 */
+	private void writeIndex() throws IOException {
+		File index = new File(directory, INDEX_FILE);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(data.length());
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				out.write(fromHex(e.getKey()));
+				out.writeLong(e.getValue().offset);
+				out.writeInt(e.getValue().length);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return false if there is no index or it doesn't match the data file.
+	 */
+	private boolean readIndex() throws IOException {
+		File index = new File(directory, INDEX_FILE);
+		if (!index.isFile()) {
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != data.length()) {
+				return false;
+			}
+			int count = in.readInt();
+			byte[] key = new byte[KEY_SIZE];
+			for (int i = 0; i < count; i++) {
+				in.readFully(key);
+				add(toHex(key), new Entry(in.readLong(), in.readInt()));
+			}
+			return true;
+		} catch (EOFException e) {
+			entries.clear();
+			liveBytes = 0;
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Rebuilds the index from the records of the data file, in the order they were written.
+	 * A record cut short at the end is dropped.
+	 */
+	private void scan() throws IOException {
+		entries.clear();
+		liveBytes = 0;
+		long offset = HEADER_SIZE, length = data.length();
+		byte[] key = new byte[KEY_SIZE];
+		while (offset + RECORD_HEADER_SIZE <= length) {
+			data.seek(offset);
+			data.readFully(key);
+			int valueLength = data.readInt();
+			if (valueLength < 0 || offset + RECORD_HEADER_SIZE + valueLength > length) {
+				break;
+			}
+			add(toHex(key), new Entry(offset, valueLength));
+			offset += RECORD_HEADER_SIZE + valueLength;
+		}
+		data.setLength(offset);
+	}
+
+	private void add(String key, Entry entry) {
+		Entry old = entries.put(key, entry);
+		if (old != null) {
+			liveBytes -= old.size();
+		}
+		liveBytes += entry.size();
+	}
+
+	/**
+	 * Drops the least recently used values until the cache fits, and compacts the data file
+	 * when most of it is dead.
+	 */
+	private void evict() throws IOException {
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (liveBytes > maxBytes && eldest.hasNext()) {
+			liveBytes -= eldest.next().size();
+			eldest.remove();
+		}
+		if (data.length() - HEADER_SIZE > 2 * liveBytes) {
+			compact();
+		}
+	}
+
+	private void checkOpen() {
+		if (data == null) {
+			throw new IllegalStateException("The cache is closed");
+		}
+	}
+
+	/**
+	 * @return the words of the image, big endian.
+	 */
+	private static byte[] toBytes(ProgramImage image) {
+		byte[] bytes = new byte[image.size() * 2];
+		for (int i = 0; i < image.size(); i++) {
+			int word = image.getWord(i);
+			bytes[2 * i] = (byte) (word >> 8);
+			bytes[2 * i + 1] = (byte) word;
+		}
+		return bytes;
+	}
+
+	private static MessageDigest digest(byte kind) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(new byte[]{(byte) (VERSION >> 24), (byte) (VERSION >> 16), (byte) (VERSION >> 8), (byte) VERSION, kind});
+			return digest;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);//every JVM must have it
+		}
+	}
+
+	/**
+	 * Writes a string of any length in UTF-8, {@link DataOutputStream#writeUTF(String)} is limited to 64 KB.
+	 */
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	private static byte[] fromHex(String key) {
+		if (key.length() != KEY_SIZE * 2) {
+			throw new IllegalArgumentException("Not a key " + key);
+		}
+		byte[] bytes = new byte[KEY_SIZE];
+		for (int i = 0; i < bytes.length; i++) {
+			int high = Character.digit(key.charAt(2 * i), 16), low = Character.digit(key.charAt(2 * i + 1), 16);
+			if (high < 0 || low < 0) {
+				throw new IllegalArgumentException("Not a key " + key);
+			}
+			bytes[i] = (byte) (high << 4 | low);
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "SimulationCache [directory=" + directory + ", size=" + entries.size() + ", liveBytes=" + liveBytes
+				+ ", hits=" + hits + ", misses=" + misses + "]";
+	}
+
+}
@@ -0,0 +1,195 @@
+package org.risc.simulator.cli;
+
+import org.risc.simulator.batch.BatchJob;
+import org.risc.simulator.batch.BatchReport;
+import org.risc.simulator.batch.BatchResult;
+import org.risc.simulator.batch.BatchSimulator;
+import org.risc.simulator.batch.SimulationCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless entry point of the simulator.
+ * <br> Runs every hex or assembly file given, or every file inside the directories given,
+ * in a single JVM and writes the final state of each program as JSON or CSV to the
+ * standard output:
+ * <pre>
+ * java org.risc.simulator.cli.CommandLineRunner [options] file|directory...
+ *   -f, --format json|csv     output format, json by default
+ *   -c, --cycles N            cycle limit of each program, at least 1
+ *   -t, --timeout MILLIS      wall clock limit of each program, none by default or with 0
+ *   -i, --input TEXT          contents of the input port
+ *   -b, --input-bytes A,B     contents of the input port as two byte values
+ *   -j, --threads N           programs simulated at the same time
+ *   --no-loop-detection       run non terminating programs until a limit
+ *   -O, --optimize            run the programs through the peephole optimizer
+ *   --cache DIR               reuse the images and results cached in the directory
+ *   --cache-size MB           size of the cache, 256 MB by default
+ * </pre>
+ * The exit status is 0 when every program stopped, 1 when any of them didn't and 2
+ * when the arguments are wrong.
+ * @author Victor J.
+ */
+public class CommandLineRunner {
+
+	/**
+	 * Exit status when every program executed the stop instruction.
+	 */
+	public static final int EXIT_STOPPED = 0;
+
+	/**
+	 * Exit status when a program failed or reached a limit.
+	 */
+	public static final int EXIT_NOT_STOPPED = 1;
+
+	/**
+	 * Exit status when the arguments are wrong.
+	 */
+	public static final int EXIT_USAGE = 2;
+
+	private static final String USAGE = "Usage: CommandLineRunner [options] file|directory...\n"
+			+ "  -f, --format json|csv     output format, json by default\n"
+			+ "  -c, --cycles N            cycle limit of each program, at least 1\n"
+			+ "  -t, --timeout MILLIS      wall clock limit of each program, none by default or with 0\n"
+			+ "  -i, --input TEXT          contents of the input port\n"
+			+ "  -b, --input-bytes A,B     contents of the input port as two byte values\n"
+			+ "  -j, --threads N           programs simulated at the same time\n"
+			+ "  --no-loop-detection       run non terminating programs until a limit\n"
+			+ "  -O, --optimize            run the programs through the peephole optimizer\n"
+			+ "  --cache DIR               reuse the images and results cached in the directory\n"
+			+ "  --cache-size MB           size of the cache, 256 MB by default";
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private CommandLineRunner() {
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Runs the programs given in the arguments.
+	 * @param args the command line arguments
+	 * @param out  where the results are written
+	 * @param err  where the errors in the arguments are written
+	 * @return the exit status
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		OutputFormat format = OutputFormat.JSON;
+		long cycles = BatchSimulator.DEFAULT_CYCLE_LIMIT;
+		long timeout = 0;
+		String input = "";
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean loopDetection = true;
+		boolean optimization = false;
+		File cacheDirectory = null;
+		long cacheBytes = SimulationCache.DEFAULT_MAX_BYTES;
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-f") || arg.equals("--format")) {
+					format = OutputFormat.valueOf(value(args, ++i).toUpperCase(Locale.ENGLISH));
+				} else if (arg.equals("-c") || arg.equals("--cycles")) {
+					cycles = Long.parseLong(value(args, ++i));
+				} else if (arg.equals("-t") || arg.equals("--timeout")) {
+					timeout = Long.parseLong(value(args, ++i));
+				} else if (arg.equals("-i") || arg.equals("--input")) {
+					input = value(args, ++i);
+				} else if (arg.equals("-b") || arg.equals("--input-bytes")) {
+					input = inputBytes(value(args, ++i));
+				} else if (arg.equals("-j") || arg.equals("--threads")) {
+					threads = Integer.parseInt(value(args, ++i));
+				} else if (arg.equals("--no-loop-detection")) {
+					loopDetection = false;
+				} else if (arg.equals("-O") || arg.equals("--optimize")) {
+					optimization = true;
+				} else if (arg.equals("--cache")) {
+					cacheDirectory = new File(value(args, ++i));
+				} else if (arg.equals("--cache-size")) {
+					cacheBytes = Long.parseLong(value(args, ++i)) << 20;
+				} else if (arg.startsWith("-")) {
+					throw new IllegalArgumentException("Unknown option " + arg);
+				} else {
+					addJobs(new File(arg), jobs);
+				}
+			}
+			if (jobs.isEmpty()) {
+				throw new IllegalArgumentException("No programs to run");
+			} else if (cycles < 1 || timeout < 0 || threads < 1 || cacheBytes < 0) {
+				throw new IllegalArgumentException("Limits must be positive");
+			}
+		} catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+
+		BatchSimulator simulator = new BatchSimulator(threads);
+		simulator.setCycleLimit(cycles);
+		simulator.setTimeoutMillis(timeout);
+		simulator.setLoopDetection(loopDetection);
+		simulator.setOptimization(optimization);
+		simulator.setInput(input);
+		if (cacheDirectory != null) {
+			try {
+				simulator.setCache(new SimulationCache(cacheDirectory, cacheBytes));
+			} catch (IOException e) {
+				err.println("Could not open the cache: " + e.getMessage());
+				return EXIT_USAGE;
+			}
+		}
+		BatchReport report = simulator.run(jobs);
+		if (simulator.getCache() != null) {
+			try {
+				simulator.getCache().close();
+			} catch (IOException e) {//the cache is rebuilt when it is opened again
+				err.println("Could not write the cache index: " + e.getMessage());
+			}
+		}
+		format.write(report, out);
+		out.flush();
+		return report.count(BatchResult.Status.STOPPED) == report.getResults().size() ? EXIT_STOPPED : EXIT_NOT_STOPPED;
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value of " + args[i - 1]);
+		}
+		return args[i];
+	}
+
+	/**
+	 * Converts a list of byte values, decimal or hex with the 0x prefix, to the characters of the input port.
+	 */
+	private static String inputBytes(String list) {
+		String[] values = list.split(",");
+		char[] chars = new char[values.length];
+		for (int i = 0; i < values.length; i++) {
+			String value = values[i].trim();
+			int b = value.startsWith("0x") ? Integer.parseInt(value.substring(2), 16) : Integer.parseInt(value);
+			if (b < Byte.MIN_VALUE || b > 0xFF) {
+				throw new IllegalArgumentException(value + " is not a byte");
+			}
+			chars[i] = (char) (b & 0xFF);
+		}
+		return new String(chars);
+	}
+
+	private static void addJobs(File file, List<BatchJob> jobs) {
+		if (file.isDirectory()) {
+			jobs.addAll(BatchJob.fromDirectory(file));
+		} else {
+			jobs.add(BatchJob.fromFile(file));
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package org.risc.simulator.cli;
+
+import org.risc.simulator.batch.BatchReport;
+import org.risc.simulator.batch.BatchResult;
+import org.risc.simulator.processor.Processor;
+
+import java.io.PrintStream;
+
+/**
+ * Machine readable formats of the final state of the programs.
+ * @author Victor J.
+ */
+public enum OutputFormat {
+
+	/**
+	 * One object with a summary of the batch and an array with the result of every program.
+	 */
+	JSON {
+		@Override
+		public void write(BatchReport report, PrintStream out) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"summary\":{");
+			sb.append("\"programs\":").append(report.getResults().size());
+			sb.append(",\"threads\":").append(report.getThreads());
+			sb.append(",\"elapsedNanos\":").append(report.getElapsedNanos());
+			sb.append(",\"totalCycles\":").append(report.getTotalCycles());
+			sb.append("},\"results\":[");
+			out.print(sb);
+			boolean first = true;
+			for (BatchResult result : report.getResults()) {
+				sb.setLength(0);
+				if (!first) {
+					sb.append(',');
+				}
+				first = false;
+				sb.append("\n{\"name\":").append(jsonString(result.getName()));
+				sb.append(",\"status\":\"").append(result.getStatus()).append('"');
+				sb.append(",\"error\":").append(result.getError() == null ? "null" : jsonString(result.getError()));
+				sb.append(",\"cycles\":").append(result.getCycles());
+				sb.append(",\"acc\":").append(result.getAcc());
+				sb.append(",\"sr\":").append(result.getSr());
+				sb.append(",\"pc\":").append(result.getPc());
+				sb.append(",\"ir\":").append(result.getIr());
+				sb.append(",\"registers\":[");
+				for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+					if (i > 0) {
+						sb.append(',');
+					}
+					sb.append(result.getRegister(i));
+				}
+				sb.append("],\"output\":").append(jsonString(result.getOutput()));
+				sb.append(",\"memoryDigest\":").append(jsonString(result.getMemoryDigest()));
+				sb.append('}');
+				out.print(sb);
+			}
+			out.println("\n]}");
+		}
+	},
+
+	/**
+	 * A header line and one line per program.
+	 */
+	CSV {
+		@Override
+		public void write(BatchReport report, PrintStream out) {
+			StringBuilder sb = new StringBuilder("name,status,error,cycles,acc,sr,pc,ir");
+			for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+				sb.append(',').append(Processor.GPR_PREFIX).append(i);
+			}
+			out.println(sb.append(",output,memoryDigest"));
+			for (BatchResult result : report.getResults()) {
+				sb.setLength(0);
+				sb.append(csvString(result.getName()));
+				sb.append(',').append(result.getStatus());
+				sb.append(',').append(result.getError() == null ? "" : csvString(result.getError()));
+				sb.append(',').append(result.getCycles());
+				sb.append(',').append(result.getAcc());
+				sb.append(',').append(result.getSr());
+				sb.append(',').append(result.getPc());
+				sb.append(',').append(result.getIr());
+				for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+					sb.append(',').append(result.getRegister(i));
+				}
+				sb.append(',').append(csvString(result.getOutput()));
+				sb.append(',').append(result.getMemoryDigest());
+				out.println(sb);
+			}
+		}
+	};
+
+	/**
+	 * Writes every result of the report.
+	 * @param report the results to write
+	 * @param out    where to write them
+	 */
+	public abstract void write(BatchReport report, PrintStream out);
+
+	private static String jsonString(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20 || c > 0x7E) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * Quotes every field that isn't plain text. Characters that aren't printable are
+	 * written as escapes so each program stays in a single line.
+	 */
+	private static String csvString(String s) {
+		boolean plain = true;
+		for (int i = 0; i < s.length() && plain; i++) {
+			char c = s.charAt(i);
+			plain = c > 0x20 && c < 0x7F && c != ',' && c != '"' && c != '\\';
+		}
+		if (plain) {
+			return s;
+		}
+		String escaped = jsonString(s);
+		return '"' + escaped.substring(1, escaped.length() - 1).replace("\\\"", "\"\"") + '"';
+	}
+
+}
@@ -12,9 +12,17 @@ import java.awt.*;
 public class GPR extends JPanel {
 
 	private static final long serialVersionUID = -245370144964905410L;
+	/**
+	 * Value no register can have, for the fields whose text was not set from a register.
+	 */
+	static final int NOT_SHOWN = Integer.MIN_VALUE;
 	private JTextField[] registers;
 	private JLabel[] registersLabels;
 	private Color bgColor;
+	/**
+	 * The values displayed, a register is only formatted again when its value changes.
+	 */
+	private int[] shownValues;
 
 	/**
 	 * Creates a new general purpose register object to display in the UI window.
@@ -30,6 +38,7 @@ public class GPR extends JPanel {
 		this.bgColor = new Color(255, 255, 255);
 		this.registers = new JTextField[8];
 		this.registersLabels = new JLabel[8];
+		this.shownValues = new int[8];
 		setLayout(new FlowLayout(FlowLayout.LEADING));
 		setLocation(30, 110);
 		setSize(100, 310);
@@ -39,6 +48,7 @@ public class GPR extends JPanel {
 			this.registers[i] = new JTextField(6);
 			this.registers[i].setEditable(false);
 			this.registers[i].setBackground(bgColor);
+			this.shownValues[i] = NOT_SHOWN;
 			add(registersLabels[i]);
 			add(registers[i]);
 		}
@@ -49,18 +59,34 @@ public class GPR extends JPanel {
 	 * This method updates the values of the general purpose registers.
 	 */
 	public void updateRegistersValues() {
+		updateRegistersValues(UI.processor);
+	}
+
+	/**
+	 * This method updates the values of the general purpose registers.
+	 * @param processor The processor displayed.
+	 */
+	public void updateRegistersValues(Processor processor) {
 		for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
-			this.registers[i].setText(NumberUtils.intToTwosComplementString
-					(UI.processor.getRegister(Processor.GPR_PREFIX + i).getData(), 8) + "");
+			int data = processor.getRegister(i).getData();
+			if (data != shownValues[i]) {
+				shownValues[i] = data;
+				this.registers[i].setText(NumberUtils.intToTwosComplementString(data, 8) + "");
+			}
 		}
 	}
 
+	private void setRegister(int index, String data) {
+		this.registers[index].setText(data);
+		this.shownValues[index] = NOT_SHOWN;
+	}
+
 	/**
 	 * This method sets the value of register R0.
 	 * @param data The new value of register R0.
 	 */
 	public void setR0(String data) {
-		this.registers[0].setText(data);
+		setRegister(0, data);
 	}
 
 	/**
@@ -68,7 +94,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R1.
 	 */
 	public void setR1(String data) {
-		this.registers[1].setText(data);
+		setRegister(1, data);
 	}
 
 	/**
@@ -76,7 +102,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R2.
 	 */
 	public void setR2(String data) {
-		this.registers[2].setText(data);
+		setRegister(2, data);
 	}
 
 	/**
@@ -84,7 +110,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R3.
 	 */
 	public void setR3(String data) {
-		this.registers[3].setText(data);
+		setRegister(3, data);
 	}
 
 	/**
@@ -92,7 +118,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R4.
 	 */
 	public void setR4(String data) {
-		this.registers[4].setText(data);
+		setRegister(4, data);
 	}
 
 	/**
@@ -100,7 +126,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R5.
 	 */
 	public void setR5(String data) {
-		this.registers[5].setText(data);
+		setRegister(5, data);
 	}
 
 	/**
@@ -108,7 +134,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R6.
 	 */
 	public void setR6(String data) {
-		this.registers[6].setText(data);
+		setRegister(6, data);
 	}
 
 	/**
@@ -116,7 +142,7 @@ public class GPR extends JPanel {
 	 * @param data The new value of register R7.
 	 */
 	public void setR7(String data) {
-		this.registers[7].setText(data);
+		setRegister(7, data);
 	}
 
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package org.risc.simulator.gui;
 
+import org.risc.simulator.memory.ByteArrayMemory;
+import org.risc.simulator.memory.Memory;
 import org.risc.simulator.util.NumberUtils;
 
 import javax.swing.*;
@@ -8,6 +10,8 @@ import java.awt.*;
 
 /**
  * This class contains the table in order to display memory in the UI window.
+ * <br> Only the cells that changed are formatted and updated, the cells written are given by
+ * the dirty cells of a {@link ByteArrayMemory} and by comparing every cell for other memories.
  */
 public class MemoryTable extends JPanel {
 
@@ -18,6 +22,11 @@ public class MemoryTable extends JPanel {
 	private String values[][];
 	private JLabel memoryLabel;
 	private DefaultTableModel model;
+	/**
+	 * The memory displayed and the values of its cells in the table.
+	 */
+	private Memory shown;
+	private final int[] shownValues = new int[256];
 
 	/**
 	 * Create a new Table for memory display in the UI window
@@ -73,16 +82,43 @@ public class MemoryTable extends JPanel {
 	}
 
 	/**
-	 * This method updates the values of the table.
+	 * This method updates the values of the table that changed.
 	 */
 	public void updateMemory() {
+		updateMemory(UI.processor.getMemory());
+	}
+
+	/**
+	 * This method updates the values of the table that changed.
+	 * @param memory The memory displayed.
+	 */
+	public void updateMemory(Memory memory) {
+		if (memory == shown && memory instanceof ByteArrayMemory) {
+			ByteArrayMemory cells = (ByteArrayMemory) memory;
+			for (int i = cells.nextDirty(0); i >= 0 && i < 256; i = cells.nextDirty(i + 1)) {
+				updateCell(i, cells.getDataAt(i));
+			}
+			cells.clearDirty();
+			return;
+		}
 		for (int i = 0; i < 256; i++) {
-			values[i][1] = NumberUtils.intToHexString(UI.processor.getMemory().getDataAt(i), 2);
-//			System.out.println(values[i][1]);
+			updateCell(i, memory.getDataAt(i));
+		}
+		if (memory instanceof ByteArrayMemory) {
+			((ByteArrayMemory) memory).clearDirty();
+		}
+		shown = memory;
+	}
+
+	/**
+	 * Formats the value of a cell and fires its update if it is not the one displayed.
+	 */
+	private void updateCell(int row, int data) {
+		if (shownValues[row] != data) {
+			shownValues[row] = data;
+			values[row][1] = NumberUtils.intToHexString(data, 2);
+			model.setValueAt(values[row][1], row, 1);
 		}
-		model.setDataVector(values, columnNames);
-		table.revalidate();
-		model.fireTableDataChanged();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package org.risc.simulator.gui;
+
+import org.risc.simulator.processor.MachineSnapshot;
+import org.risc.simulator.processor.RISCAR5Processor;
+import org.risc.simulator.processor.RunLimits;
+import org.risc.simulator.processor.RunStatus;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the processor outside of the event dispatch thread, so the window can still be used
+ * while a long program runs and a program that never stops can be paused or stopped.
+ * <br> The processor is run one frame at a time, {@link #FRAMES_PER_SECOND} frames per second.
+ * After each frame a {@link MachineSnapshot} is published, and the listener is given the
+ * latest one on the event dispatch thread, so the display never slows down the run and never
+ * reads the processor while it is running.
+ * <p>
+ * The processor must not be used by another thread until the worker is done.
+ * @author Victor J.
+ */
+public class SimulationWorker extends SwingWorker<RunStatus, MachineSnapshot> {
+
+	/**
+	 * Receives the state of the processor on the event dispatch thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called after some frames with the state after the last one.
+		 */
+		void frame(MachineSnapshot snapshot);
+
+		/**
+		 * Called once when the worker is done, the processor can be used again.
+		 * @param status how the run ended, null if it was paused
+		 * @param error  exception thrown by the processor, null if there was none
+		 */
+		void finished(RunStatus status, Exception error);
+	}
+
+	public static final int FRAMES_PER_SECOND = 30;
+	private static final long FRAME_MILLIS = 1000 / FRAMES_PER_SECOND;
+	private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS);
+
+	/**
+	 * Speed that runs the processor as fast as it can.
+	 */
+	public static final long UNTHROTTLED = 0;
+
+	private final RISCAR5Processor processor;
+	private final Listener listener;
+	private volatile long cyclesPerSecond;
+	private volatile boolean pauseRequested, stopRequested;
+
+	/**
+	 * @param processor       processor to run
+	 * @param cyclesPerSecond speed of the run or {@link #UNTHROTTLED}
+	 * @param listener        receives the state of the processor
+	 */
+	public SimulationWorker(RISCAR5Processor processor, long cyclesPerSecond, Listener listener) {
+		this.processor = processor;
+		this.listener = listener;
+		setCyclesPerSecond(cyclesPerSecond);
+	}
+
+	/**
+	 * Changes the speed of the run, also while it is running.
+	 * @param cyclesPerSecond speed of the run or {@link #UNTHROTTLED}
+	 * @throws IllegalArgumentException if the speed is negative
+	 */
+	public void setCyclesPerSecond(long cyclesPerSecond) {
+		if (cyclesPerSecond < 0) {
+			throw new IllegalArgumentException("The speed can't be negative");
+		}
+		this.cyclesPerSecond = cyclesPerSecond;
+	}
+
+	public long getCyclesPerSecond() {
+		return cyclesPerSecond;
+	}
+
+	/**
+	 * Pauses the run at the end of the current frame, the program can be run again from there.
+	 */
+	public void pause() {
+		pauseRequested = true;
+	}
+
+	/**
+	 * Stops the program at the end of the current frame with {@link RISCAR5Processor#setRun(boolean)},
+	 * like the stop instruction does.
+	 */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	@Override
+	protected RunStatus doInBackground() throws InterruptedException {
+		double credit = 0;
+		long last = System.nanoTime();
+		while (processor.isRunning()) {
+			if (stopRequested) {
+				processor.setRun(false);
+				return RunStatus.STOPPED;
+			}
+			if (pauseRequested) {
+				return null;
+			}
+			long frameEnd = last + FRAME_NANOS;
+			long speed = cyclesPerSecond;
+			RunStatus status;
+			if (speed == UNTHROTTLED) {
+				status = processor.run(new RunLimits(RunLimits.NO_LIMIT, FRAME_MILLIS, false));
+				last = System.nanoTime();
+			} else {
+				long now = System.nanoTime();
+				//at most one second of cycles is made up after a slow frame
+				credit = Math.min(credit + speed * ((now - last) / 1e9), speed);
+				last = now;
+				long cycles = (long) credit;
+				status = RunStatus.CYCLE_LIMIT;
+				if (cycles > 0) {
+					long before = processor.getCycleCount();
+					status = processor.run(RunLimits.cycles(cycles));
+					credit -= processor.getCycleCount() - before;
+				}
+				long wait = frameEnd - System.nanoTime();
+				if (wait > 0 && status == RunStatus.CYCLE_LIMIT) {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+			}
+			if (status != RunStatus.CYCLE_LIMIT && status != RunStatus.DEADLINE) {
+				return status;
+			}
+			publish(processor.snapshot());
+		}
+		return processor.isTrapped() ? RunStatus.TRAPPED : RunStatus.STOPPED;
+	}
+
+	@Override
+	protected void process(List<MachineSnapshot> snapshots) {
+		if (!isDone()) {
+			listener.frame(snapshots.get(snapshots.size() - 1));
+		}
+	}
+
+	@Override
+	protected void done() {
+		RunStatus status = null;
+		Exception error = null;
+		try {
+			status = get();
+		} catch (ExecutionException e) {
+			error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		} catch (InterruptedException e) {
+			error = e;
+		}
+		listener.finished(status, error);
+	}
+
+}
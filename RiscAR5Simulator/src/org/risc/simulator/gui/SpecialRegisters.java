@@ -1,6 +1,7 @@
 package org.risc.simulator.gui;
 
 import org.risc.simulator.processor.Processor;
+import org.risc.simulator.memory.Register;
 import org.risc.simulator.util.NumberUtils;
 
 import javax.swing.*;
@@ -21,6 +22,10 @@ public class SpecialRegisters extends JPanel {
 	private JTextField sr;
 	private Color bgColor;
 	private JLabel srLabel;
+	/**
+	 * The values displayed, a field is only formatted again when its register changes.
+	 */
+	private int shownIr = GPR.NOT_SHOWN, shownPc = GPR.NOT_SHOWN, shownAcc = GPR.NOT_SHOWN, shownSr = GPR.NOT_SHOWN;
 
 	/**
 	 * Creates new SpecialRegister object.
@@ -85,6 +90,7 @@ public class SpecialRegisters extends JPanel {
 	 */
 	public void setIR(String data) {
 		this.ir.setText(data);
+		this.shownIr = GPR.NOT_SHOWN;
 	}
 
 	/**
@@ -93,6 +99,7 @@ public class SpecialRegisters extends JPanel {
 	 */
 	public void setPC(String data) {
 		this.pc.setText(data);
+		this.shownPc = GPR.NOT_SHOWN;
 	}
 
 	/**
@@ -101,6 +108,7 @@ public class SpecialRegisters extends JPanel {
 	 */
 	public void setACC(String data) {
 		this.acc.setText(data);
+		this.shownAcc = GPR.NOT_SHOWN;
 	}
 
 	/**
@@ -109,20 +117,37 @@ public class SpecialRegisters extends JPanel {
 	 */
 	public void setSR(String data) {
 		this.sr.setText(data);
+		this.shownSr = GPR.NOT_SHOWN;
 	}
 
 	/**
 	 * This method updates the value of the special registers fields.
 	 */
 	public void updateValues() {
-		ir.setText(NumberUtils.intToTwosComplementString(UI.processor.getRegister(Processor.IR).getData(), 16) + "");
-//		System.out.println(ir.getText());
-		pc.setText(NumberUtils.intToTwosComplementString(UI.processor.getRegister(Processor.PC).getData(), 8) + "");
-//		System.out.println(pc.getText());
-		acc.setText(NumberUtils.intToTwosComplementString(UI.processor.getRegister(Processor.ACC).getData(), 8) + "");
-//		System.out.println(pc.getText());
-		sr.setText(NumberUtils.intToTwosComplementString(UI.processor.getRegister(Processor.SR).getData(), 4) + "");
-//		System.out.println(sr.getText());
+		updateValues(UI.processor);
+	}
+
+	/**
+	 * This method updates the value of the special registers fields.
+	 * @param processor The processor displayed.
+	 */
+	public void updateValues(Processor processor) {
+		shownIr = updateField(ir, shownIr, processor.getRegister(Processor.IR), 16);
+		shownPc = updateField(pc, shownPc, processor.getRegister(Processor.PC), 8);
+		shownAcc = updateField(acc, shownAcc, processor.getRegister(Processor.ACC), 8);
+		shownSr = updateField(sr, shownSr, processor.getRegister(Processor.SR), 4);
+	}
+
+	/**
+	 * Sets the text of a field if the value of its register is not the one displayed.
+	 * @return the value of the register
+	 */
+	private int updateField(JTextField field, int shown, Register register, int bits) {
+		int data = register.getData();
+		if (data != shown) {
+			field.setText(NumberUtils.intToTwosComplementString(data, bits) + "");
+		}
+		return data;
 	}
 
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package org.risc.simulator.gui;
 
 import org.risc.simulator.io.FileLoader;
 import org.risc.simulator.io.IOChannel;
+import org.risc.simulator.processor.Breakpoints;
+import org.risc.simulator.processor.ExecutionHistory;
+import org.risc.simulator.processor.MachineSnapshot;
 import org.risc.simulator.processor.Processor;
 import org.risc.simulator.processor.RISCAR5Processor;
+import org.risc.simulator.processor.RunStatus;
+import org.risc.simulator.util.NumberUtils;
 
 import javax.swing.*;
 import javax.swing.text.AttributeSet;
@@ -15,12 +20,20 @@ import java.awt.event.ActionListener;
 
 /**
  * This class is the user interface for the RISC AR5 simulator
+ * <br> "Run" runs the processor in a {@link SimulationWorker} at the speed chosen in the
+ * "Speed" menu, the window shows the snapshots it publishes until it is paused or stopped.
+ * The run also stops at the breakpoints and watchpoints of the "Debug" menu.
  */
-public class UI extends JFrame implements ActionListener {
+public class UI extends JFrame implements ActionListener, SimulationWorker.Listener {
 
 	private static final long serialVersionUID = -5609563188019332472L;
 	private JMenuBar menuBar;
 	private JMenu fileMenu;
+	private JMenu speedMenu;
+	private JMenu debugMenu;
+	private JMenuItem addBreakpoint;
+	private JMenuItem addWatch;
+	private JMenuItem clearBreakpoints;
 	private JMenuItem load;
 	private JMenuItem exit;
 
@@ -32,6 +45,9 @@ public class UI extends JFrame implements ActionListener {
 	private JButton loadFile;
 	private JButton run;
 	private JButton step;
+	private JButton stepBack;
+	private JButton pause;
+	private JButton stop;
 
 	private JTextField input;
 	private JTextField output;
@@ -47,6 +63,25 @@ public class UI extends JFrame implements ActionListener {
 	private int memoryIndex;
 	private boolean runExecuted;
 	private boolean processRunning;
+	/**
+	 * Number of cycles that can be stepped back.
+	 */
+	private static final int HISTORY_SIZE = 1 << 20;
+	/**
+	 * Speeds of the "Speed" menu in cycles per second, the first one is the default.
+	 */
+	private static final long[] SPEEDS = {SimulationWorker.UNTHROTTLED, 1000000, 10000, 100, 10, 1};
+
+	private SimulationWorker worker;
+	private long cyclesPerSecond = SPEEDS[0];
+	/**
+	 * Processor the snapshots published by the worker are restored to in order to display them.
+	 */
+	private RISCAR5Processor display;
+	/**
+	 * Breakpoints and watchpoints, kept when a new file is loaded.
+	 */
+	private final Breakpoints breakpoints = new Breakpoints();
 
 	/**
 	 * Create a new RISC AR5 simulator UI
@@ -64,12 +99,23 @@ public class UI extends JFrame implements ActionListener {
 		this.lowerRightPanel = new JPanel();
 		this.upperRightPanel = new JPanel();
 		this.fileMenu = new JMenu("File");
+		this.speedMenu = new JMenu("Speed");
+		this.debugMenu = new JMenu("Debug");
+		this.addBreakpoint = new JMenuItem("Breakpoint...");
+		this.addWatch = new JMenuItem("Watch...");
+		this.clearBreakpoints = new JMenuItem("Clear all");
 		this.load = new JMenuItem("Load...");
 		this.exit = new JMenuItem("Exit");
 		this.bgColor = new Color(255, 255, 255);
 		this.loadFile = new JButton("Load File");
 		this.run = new JButton("Run");
 		this.step = new JButton("Step");
+		this.stepBack = new JButton("Back");
+		this.pause = new JButton("Pause");
+		this.stop = new JButton("Stop");
+		this.pause.setEnabled(false);
+		this.stop.setEnabled(false);
+		this.display = new RISCAR5Processor();
 		this.fc = new JFileChooser();
 		this.memoryIndex = 0;
 		this.runExecuted = false;
@@ -79,6 +125,8 @@ public class UI extends JFrame implements ActionListener {
 		this.gpr = new GPR();
 
 		addItemsInFile();
+		addItemsInSpeed();
+		addItemsInDebug();
 		addToMenuBar();
 		setLayout(null);
 
@@ -99,7 +147,10 @@ public class UI extends JFrame implements ActionListener {
 	 * This method initializes processor and I/O channel
 	 */
 	private void processorInit() {
-		UI.processor = new RISCAR5Processor();
+		RISCAR5Processor riscProcessor = new RISCAR5Processor();
+		riscProcessor.setHistory(new ExecutionHistory(HISTORY_SIZE));
+		riscProcessor.setBreakpoints(breakpoints);
+		UI.processor = riscProcessor;
 		this.inChannel = UI.processor.getInputChannel();
 		this.outChannel = UI.processor.getOutputChannel();
 		processRunning = false;
@@ -122,6 +173,35 @@ public class UI extends JFrame implements ActionListener {
 		this.fileMenu.add(load);
 		this.fileMenu.add(exit);
 	}
+	/**
+	 * This method adds the speeds to the Speed Menu.
+	 */
+	private void addItemsInSpeed() {
+		ButtonGroup group = new ButtonGroup();
+		for (final long speed : SPEEDS) {
+			String name = speed == SimulationWorker.UNTHROTTLED ? "Unthrottled" : speed + " cycles/s";
+			JRadioButtonMenuItem item = new JRadioButtonMenuItem(name, speed == cyclesPerSecond);
+			item.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					cyclesPerSecond = speed;
+					if (worker != null) {
+						worker.setCyclesPerSecond(speed);
+					}
+				}
+			});
+			group.add(item);
+			this.speedMenu.add(item);
+		}
+	}
+	/**
+	 * This method adds items to Debug Menu.
+	 */
+	private void addItemsInDebug() {
+		this.debugMenu.add(addBreakpoint);
+		this.debugMenu.add(addWatch);
+		this.debugMenu.add(clearBreakpoints);
+	}
 	/**
 	 * This method adds action listeners to buttons and menu items.
 	 */
@@ -131,6 +211,12 @@ public class UI extends JFrame implements ActionListener {
 		this.exit.addActionListener(this);
 		this.run.addActionListener(this);
 		this.step.addActionListener(this);
+		this.stepBack.addActionListener(this);
+		this.pause.addActionListener(this);
+		this.stop.addActionListener(this);
+		this.addBreakpoint.addActionListener(this);
+		this.addWatch.addActionListener(this);
+		this.clearBreakpoints.addActionListener(this);
 	}
 
 	@Override
@@ -169,12 +255,9 @@ public class UI extends JFrame implements ActionListener {
 			if (processor.isRunning() && processRunning) {
 				handleInput();
 				this.runExecuted = true;
-				UI.processor.run();
-				handleOutput();
-				specialRegisters.updateValues();
-				gpr.updateRegistersValues();
-				mem.updateMemory();
-				JOptionPane.showMessageDialog(this, "Simulation finished.");
+				worker = new SimulationWorker((RISCAR5Processor) processor, cyclesPerSecond, this);
+				setControlsEnabled(false);
+				worker.execute();
 			} else {
 				processRunning = false;
 			}
@@ -194,11 +277,107 @@ public class UI extends JFrame implements ActionListener {
 				processRunning = false;
 //				JOptionPane.showMessageDialog(this, "Simulation finished.");
 			}
+		} else if (e.getSource() == stepBack) {
+			if (((RISCAR5Processor) processor).stepBack()) {
+				processRunning = true;
+				if (this.memoryIndex > 0) {
+					this.memoryIndex--;
+				}
+				handleOutput();
+				specialRegisters.updateValues();
+				gpr.updateRegistersValues();
+				mem.updateMemory();
+			}
+		} else if (e.getSource() == pause) {
+			if (worker != null) {
+				worker.pause();
+			}
+		} else if (e.getSource() == stop) {
+			if (worker != null) {
+				worker.stop();
+			}
+		} else if (e.getSource() == addBreakpoint) {
+			String text = JOptionPane.showInputDialog(this, "Location in hex and an optional condition (0C R0==-1):");
+			if (text != null) {
+				try {
+					String[] parts = text.trim().split("\\s+", 2);
+					int location = Integer.parseInt(parts[0], 16);
+					if (parts.length == 1) {
+						breakpoints.add(location);
+					} else {
+						breakpoints.add(location, Breakpoints.Condition.parse(parts[1]));
+					}
+				} catch (IllegalArgumentException ex) {//NumberFormatException too
+					JOptionPane.showMessageDialog(this, "Incorrect breakpoint: " + ex.getMessage());
+				}
+			}
+		} else if (e.getSource() == addWatch) {
+			String text = JOptionPane.showInputDialog(this, "Cell in hex and the accesses watched r, w or rw (FC w):");
+			if (text != null) {
+				try {
+					String[] parts = text.trim().split("\\s+", 2);
+					String accesses = parts.length == 1 ? "rw" : parts[1].toLowerCase();
+					if (!accesses.matches("r|w|rw|wr")) {
+						throw new IllegalArgumentException("Unknown accesses " + accesses);
+					}
+					int access = (accesses.contains("r") ? Breakpoints.READ : 0)
+							| (accesses.contains("w") ? Breakpoints.WRITE : 0);
+					breakpoints.watch(Integer.parseInt(parts[0], 16), access);
+				} catch (IllegalArgumentException ex) {//NumberFormatException too
+					JOptionPane.showMessageDialog(this, "Incorrect watch: " + ex.getMessage());
+				}
+			}
+		} else if (e.getSource() == clearBreakpoints) {
+			breakpoints.clear();
 		} else if (e.getSource() == exit) {
 			System.exit(0);
 		}
 
 	}
+	@Override
+	public void frame(MachineSnapshot snapshot) {
+		display.restore(snapshot);
+		output.setText(snapshot.getOutput());
+		specialRegisters.updateValues(display);
+		gpr.updateRegistersValues(display);
+		mem.updateMemory(display.getMemory());
+	}
+
+	@Override
+	public void finished(RunStatus status, Exception error) {
+		worker = null;
+		setControlsEnabled(true);
+		handleOutput();
+		specialRegisters.updateValues();
+		gpr.updateRegistersValues();
+		mem.updateMemory();
+		if (error != null) {
+			JOptionPane.showMessageDialog(this, "Simulation failed: " + error.getMessage());
+		} else if (status == RunStatus.BREAKPOINT) {
+			JOptionPane.showMessageDialog(this, "Breakpoint at " + NumberUtils.intToHexString(
+					processor.getRegister(Processor.PC).getData(), 2) + ".");
+		} else if (status == RunStatus.WATCHPOINT) {
+			JOptionPane.showMessageDialog(this, "Watched cell " + NumberUtils.intToHexString(
+					((RISCAR5Processor) processor).getWatchHit(), 2) + " accessed.");
+		} else if (status != null) {
+			JOptionPane.showMessageDialog(this, "Simulation finished.");
+		}
+	}
+	/**
+	 * This method enables the controls that use the processor, and disables the ones of the
+	 * simulation worker, or the other way around while the worker runs. The "Debug" menu
+	 * is disabled too, the worker reads the breakpoints without synchronization.
+	 */
+	private void setControlsEnabled(boolean enabled) {
+		this.loadFile.setEnabled(enabled);
+		this.load.setEnabled(enabled);
+		this.run.setEnabled(enabled);
+		this.step.setEnabled(enabled);
+		this.stepBack.setEnabled(enabled);
+		this.debugMenu.setEnabled(enabled);
+		this.pause.setEnabled(!enabled);
+		this.stop.setEnabled(!enabled);
+	}
 	/**
 	 * This method sets "Load" button position in the UI window.
 	 */
@@ -211,22 +390,25 @@ public class UI extends JFrame implements ActionListener {
 		this.upperRightPanel.add(loadFile);
 	}
 	/**
-	 * This method sets "Run" and "Step" buttons position in the UI window.
+	 * This method sets "Run", "Pause", "Stop", "Step" and "Back" buttons position in the UI window.
 	 */
 	private void setRightPanel() {
 		this.rightPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-		this.rightPanel.setLocation(720, 110);
-		this.rightPanel.setSize(100, 100);
+		this.rightPanel.setLocation(720, 90);
+		this.rightPanel.setSize(100, 175);
 
 		this.rightPanel.add(run);
+		this.rightPanel.add(pause);
+		this.rightPanel.add(stop);
 		this.rightPanel.add(step);
+		this.rightPanel.add(stepBack);
 	}
 	/**
 	 * This method sets "Input" and "Output" fields position and default values.
 	 */
 	private void setLowerRightPanel() {
 		this.lowerRightPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-		this.lowerRightPanel.setLocation(720, 230);
+		this.lowerRightPanel.setLocation(720, 270);
 		this.lowerRightPanel.setSize(100, 100);
 		JLabel inputLabel = new JLabel("Input");
 		input = new JTextField(6);
@@ -272,6 +454,8 @@ public class UI extends JFrame implements ActionListener {
 	 */
 	private void addToMenuBar() {
 		this.menuBar.add(fileMenu);
+		this.menuBar.add(speedMenu);
+		this.menuBar.add(debugMenu);
 	}
 	/**
 	 * This method gets the memory execution index.
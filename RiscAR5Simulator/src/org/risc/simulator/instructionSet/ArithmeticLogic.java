@@ -2,8 +2,7 @@ package org.risc.simulator.instructionSet;
 
 import org.risc.simulator.memory.Register;
 import org.risc.simulator.memory.StatusRegister;
-import org.risc.simulator.processor.Processor;
-import org.risc.simulator.util.NumberUtils;
+import org.risc.simulator.util.BitFields;
 
 /**
  * This class contains all the methods used for arithmetic and logic
@@ -140,7 +139,7 @@ public class ArithmeticLogic {
 	 *            and verification of the Carry flag denoted above as CF.
 	 */
 	public static void rrc(Register acc, StatusRegister sr) {
-		int value = NumberUtils.getUnsignedValueOf(acc.getData(), 0, 7, Processor.REGISTER_WIDTH);
+		int value = BitFields.unsignedByte(acc.getData());
 		int flag = sr.getFlagValue(StatusRegister.Flag.CARRY);
 		Integer result = ((value >> 1) + (flag << 7)) & 0xFF;
 		FlagManagement.setFlags(value, 0, flag, result, sr, FlagManagement.Operation.RRC);
@@ -2,7 +2,7 @@ package org.risc.simulator.instructionSet;
 
 import org.risc.simulator.memory.StatusRegister;
 import org.risc.simulator.memory.StatusRegister.Flag;
-import org.risc.simulator.util.NumberUtils;
+import org.risc.simulator.util.BitFields;
 
 /**
  * This class provides management for flags based on the initial parameters and
@@ -74,9 +74,9 @@ public class FlagManagement {
 	 */
 	public static void setFlags(final int acc, final int op, final int c, final int result,
 	                            StatusRegister sr, Operation operation) {
-		final int accMsb = NumberUtils.getMSB(acc);
-		final int opMsb = NumberUtils.getMSB(op);
-		final int resMsb = NumberUtils.getMSB(result);
+		final int accMsb = BitFields.msb(acc);
+		final int opMsb = BitFields.msb(op);
+		final int resMsb = BitFields.msb(result);
 		
 		switch (operation.index) {
 			case 0: // AND
@@ -98,10 +98,10 @@ public class FlagManagement {
 				sr.setFlagValue(StatusRegister.Flag.ZERO, result == 0);
 				sr.setFlagValue(StatusRegister.Flag.NEGATIVE, resMsb == 1);
 				
-				int a = NumberUtils.getUnsignedValueOf(acc, 0, 7, 8);
-				int o = NumberUtils.getUnsignedValueOf(op, 0, 7, 8);
+				int a = BitFields.unsignedByte(acc);
+				int o = BitFields.unsignedByte(op);
 				int r = a + o + c;
-				sr.setFlagValue(Flag.CARRY, NumberUtils.getMSB(r,9) == 1);
+				sr.setFlagValue(Flag.CARRY, BitFields.msb(r, 9) == 1);
 				
 				sr.setFlagValue(StatusRegister.Flag.OVERFLOW,
 						(((accMsb == 1 && opMsb == 1) && resMsb == 0))
@@ -137,7 +137,7 @@ public class FlagManagement {
 				sr.setFlagValue(StatusRegister.Flag.ZERO, result == 0);
 				sr.setFlagValue(StatusRegister.Flag.NEGATIVE, resMsb == 1);
 				sr.setFlagValue(StatusRegister.Flag.CARRY,
-						NumberUtils.getLSB(acc) == 1);
+						BitFields.lsb(acc) == 1);
 				sr.setFlagValue(StatusRegister.Flag.OVERFLOW, false);
 				break;
 			case 8: // RLC
@@ -0,0 +1,230 @@
+package org.risc.simulator.instructionSet;
+
+import org.risc.simulator.memory.Register;
+import org.risc.simulator.memory.StatusRegister;
+import org.risc.simulator.processor.Processor;
+
+/**
+ * Precomputed results of the arithmetic, logic and load operations.
+ * <br> Every lookup returns an entry holding the 8 bit result in its lowest byte and
+ * the complete 4 bit status register in the next nibble, use {@link #result(int)} and
+ * {@link #flags(int)} to take them apart or {@link #apply(int, Register, StatusRegister)}
+ * to store them.
+ * <br> The tables are built by running {@link ArithmeticLogic} and {@link LoadStore}
+ * over every possible input, so a lookup is bit-identical to the
+ * {@link FlagManagement} semantics. Operands are taken as 8 bit values, which is what
+ * the processor keeps in its registers.
+ */
+public class FlagTables {
+
+	private static final int BYTE_MASK = 0xFF;
+	private static final int FLAGS_SHIFT = 8;
+
+	/**
+	 * Flags not modified by the load operations: carry and overflow.
+	 */
+	private static final int LOAD_KEPT_FLAGS = 0x05;
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private FlagTables() {
+	}
+
+	/**
+	 * Lazily built tables, indexed by [carry][acc][op] for the binary operations and
+	 * [carry][acc] for the unary ones.
+	 */
+	private static class Tables {
+		private static final char[] AND = binary(FlagManagement.Operation.AND, false);
+		private static final char[] OR = binary(FlagManagement.Operation.OR, false);
+		private static final char[] ADDC = binary(FlagManagement.Operation.ADDC, true);
+		private static final char[] SUB = binary(FlagManagement.Operation.SUB, false);
+		private static final char[] MUL = binary(FlagManagement.Operation.MUL, false);
+		private static final char[] NOT = unary(FlagManagement.Operation.NOT, false);
+		private static final char[] NEG = unary(FlagManagement.Operation.NEG, false);
+		private static final char[] RLC = unary(FlagManagement.Operation.RLC, true);
+		private static final char[] RRC = unary(FlagManagement.Operation.RRC, true);
+		private static final char[] LOAD = unary(FlagManagement.Operation.LDAI, false);
+	}
+
+	private static char[] binary(FlagManagement.Operation operation, boolean usesCarry) {
+		int size = 1 << (2 * Processor.REGISTER_WIDTH);
+		char[] table = new char[usesCarry ? 2 * size : size];
+		Register acc = new Register(Processor.ACC, Processor.REGISTER_WIDTH);
+		Register op = new Register(Processor.GPR_PREFIX + 0, Processor.REGISTER_WIDTH);
+		StatusRegister sr = new StatusRegister(Processor.SR);
+		for (int index = 0; index < table.length; index++) {
+			acc.setData((byte) (index >> Processor.REGISTER_WIDTH));
+			op.setData((byte) index);
+			sr.clearAllFlags();
+			sr.setFlagValue(StatusRegister.Flag.CARRY, index >= size);
+			switch (operation) {
+				case AND:
+					ArithmeticLogic.and(acc, op, sr);
+					break;
+				case OR:
+					ArithmeticLogic.or(acc, op, sr);
+					break;
+				case ADDC:
+					ArithmeticLogic.addC(acc, op, sr);
+					break;
+				case SUB:
+					ArithmeticLogic.sub(acc, op, sr);
+					break;
+				case MUL:
+					ArithmeticLogic.mul(acc, op, sr);
+					break;
+				default:
+					throw new IllegalArgumentException(operation + " is not a binary operation");
+			}
+			table[index] = entry(acc.getData(), sr.getData());
+		}
+		return table;
+	}
+
+	private static char[] unary(FlagManagement.Operation operation, boolean usesCarry) {
+		int size = 1 << Processor.REGISTER_WIDTH;
+		char[] table = new char[usesCarry ? 2 * size : size];
+		Register acc = new Register(Processor.ACC, Processor.REGISTER_WIDTH);
+		StatusRegister sr = new StatusRegister(Processor.SR);
+		for (int index = 0; index < table.length; index++) {
+			acc.setData((byte) index);
+			sr.clearAllFlags();
+			sr.setFlagValue(StatusRegister.Flag.CARRY, index >= size);
+			switch (operation) {
+				case NOT:
+					ArithmeticLogic.not(acc, sr);
+					break;
+				case NEG:
+					ArithmeticLogic.neg(acc, sr);
+					break;
+				case RLC:
+					ArithmeticLogic.rlc(acc, sr);
+					break;
+				case RRC:
+					ArithmeticLogic.rrc(acc, sr);
+					break;
+				case LDAI:
+					LoadStore.ldaI(acc, (byte) index, sr);
+					break;
+				default:
+					throw new IllegalArgumentException(operation + " is not a unary operation");
+			}
+			table[index] = entry(acc.getData(), sr.getData());
+		}
+		return table;
+	}
+
+	private static char entry(int result, int flags) {
+		return (char) ((result & BYTE_MASK) | flags << FLAGS_SHIFT);
+	}
+
+	private static int index(int acc, int op) {
+		return (acc & BYTE_MASK) << Processor.REGISTER_WIDTH | op & BYTE_MASK;
+	}
+
+	/**
+	 * @return A and RF
+	 */
+	public static int and(int acc, int op) {
+		return Tables.AND[index(acc, op)];
+	}
+
+	/**
+	 * @return A or RF
+	 */
+	public static int or(int acc, int op) {
+		return Tables.OR[index(acc, op)];
+	}
+
+	/**
+	 * @param carry value of the carry flag, 0 or 1
+	 * @return A + RF + CF
+	 */
+	public static int addC(int acc, int op, int carry) {
+		return Tables.ADDC[carry << (2 * Processor.REGISTER_WIDTH) | index(acc, op)];
+	}
+
+	/**
+	 * @return A - RF
+	 */
+	public static int sub(int acc, int op) {
+		return Tables.SUB[index(acc, op)];
+	}
+
+	/**
+	 * @return A(Four LSB) * RF(Four LSB)
+	 */
+	public static int mul(int acc, int op) {
+		return Tables.MUL[index(acc, op)];
+	}
+
+	/**
+	 * @return not(A)
+	 */
+	public static int not(int acc) {
+		return Tables.NOT[acc & BYTE_MASK];
+	}
+
+	/**
+	 * @return ^(A)
+	 */
+	public static int neg(int acc) {
+		return Tables.NEG[acc & BYTE_MASK];
+	}
+
+	/**
+	 * @param carry value of the carry flag, 0 or 1
+	 * @return A6..A0 &amp; CF
+	 */
+	public static int rlc(int acc, int carry) {
+		return Tables.RLC[carry << Processor.REGISTER_WIDTH | acc & BYTE_MASK];
+	}
+
+	/**
+	 * @param carry value of the carry flag, 0 or 1
+	 * @return CF &amp; A7..A1
+	 */
+	public static int rrc(int acc, int carry) {
+		return Tables.RRC[carry << Processor.REGISTER_WIDTH | acc & BYTE_MASK];
+	}
+
+	/**
+	 * Any of the load operations LDAR, LDAA and LDI, which keep the carry and overflow flags.
+	 * @param value value being loaded in the accumulator
+	 * @param flags current value of the status register
+	 * @return value
+	 */
+	public static int load(int value, int flags) {
+		return Tables.LOAD[value & BYTE_MASK] | (flags & LOAD_KEPT_FLAGS) << FLAGS_SHIFT;
+	}
+
+	/**
+	 * @param entry value returned by a lookup
+	 * @return the signed 8 bit result
+	 */
+	public static int result(int entry) {
+		return (byte) entry;
+	}
+
+	/**
+	 * @param entry value returned by a lookup
+	 * @return the 4 bit value of the status register
+	 */
+	public static int flags(int entry) {
+		return entry >> FLAGS_SHIFT;
+	}
+
+	/**
+	 * Stores the result in the accumulator and the flags in the status register.
+	 * @param entry value returned by a lookup
+	 * @param acc   The accumulator register.
+	 * @param sr    The status register.
+	 */
+	public static void apply(int entry, Register acc, StatusRegister sr) {
+		acc.setData(result(entry));
+		sr.setData(flags(entry));
+	}
+
+}
@@ -94,7 +94,6 @@ public class FileLoader {
 			String instructionString;
 			boolean instructionValid;
 			while ((instructionString = bufferedFile.readLine()) != null) {
-				System.out.println(instructionString);
 				instructionValid = instructionString.matches("[0-9A-Fa-f]{4}");
 				if (instructionValid && count < FILE_INSTRUCTION_LIMIT) {
 					Instruction instruction = new Instruction(instructionString);
@@ -1,54 +1,99 @@
 package org.risc.simulator.io;
 
 /**
- * Represents a port. The port is backed by a string
+ * Represents a port. The port is backed by an array of characters
  * and its constructed using the number of characters supported by this port.
+ * <br> Every write increments the modification count of the port, so the processor
+ * only has to copy a port to memory when it changed since the last time.
  * @author Victor J.
  *
  */
 public class IOChannel {
 
-	private String data;
-	private int characters;
+	private final char[] data;
+	private int length;
+	private volatile int modificationCount;
+	private String string = "";
 
 	/**
 	 * Initializes this channel with the number of characters supported.
 	 * @param characters number of characters that can be written to this channel
 	 */
 	public IOChannel(int characters) {
-		this.characters = characters;
-		data = "";
+		data = new char[characters];
 	}
 
 	/**
-	 * 
+	 *
 	 * @return the data stored in this port
 	 */
 	public String readString() {
-		return data;
+		String s = string;
+		if (s == null) {
+			s = new String(data, 0, length);
+			string = s;
+		}
+		return s;
+	}
+
+	/**
+	 * @return the number of characters stored in this port.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @param index position of the character, less than {@link #length()}
+	 * @return the character stored at the given position
+	 */
+	public char charAt(int index) {
+		if (index >= length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+		}
+		return data[index];
 	}
-	
+
 	/**
-	 * If data length is greater than the number of characters this channel 
+	 * If data length is greater than the number of characters this channel
 	 * supports, the data will be trimmed to the number of characters supported.
 	 * Trimming the rightmost's characters.
 	 * @param data
 	 */
 	public void write(String data) {
+		int n = Math.min(data.length(), this.data.length);
+		data.getChars(0, n, this.data, 0);
+		changed(n);
+	}
 
-		if (data.length() >= this.characters) {
-			this.data = data.substring(0, this.characters);
-		} else {
-			this.data = data;
-		}
-
+	/**
+	 * Same as {@link #write(String)} without creating a string.
+	 * @param data characters to write
+	 */
+	public void write(char[] data) {
+		int n = Math.min(data.length, this.data.length);
+		System.arraycopy(data, 0, this.data, 0, n);
+		changed(n);
 	}
-	
+
 	/**
 	 * Resets this port to contain nothing.
 	 */
 	public void clear(){
-		data = "";
+		changed(0);
+	}
+
+	/**
+	 * @return the number of times this port has been written or cleared.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
+	private void changed(int length) {
+		this.length = length;
+		string = null;
+		modificationCount++;
 	}
 
 }
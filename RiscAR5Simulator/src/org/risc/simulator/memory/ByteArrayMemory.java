@@ -0,0 +1,242 @@
+package org.risc.simulator.memory;
+
+import org.risc.simulator.util.NumberUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * byte[] implementation of the Memory interface storing data in <b>BIG
+ * ENDIAN</b> with 8 bit cells.
+ * <br> It behaves like {@link ArrayListMemory} with a cell size of 8 but never
+ * boxes the data it stores.
+ * <br> Any illegal access(i.e. index out bounds) will throw an exception.
+ * <br> The cells are kept in pages of {@link #PAGE_SIZE} cells that are shared with the
+ * {@link MemorySnapshot}s taken. A page is copied the first time it is written after a
+ * snapshot, so a snapshot only costs the pages written since the previous one.
+ * <br> The cells written are marked as dirty until {@link #clearDirty()} is called, so a view
+ * of the memory only has to update the cells that changed.
+ * @author Victor J.
+ */
+public class ByteArrayMemory implements Memory {
+
+	private static final int CELL_SIZE = 8;
+	private static final int PAGE_BITS = 4;
+	public static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private final int size;
+	private final byte[][] pages;
+	/**
+	 * Pages that belong to a snapshot, they must be copied before writing to them.
+	 */
+	private final boolean[] shared;
+	/**
+	 * Bitmap of the cells written since the last call to {@link #clearDirty()}.
+	 */
+	private final long[] dirty;
+
+	/**
+	 * Initializes this Memory with the number of cells specified. All cells
+	 * are initialized to zero.
+	 * @param numberOfCells
+	 */
+	public ByteArrayMemory(int numberOfCells) {
+		size = numberOfCells;
+		int numberOfPages = (numberOfCells + PAGE_MASK) >> PAGE_BITS;
+		pages = new byte[numberOfPages][];
+		shared = new boolean[numberOfPages];
+		dirty = new long[(numberOfCells + 63) >> 6];
+		for (int i = 0; i < numberOfPages; i++) {//the last page only has the cells left
+			pages[i] = new byte[Math.min(PAGE_SIZE, numberOfCells - (i << PAGE_BITS))];
+		}
+	}
+
+	/**
+	 * @return the number of cells of this memory.
+	 */
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getCellSize() {
+		return CELL_SIZE;
+	}
+
+	@Override
+	public int getDataAt(int location) {
+		return pages[location >> PAGE_BITS][location & PAGE_MASK];
+	}
+
+	@Override
+	public void setDataAt(int location, int data) {
+		int page = location >> PAGE_BITS;
+		if (shared[page]) {
+			copy(page);
+		}
+		pages[page][location & PAGE_MASK] = (byte) data;
+		dirty[location >> 6] |= 1L << location;
+	}
+
+	@Override
+	public int getDataAt(int location, int fetchSize) {
+		if (fetchSize <= 0) {
+			throw new IllegalArgumentException("fetch size must be positive");
+		}
+		int nBits = fetchSize * CELL_SIZE;
+		if (nBits > 32) {
+			throw new IllegalArgumentException("number of bits is greater than an int");
+		}
+
+		int value = 0;
+		for (int i = 0; i < fetchSize; i++) {
+			value = (value << CELL_SIZE) | (getDataAt(location + i) & 0xFF);
+		}
+
+		int shift = 32 - nBits;
+		return value << shift >> shift;
+	}
+
+	@Override
+	public void setDataAt(int location, int data, int numBits) {
+		int numCells = (numBits + CELL_SIZE - 1) / CELL_SIZE;
+		if (numCells * CELL_SIZE > 32) {
+			throw new IllegalArgumentException("number of bits is greater than an int");
+		}
+		for (int i = 0; i < numCells; i++) {
+			setDataAt(location + i, data >> ((numCells - i - 1) * CELL_SIZE));
+		}
+	}
+
+	/**
+	 * Takes a snapshot of every cell, sharing the pages with this memory.
+	 * @return the snapshot
+	 */
+	public MemorySnapshot snapshot() {
+		Arrays.fill(shared, true);
+		return new MemorySnapshot(pages.clone());
+	}
+
+	/**
+	 * Sets every cell to the value it had when the snapshot was taken.
+	 * <br> Only the pages that are not the ones of the snapshot are replaced.
+	 * @param snapshot snapshot taken from a memory of the same size
+	 * @return the number of pages that changed
+	 * @throws IllegalArgumentException if the snapshot is from a memory of another size
+	 */
+	public int restore(MemorySnapshot snapshot) {
+		byte[][] saved = snapshot.getPages();
+		if (saved == null || saved.length != pages.length || saved[saved.length - 1].length != pages[pages.length - 1].length) {
+			throw new IllegalArgumentException("The snapshot is not from a memory of " + size + " cells");
+		}
+		int changed = 0;
+		for (int i = 0; i < pages.length; i++) {
+			if (pages[i] != saved[i]) {
+				pages[i] = saved[i];
+				changed++;
+				for (int location = i << PAGE_BITS; location < Math.min(size, (i + 1) << PAGE_BITS); location++) {
+					dirty[location >> 6] |= 1L << location;
+				}
+			}
+			shared[i] = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * @param snapshot snapshot to compare with
+	 * @param page     page to compare
+	 * @return true if the page of this memory is the same one of the snapshot, so its cells
+	 * have the same values
+	 */
+	public boolean isPageOf(MemorySnapshot snapshot, int page) {
+		byte[][] saved = snapshot.getPages();
+		return saved != null && page < saved.length && pages[page] == saved[page];
+	}
+
+	/**
+	 * @return true if the cell was written since the last call to {@link #clearDirty()}.
+	 */
+	public boolean isDirty(int location) {
+		return (dirty[location >> 6] & 1L << location) != 0;
+	}
+
+	/**
+	 * @param from first cell to check
+	 * @return the first dirty cell starting at from, or -1 if there is none.
+	 */
+	public int nextDirty(int from) {
+		int word = from >> 6;
+		if (word >= dirty.length) {
+			return -1;
+		}
+		long bits = dirty[word] & -1L << from;
+		while (bits == 0) {
+			if (++word == dirty.length) {
+				return -1;
+			}
+			bits = dirty[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * Marks every cell as clean.
+	 */
+	public void clearDirty() {
+		Arrays.fill(dirty, 0);
+	}
+
+	/**
+	 * Gives a page its own copy before it is written.
+	 */
+	private void copy(int page) {
+		pages[page] = pages[page].clone();
+		shared[page] = false;
+	}
+
+	/**
+	 * Iterates over the cells as unsigned values, like {@link ArrayListMemory}.
+	 */
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<Integer>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Integer next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getDataAt(index++) & 0xFF;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the contents of this memory in the following format
+	 * : [cellLocation in hex] value in twos complement
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			sb.append(String.format("%02X: %s\n", i, NumberUtils
+					.intToTwosComplementString(getDataAt(i) & 0xFF, CELL_SIZE)));
+		}
+		return sb.toString();
+	}
+
+}
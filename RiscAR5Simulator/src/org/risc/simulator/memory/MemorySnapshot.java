@@ -0,0 +1,72 @@
+package org.risc.simulator.memory;
+
+/**
+ * The values of every cell of a memory at some point.
+ * <br> Snapshots of a {@link ByteArrayMemory} share its pages, the ones of any other
+ * memory are a copy of every cell. A snapshot never changes after it is taken.
+ * @author Victor J.
+ */
+public final class MemorySnapshot {
+
+	private final byte[][] pages;
+	private final int[] cells;
+
+	MemorySnapshot(byte[][] pages) {
+		this.pages = pages;
+		this.cells = null;
+	}
+
+	private MemorySnapshot(int[] cells) {
+		this.pages = null;
+		this.cells = cells;
+	}
+
+	/**
+	 * Takes a snapshot of a memory, copying the cells unless it is a {@link ByteArrayMemory}.
+	 * @param memory        memory to take the snapshot from
+	 * @param numberOfCells number of cells of the memory
+	 * @return the snapshot
+	 */
+	public static MemorySnapshot of(Memory memory, int numberOfCells) {
+		if (memory instanceof ByteArrayMemory) {
+			return ((ByteArrayMemory) memory).snapshot();
+		}
+		int[] cells = new int[numberOfCells];
+		for (int i = 0; i < numberOfCells; i++) {
+			cells[i] = memory.getDataAt(i);
+		}
+		return new MemorySnapshot(cells);
+	}
+
+	/**
+	 * Sets the cells of the memory to the values of this snapshot.
+	 * @param memory memory of the same kind and size this snapshot was taken from
+	 * @throws IllegalArgumentException if the snapshot is not from a memory like this one
+	 */
+	public void restoreTo(Memory memory) {
+		if (memory instanceof ByteArrayMemory) {
+			((ByteArrayMemory) memory).restore(this);
+		} else if (cells == null) {
+			throw new IllegalArgumentException("The snapshot is from a " + ByteArrayMemory.class.getSimpleName());
+		} else {
+			for (int i = 0; i < cells.length; i++) {
+				memory.setDataAt(i, cells[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return the value of a cell when the snapshot was taken
+	 */
+	public int getDataAt(int location) {
+		if (pages != null) {
+			return pages[location / ByteArrayMemory.PAGE_SIZE][location % ByteArrayMemory.PAGE_SIZE];
+		}
+		return cells[location];
+	}
+
+	byte[][] getPages() {
+		return pages;
+	}
+
+}
@@ -1,11 +1,13 @@
 package org.risc.simulator.memory;
 
 import org.risc.simulator.util.NumberUtils;
+import org.risc.simulator.util.RangePolicy;
 
 /**
  * This register supports a maximum width of 32, since its backed by an int.
  * <br> If the data supplied is not in the range [-2^(width-1), 2^width]. It will
- * throw an exception.
+ * throw an exception, unless another {@link RangePolicy} is set.
+ * <br> A register can own its data or be a view of a slot of a {@link RegisterFile}.
  * @author Victor J.
  */
 public class Register {
@@ -21,9 +23,12 @@ public class Register {
 	private String name;
 	
 	/**
-	 * Data being stored
+	 * Data being stored, in storage[slot]
 	 */
-	private int data;
+	private final int[] storage;
+	private final int slot;
+
+	private RangePolicy rangePolicy = RangePolicy.THROW;
 
 	/**
 	 * Initializes this register to 0
@@ -34,12 +39,25 @@ public class Register {
 	}
 
 	public Register(String name, int data, int width) {
+		this(name, width, new int[1], 0);
+		setData(data);
+	}
+
+	/**
+	 * Creates a view of a slot of the storage of a {@link RegisterFile}.
+	 * @param name    identifier
+	 * @param width   number of bits this register supports
+	 * @param storage array holding the data
+	 * @param slot    index of the data in the storage
+	 */
+	Register(String name, int width, int[] storage, int slot) {
 		if(width > 32 || width < 0){
 			throw new IllegalArgumentException("Width must be between 0 and 32");
 		}
 		this.width = width;
+		this.storage = storage;
+		this.slot = slot;
 		setName(name);
-		setData(data);
 	}
 
 	public String getName() {
@@ -55,23 +73,61 @@ public class Register {
 	}
 
 	public int getData() {
-		return data;
+		return storage[slot];
+	}
+
+	public RangePolicy getRangePolicy() {
+		return rangePolicy;
+	}
+
+	/**
+	 * @param rangePolicy what {@link #setData(int)} does with the data that is not in range
+	 */
+	public void setRangePolicy(RangePolicy rangePolicy) {
+		this.rangePolicy = rangePolicy;
 	}
 
 	/**
 	 * If the supplied data is not in Range[-2^(n-1), 2^n] it will throw
-	 * a runtime exception
+	 * a runtime exception, when the range policy is {@link RangePolicy#THROW}.
+	 * Otherwise the data is handled as in {@link #trySetData(int)}.
 	 * @param data
 	 * @throws RuntimeException if the data is not in range
 	 */
 	public void setData(int data) {
-		NumberUtils.checkFitsInBits(data, width); // Range[-2^(n-1), 2^n]
-		this.data = data;
+		if (trySetData(data) == RangePolicy.TRAPPED && rangePolicy == RangePolicy.THROW) {
+			NumberUtils.checkFitsInBits(data, width); // Range[-2^(n-1), 2^n]
+		}
+	}
+
+	/**
+	 * Stores the data applying the range policy, without throwing.
+	 * <br> With {@link RangePolicy#THROW} or {@link RangePolicy#TRAP} the data that is
+	 * not in range is not stored.
+	 * @param data
+	 * @return {@link RangePolicy#IN_RANGE}, {@link RangePolicy#WRAPPED},
+	 * {@link RangePolicy#SATURATED} or {@link RangePolicy#TRAPPED}
+	 */
+	public int trySetData(int data) {
+		if (NumberUtils.fitsInBits(data, width)) {
+			storage[slot] = data;
+			return RangePolicy.IN_RANGE;
+		}
+		switch (rangePolicy) {
+			case WRAP:
+				storage[slot] = NumberUtils.wrapToBits(data, width);
+				return RangePolicy.WRAPPED;
+			case SATURATE:
+				storage[slot] = NumberUtils.saturateToBits(data, width);
+				return RangePolicy.SATURATED;
+			default:
+				return RangePolicy.TRAPPED;
+		}
 	}
 
 	@Override
 	public String toString() {
-		return "Register [width=" + width + ", name=" + name + ", data=" + data
+		return "Register [width=" + width + ", name=" + name + ", data=" + getData()
 				+ "]";
 	}
 	
@@ -0,0 +1,73 @@
+package org.risc.simulator.memory;
+
+/**
+ * Registers stored in a single int array.
+ * <br> Each register of the file is a {@link Register} view of one slot of the array, so
+ * the registers can still be used by name while the processor reads and writes the
+ * array directly by index. Writing the array skips the width check of the register,
+ * only values that fit in the register must be written to it.
+ * @author Victor J.
+ */
+public class RegisterFile {
+
+	private final int[] values;
+	private final Register[] registers;
+
+	/**
+	 * Creates a file with the given number of slots, all of them in zero.
+	 * @param size number of registers
+	 */
+	public RegisterFile(int size) {
+		values = new int[size];
+		registers = new Register[size];
+	}
+
+	/**
+	 * Creates the register of a slot.
+	 * @param index slot of the register
+	 * @param name  identifier of the register
+	 * @param width number of bits the register supports
+	 * @return the view of the slot
+	 */
+	public Register add(int index, String name, int width) {
+		return add(index, new Register(name, width, values, index));
+	}
+
+	/**
+	 * Creates a status register in a slot.
+	 * @param index slot of the register
+	 * @param name  identifier of the register
+	 * @return the view of the slot
+	 */
+	public StatusRegister addStatusRegister(int index, String name) {
+		return (StatusRegister) add(index, new StatusRegister(name, values, index));
+	}
+
+	private Register add(int index, Register register) {
+		if (registers[index] != null) {
+			throw new IllegalArgumentException("Slot " + index + " is used by " + registers[index].getName());
+		}
+		registers[index] = register;
+		return register;
+	}
+
+	/**
+	 * @param index slot of the register
+	 * @return the view of the slot or null if no register was added there
+	 */
+	public Register get(int index) {
+		return registers[index];
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * @return the array backing every register, indexed by slot.
+	 */
+	public int[] getValues() {
+		return values;
+	}
+
+}
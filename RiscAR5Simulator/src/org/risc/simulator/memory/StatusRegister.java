@@ -1,6 +1,6 @@
 package org.risc.simulator.memory;
 
-import org.risc.simulator.util.NumberUtils;
+import org.risc.simulator.util.BitFields;
 
 /**
  * This class represents a StatusRegister and provides 
@@ -28,9 +28,15 @@ public class StatusRegister extends Register {
 		this.setData(0);
 	}
 
+	/**
+	 * Creates a view of a slot of the storage of a {@link RegisterFile}.
+	 */
+	StatusRegister(String name, int[] storage, int slot) {
+		super(name, WIDTH, storage, slot);
+	}
+
 	public int getFlagValue(Flag flag) {
-		int index = WIDTH - flag.index - 1;
-		return NumberUtils.getUnsignedValueOf(getData(), index, index, WIDTH);
+		return BitFields.bit(getData(), flag.index);
 	}
 
 	public boolean isFlagSet(Flag flag) {
@@ -0,0 +1,187 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.memory.Memory;
+
+import java.util.Arrays;
+
+/**
+ * Finds hot basic blocks and translates them for the block execution tier of
+ * {@link RISCAR5Processor}.
+ * <br> Every time the interpreter is about to execute a location its counter is
+ * incremented, once it reaches {@link #HOT_THRESHOLD} the straight line run starting
+ * there is translated. A run ends after a branch or stop instruction, before an
+ * invalid instruction, before an access to the I/O cells and before a store into
+ * the cells of the run itself, those are always left to the interpreter.
+ * <br> Stores done by the processor must be reported through {@link #invalidate(int)}
+ * so blocks built from the written cells are dropped.
+ * @author Victor J.
+ */
+class BlockTranslator {
+
+	/**
+	 * Number of times a location has to be reached before it gets translated.
+	 */
+	static final int HOT_THRESHOLD = 8;
+
+	private static final int MAX_BLOCK_LENGTH = 64;
+	private static final int NOT_TRANSLATABLE = -1;
+
+	private final DecodeCache decodeCache;
+	private final Memory memory;
+	private final int ioLocation;
+	private final TranslatedBlock[] blocks;
+	private final int[] counters;
+	private final int[] coverage;
+	private int size;
+
+	/**
+	 * @param decodeCache cache used to decode the instructions being translated
+	 * @param memory      memory the instructions are fetched from
+	 * @param ioLocation  first memory cell mapped to the I/O ports
+	 */
+	BlockTranslator(DecodeCache decodeCache, Memory memory, int ioLocation) {
+		this.decodeCache = decodeCache;
+		this.memory = memory;
+		this.ioLocation = ioLocation;
+		blocks = new TranslatedBlock[Processor.MEMORY_SIZE];
+		counters = new int[Processor.MEMORY_SIZE];
+		coverage = new int[Processor.MEMORY_SIZE];
+	}
+
+	/**
+	 * Returns the block starting at the given location, translating it if the
+	 * location just became hot.
+	 * @param location value of the program counter
+	 * @return the block or null if the interpreter has to execute this location
+	 */
+	TranslatedBlock lookup(int location) {
+		if (location < 0 || location >= blocks.length) {
+			return null;
+		}
+		TranslatedBlock block = blocks[location];
+		if (block != null || counters[location] == NOT_TRANSLATABLE) {
+			return block;
+		}
+		if (++counters[location] < HOT_THRESHOLD) {
+			return null;
+		}
+		block = translate(location);
+		if (block == null) {
+			counters[location] = NOT_TRANSLATABLE;
+		} else {
+			add(block);
+		}
+		return block;
+	}
+
+	/**
+	 * Returns the block starting at the given location without counting the location
+	 * as reached.
+	 * @param location value of the program counter
+	 * @return the block or null if none was translated there
+	 */
+	TranslatedBlock get(int location) {
+		return location < 0 || location >= blocks.length ? null : blocks[location];
+	}
+
+	private TranslatedBlock translate(int start) {
+		int[] opCodes = new int[MAX_BLOCK_LENGTH];
+		int[] operands = new int[MAX_BLOCK_LENGTH];
+		int[] words = new int[MAX_BLOCK_LENGTH];
+		int length = 0;
+		int location = start;
+		while (length < MAX_BLOCK_LENGTH && location + Processor.PC_INCREMENT < Processor.MEMORY_SIZE) {
+			if (!decodeCache.isDecoded(location)) {
+				decodeCache.decode(location, memory.getDataAt(location, Processor.PC_INCREMENT));
+			}
+			byte mode = decodeCache.getMode(location);
+			int opCode = decodeCache.getOpCode(location);
+			int operand = decodeCache.getOperand(location);
+			if (mode == DecodeCache.INVALID || mode == DecodeCache.DIRECT && operand >= ioLocation) {
+				break;
+			}
+			opCodes[length] = opCode;
+			operands[length] = operand;
+			words[length] = decodeCache.getWord(location);
+			length++;
+			location += Processor.PC_INCREMENT;
+			if (opCode >= 16 && opCode <= 19 || opCode == Processor.STOP_INSTRUCTION) {
+				break;
+			}
+		}
+
+		//stores into the block itself are left to the interpreter
+		for (int i = 0; i < length; i++) {
+			if (opCodes[i] == 13 && operands[i] >= start && operands[i] < location) {
+				length = i;
+				break;
+			}
+		}
+
+		if (length == 0) {
+			return null;
+		}
+		return new TranslatedBlock(start, length, Arrays.copyOf(opCodes, length),
+				Arrays.copyOf(operands, length), Arrays.copyOf(words, length));
+	}
+
+	private void add(TranslatedBlock block) {
+		blocks[block.getStart()] = block;
+		for (int i = block.getStart(); i < block.getEnd(); i++) {
+			coverage[i]++;
+		}
+		size++;
+	}
+
+	private void remove(TranslatedBlock block) {
+		blocks[block.getStart()] = null;
+		counters[block.getStart()] = 0;
+		for (int i = block.getStart(); i < block.getEnd(); i++) {
+			coverage[i]--;
+		}
+		size--;
+	}
+
+	/**
+	 * Drops every block built from the cell at the given location.
+	 * @param location memory cell that was written
+	 */
+	void invalidate(int location) {
+		if (location < 0 || location >= coverage.length) {
+			return;
+		}
+		//the instructions starting at the written cell or the one before it changed
+		if (counters[location] == NOT_TRANSLATABLE) {
+			counters[location] = 0;
+		}
+		if (location > 0 && counters[location - 1] == NOT_TRANSLATABLE) {
+			counters[location - 1] = 0;
+		}
+		if (coverage[location] == 0) {
+			return;
+		}
+		for (int i = 0; i < blocks.length; i++) {
+			if (blocks[i] != null && blocks[i].covers(location)) {
+				remove(blocks[i]);
+			}
+		}
+	}
+
+	/**
+	 * Drops every block and resets the counters.
+	 */
+	void clear() {
+		Arrays.fill(blocks, null);
+		Arrays.fill(counters, 0);
+		Arrays.fill(coverage, 0);
+		size = 0;
+	}
+
+	/**
+	 * @return the number of translated blocks.
+	 */
+	int size() {
+		return size;
+	}
+
+}
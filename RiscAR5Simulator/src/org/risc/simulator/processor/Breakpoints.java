@@ -0,0 +1,259 @@
+package org.risc.simulator.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Breakpoints and watchpoints of a {@link RISCAR5Processor}, see
+ * {@link RISCAR5Processor#setBreakpoints(Breakpoints)}.
+ * <ul>
+ * <li>A breakpoint stops {@link Processor#run()} before the instruction at its location is
+ * executed. It can have conditions on the registers, then it only stops when one of them holds.</li>
+ * <li>A watchpoint stops the run after an instruction reads or writes its memory cell, the
+ * I/O ports included.</li>
+ * </ul>
+ * The locations with breakpoints are kept in a bitmap and the watched accesses in a mask
+ * per cell, so checking them costs the same whatever the number of breakpoints set.
+ * @author Victor J.
+ */
+public class Breakpoints {
+
+	/**
+	 * Accesses of a watchpoint, they can be combined.
+	 */
+	public static final int READ = 1, WRITE = 2;
+
+	/**
+	 * Comparison of a register with a value, {@link #parse(String)} reads it from text like "R3==5".
+	 */
+	public static class Condition {
+
+		private static final String[] OPERATORS = {"==", "!=", "<=", ">=", "<", ">"};
+		private static final List<String> REGISTERS = new ArrayList<String>();
+
+		static {
+			for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+				REGISTERS.add(Processor.GPR_PREFIX + i);
+			}
+			REGISTERS.addAll(Arrays.asList(Processor.ACC, Processor.SR, Processor.PC, Processor.IR));
+		}
+
+		private final String register;
+		private final String operator;
+		private final int value;
+
+		/**
+		 * @param register name of the register, like R3 or ACC
+		 * @param operator one of ==, !=, &lt;, &lt;=, &gt; or &gt;=
+		 * @param value    value the register is compared with
+		 * @throws IllegalArgumentException if the register or the operator is not known
+		 */
+		public Condition(String register, String operator, int value) {
+			if (!REGISTERS.contains(register)) {
+				throw new IllegalArgumentException("Unknown register " + register);
+			}
+			if (!Arrays.asList(OPERATORS).contains(operator)) {
+				throw new IllegalArgumentException("Unknown operator " + operator);
+			}
+			this.register = register;
+			this.operator = operator;
+			this.value = value;
+		}
+
+		/**
+		 * @param text register, operator and value, like "R3==5" or "ACC &lt; -1"
+		 * @throws IllegalArgumentException if the text is not a condition
+		 */
+		public static Condition parse(String text) {
+			for (String operator : OPERATORS) {
+				int index = text.indexOf(operator);
+				if (index > 0) {
+					String register = text.substring(0, index).trim().toUpperCase();
+					String value = text.substring(index + operator.length()).trim();
+					try {
+						return new Condition(register, operator, Integer.parseInt(value));
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Wrong value in condition " + text, e);
+					}
+				}
+			}
+			throw new IllegalArgumentException("Wrong condition " + text);
+		}
+
+		boolean holds(Processor processor) {
+			int data = processor.getRegister(register).getData();
+			if (operator.equals("==")) {
+				return data == value;
+			} else if (operator.equals("!=")) {
+				return data != value;
+			} else if (operator.equals("<=")) {
+				return data <= value;
+			} else if (operator.equals(">=")) {
+				return data >= value;
+			} else if (operator.equals("<")) {
+				return data < value;
+			}
+			return data > value;
+		}
+
+		public String getRegister() {
+			return register;
+		}
+
+		public String getOperator() {
+			return operator;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return register + operator + value;
+		}
+	}
+
+	private final long[] locations = new long[(Processor.MEMORY_SIZE + 63) >> 6];
+	/**
+	 * Conditions of each location, null for the breakpoints that always stop.
+	 */
+	private final Condition[][] conditions = new Condition[Processor.MEMORY_SIZE][];
+	private final byte[] watches = new byte[Processor.MEMORY_SIZE];
+
+	/**
+	 * Sets a breakpoint that always stops, replacing the conditions of the location.
+	 * @throws IllegalArgumentException if the location is not in memory
+	 */
+	public void add(int location) {
+		checkInMemory(location);
+		locations[location >> 6] |= 1L << location;
+		conditions[location] = null;
+	}
+
+	/**
+	 * Adds a condition to the breakpoint at a location, the breakpoint stops when any of
+	 * its conditions holds. Nothing changes if the location already has a breakpoint that
+	 * always stops.
+	 * @throws IllegalArgumentException if the location is not in memory
+	 */
+	public void add(int location, Condition condition) {
+		checkInMemory(location);
+		if (isSet(location) && conditions[location] == null) {
+			return;
+		}
+		Condition[] old = conditions[location];
+		Condition[] added = old == null ? new Condition[1] : Arrays.copyOf(old, old.length + 1);
+		added[added.length - 1] = condition;
+		conditions[location] = added;
+		locations[location >> 6] |= 1L << location;
+	}
+
+	/**
+	 * Removes the breakpoint at a location and its conditions.
+	 * @throws IllegalArgumentException if the location is not in memory
+	 */
+	public void remove(int location) {
+		checkInMemory(location);
+		locations[location >> 6] &= ~(1L << location);
+		conditions[location] = null;
+	}
+
+	/**
+	 * @return true if there is a breakpoint at the location, with or without conditions.
+	 */
+	public boolean isSet(int location) {
+		return location >= 0 && location < Processor.MEMORY_SIZE && (locations[location >> 6] & 1L << location) != 0;
+	}
+
+	/**
+	 * @return the conditions of the breakpoint at a location, empty if it always stops or there is none.
+	 */
+	public Condition[] getConditions(int location) {
+		checkInMemory(location);
+		return conditions[location] == null ? new Condition[0] : conditions[location].clone();
+	}
+
+	/**
+	 * Watches the accesses to a memory cell, replacing the ones watched before.
+	 * @param address cell watched
+	 * @param access  {@link #READ}, {@link #WRITE} or both, 0 stops watching the cell
+	 * @throws IllegalArgumentException if the cell is not in memory or the access is not known
+	 */
+	public void watch(int address, int access) {
+		checkInMemory(address);
+		if ((access & ~(READ | WRITE)) != 0) {
+			throw new IllegalArgumentException("Unknown access " + access);
+		}
+		watches[address] = (byte) access;
+	}
+
+	/**
+	 * @return the accesses watched in the cell, 0 if it is not watched.
+	 */
+	public int getWatch(int address) {
+		checkInMemory(address);
+		return watches[address];
+	}
+
+	/**
+	 * @return true if there are no breakpoints and no cells watched.
+	 */
+	public boolean isEmpty() {
+		for (long set : locations) {
+			if (set != 0) {
+				return false;
+			}
+		}
+		for (byte access : watches) {
+			if (access != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every breakpoint and watchpoint.
+	 */
+	public void clear() {
+		Arrays.fill(locations, 0);
+		Arrays.fill(conditions, null);
+		Arrays.fill(watches, (byte) 0);
+	}
+
+	/**
+	 * @return true if the run must stop before executing the instruction at the location.
+	 */
+	boolean shouldBreak(int location, Processor processor) {
+		if (!isSet(location)) {
+			return false;
+		}
+		Condition[] at = conditions[location];
+		if (at == null) {
+			return true;
+		}
+		for (Condition condition : at) {
+			if (condition.holds(processor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param access {@link #READ} or {@link #WRITE}
+	 * @return true if the access to the cell is watched.
+	 */
+	boolean isWatched(int address, int access) {
+		return address >= 0 && address < Processor.MEMORY_SIZE && (watches[address] & access) != 0;
+	}
+
+	private static void checkInMemory(int location) {
+		if (location < 0 || location >= Processor.MEMORY_SIZE) {
+			throw new IllegalArgumentException("Location " + location + " is not in memory");
+		}
+	}
+
+}
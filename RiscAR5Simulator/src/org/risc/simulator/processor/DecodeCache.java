@@ -0,0 +1,137 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.util.BitFields;
+
+import java.util.Arrays;
+
+/**
+ * Per address table of predecoded instructions.
+ * <br> Each memory location caches the instruction word found there together with its
+ * opcode, addressing mode and operand, so fetching an already decoded location is
+ * just an array index. An entry must be invalidated whenever one of the two cells
+ * it was decoded from is written.
+ * @author Victor J.
+ */
+class DecodeCache {
+
+	/**
+	 * Addressing modes stored in the table.
+	 */
+	static final byte INVALID = 0, IMPLICIT = 1, REGISTER_DIRECT = 2, DIRECT = 3, IMMEDIATE = 4;
+
+	private final boolean[] decoded;
+	private final int[] words;
+	private final byte[] opCodes;
+	private final byte[] modes;
+	private final int[] operands;
+
+	/**
+	 * Creates an empty table for a memory with the given number of cells.
+	 * @param size number of memory cells
+	 */
+	DecodeCache(int size) {
+		decoded = new boolean[size];
+		words = new int[size];
+		opCodes = new byte[size];
+		modes = new byte[size];
+		operands = new int[size];
+	}
+
+	boolean isDecoded(int location) {
+		return decoded[location];
+	}
+
+	/**
+	 * Decodes the instruction word fetched from the given location and stores it in the table.
+	 * @param location where the word was fetched from
+	 * @param word     the instruction word as returned by the memory
+	 */
+	void decode(int location, int word) {
+		int fields = InstructionFields.of(word);
+		int opCode = InstructionFields.opCode(fields);
+		byte mode = INVALID;
+		int operand = 0;
+		if (InstructionFields.isValid(fields)) {
+			mode = modeOf(opCode);
+			switch (mode) {
+				case REGISTER_DIRECT:
+					operand = InstructionFields.register(fields);
+					break;
+				case DIRECT:
+					operand = InstructionFields.operand(fields);
+					if (operand < 0) {
+						operand = Processor.MEMORY_SIZE + operand;
+					}
+					break;
+				case IMMEDIATE:
+					operand = InstructionFields.operand(fields);
+					break;
+				default:
+					break;
+			}
+		}
+		words[location] = word;
+		opCodes[location] = (byte) opCode;
+		modes[location] = mode;
+		operands[location] = operand;
+		decoded[location] = true;
+	}
+
+	/**
+	 * Selects the addressing mode of a valid opcode.
+	 */
+	private static byte modeOf(int opCode) {
+		if (opCode >= 6 && opCode <= 9 || opCode >= 16 && opCode <= 19
+				|| opCode == 24 || opCode == 31)
+			return IMPLICIT;
+		else if (opCode >= 0 && opCode <= 1 || opCode >= 3 && opCode <= 5
+				|| opCode >= 10 && opCode <= 11)
+			return REGISTER_DIRECT;
+		else if (opCode >= 12 && opCode <= 13)
+			return DIRECT;
+		else if (opCode == 14)
+			return IMMEDIATE;
+		return INVALID;
+	}
+
+	int getWord(int location) {
+		return words[location];
+	}
+
+	int getOpCode(int location) {
+		return opCodes[location];
+	}
+
+	byte getMode(int location) {
+		return modes[location];
+	}
+
+	/**
+	 * @return the register number, the normalized address or the signed constant
+	 * depending on the addressing mode.
+	 */
+	int getOperand(int location) {
+		return operands[location];
+	}
+
+	/**
+	 * Drops every entry that was decoded from the cell at the given location.
+	 * @param location memory cell that was written
+	 */
+	void invalidate(int location) {
+		if (location >= 0 && location < decoded.length) {
+			decoded[location] = false;
+		}
+		if (location > 0 && location <= decoded.length) {
+			decoded[location - 1] = false;
+		}
+	}
+
+	/**
+	 * Drops every entry in the table.
+	 */
+	void clear() {
+		Arrays.fill(decoded, false);
+	}
+
+}
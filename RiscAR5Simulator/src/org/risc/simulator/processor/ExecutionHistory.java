@@ -0,0 +1,181 @@
+package org.risc.simulator.processor;
+
+/**
+ * Undo log of the instructions executed by a {@link RISCAR5Processor}, used to step back.
+ * <br> Each cycle is a single long in a ring buffer, so a history of ten million cycles
+ * takes 80 MB. When the buffer is full the oldest cycles are discarded.
+ * <p>
+ * A record holds the state an instruction can change before it was executed: PC, ACC,
+ * SR, IR and the old value of the register written by star or the cell written by sta.
+ * <pre>
+ * | old 56-48 | index 47-40 | kind 39-38 | IR 37-22 | SR 21-18 | ACC 17-9 | PC 8-0 |
+ * </pre>
+ * Registers are kept in 9 bits, so any value in [-128, 255] is recorded exactly.
+ * <br> The cycle that first copies the I/O ports after a program is loaded also keeps the input
+ * cells and the output port as they were before, so undoing it gets back to the state loaded.
+ * @author Victor J.
+ */
+public class ExecutionHistory {
+
+	/**
+	 * Bytes of memory used by each cycle recorded.
+	 */
+	public static final int BYTES_PER_CYCLE = 8;
+
+	/**
+	 * What the instruction of a record wrote besides PC, ACC, SR and IR.
+	 */
+	static final int NONE = 0, REGISTER = 1, CELL = 2;
+
+	private static final int VALUE_BITS = 9, VALUE_MASK = (1 << VALUE_BITS) - 1, VALUE_OFFSET = 128;
+	private static final int ACC_SHIFT = 9, SR_SHIFT = 18, IR_SHIFT = 22, KIND_SHIFT = 38, INDEX_SHIFT = 40,
+			OLD_SHIFT = 48;
+	private static final long NO_PORTS = -1;
+
+	private final long[] records;
+	private int head;
+	private int size;
+	private long discarded;
+	private long portsCycle = NO_PORTS;
+	private int[] inputCells;
+	private String output;
+
+	/**
+	 * @param capacity maximum number of cycles kept
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public ExecutionHistory(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be positive");
+		}
+		records = new long[capacity];
+	}
+
+	public int getCapacity() {
+		return records.length;
+	}
+
+	/**
+	 * @return the number of cycles that can be undone.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of cycles discarded because the buffer was full.
+	 */
+	public long getDiscarded() {
+		return discarded;
+	}
+
+	public void clear() {
+		size = 0;
+		discarded = 0;
+		portsCycle = NO_PORTS;
+	}
+
+	/**
+	 * Keeps the I/O ports as they were before the cycle that copies them for the first time.
+	 * @param cycle      number of cycles executed before that cycle
+	 * @param inputCells values of the input cells
+	 * @param output     contents of the output port
+	 */
+	void recordPorts(long cycle, int[] inputCells, String output) {
+		portsCycle = cycle;
+		this.inputCells = inputCells;
+		this.output = output;
+	}
+
+	/**
+	 * @param cycle number of cycles executed after undoing a cycle
+	 * @return true if the ports must be given back their values of {@link #recordPorts}.
+	 */
+	boolean hasPorts(long cycle) {
+		return cycle == portsCycle;
+	}
+
+	int[] getInputCells() {
+		return inputCells;
+	}
+
+	String getOutput() {
+		return output;
+	}
+
+	void push(long record) {
+		records[head] = record;
+		head = head + 1 == records.length ? 0 : head + 1;
+		if (size < records.length) {
+			size++;
+		} else {
+			discarded++;
+		}
+	}
+
+	/**
+	 * @return the last record, which is removed.
+	 * @throws IllegalStateException if the history is empty
+	 */
+	long pop() {
+		if (size == 0) {
+			throw new IllegalStateException("The history is empty");
+		}
+		head = head == 0 ? records.length - 1 : head - 1;
+		size--;
+		return records[head];
+	}
+
+	/**
+	 * Packs the state before an instruction is executed.
+	 * @param kind  {@link #NONE}, {@link #REGISTER} or {@link #CELL}
+	 * @param index register or memory cell written
+	 * @param old   value of the register or cell before it was written
+	 */
+	static long record(int pc, int acc, int sr, int ir, int kind, int index, int old) {
+		return pack(pc) | (long) pack(acc) << ACC_SHIFT | (long) (sr & 0xF) << SR_SHIFT
+				| (long) (ir & 0xFFFF) << IR_SHIFT | (long) kind << KIND_SHIFT | (long) (index & 0xFF) << INDEX_SHIFT
+				| (long) pack(old) << OLD_SHIFT;
+	}
+
+	static int pc(long record) {
+		return unpack((int) record);
+	}
+
+	static int acc(long record) {
+		return unpack((int) (record >>> ACC_SHIFT));
+	}
+
+	static int sr(long record) {
+		return (int) (record >>> SR_SHIFT) & 0xF;
+	}
+
+	static int ir(long record) {
+		return (short) (record >>> IR_SHIFT);
+	}
+
+	static int kind(long record) {
+		return (int) (record >>> KIND_SHIFT) & 3;
+	}
+
+	static int index(long record) {
+		return (int) (record >>> INDEX_SHIFT) & 0xFF;
+	}
+
+	static int old(long record) {
+		return unpack((int) (record >>> OLD_SHIFT));
+	}
+
+	private static int pack(int value) {
+		return (value + VALUE_OFFSET) & VALUE_MASK;
+	}
+
+	private static int unpack(int bits) {
+		return (bits & VALUE_MASK) - VALUE_OFFSET;
+	}
+
+}
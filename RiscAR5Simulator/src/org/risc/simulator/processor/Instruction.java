@@ -1,5 +1,6 @@
 package org.risc.simulator.processor;
 
+import org.risc.simulator.util.BitFields;
 import org.risc.simulator.util.NumberUtils;
 
 /**
@@ -10,7 +11,6 @@ import org.risc.simulator.util.NumberUtils;
 public class Instruction {
 
 	private int instruction;
-	private static final int OPCODE_SIZE = 5;
 	private static final int RADIX = 16;
 	private boolean valid = false;
 	private boolean stopInstruction = false;
@@ -25,6 +25,21 @@ public class Instruction {
 		this.setInstruction(instruction);
 	}
 
+	private Instruction(int instruction, String originalInstruction) {
+		this.originalInstruction = originalInstruction;
+		this.setInstruction(instruction);
+	}
+
+	/**
+	 * Instantiates a new Instruction from its word, as if it was given as a hex string
+	 * without parsing it.
+	 * @param word The 16 bit instruction.
+	 * @return the instruction, its original instruction is the word in 4 hex digits.
+	 */
+	public static Instruction ofWord(int word) {
+		return new Instruction(word, NumberUtils.intToHexString(word, 4));
+	}
+
 	/**
 	 * Instantiates a new Instruction given as a hex string.
 	 * @param instruction The instruction to be parsed and validated.
@@ -66,7 +81,7 @@ public class Instruction {
 	 * @return The opcode value of the instruction as a unsigned integer.
 	 */
 	public int getOpCode() {
-		return NumberUtils.getUnsignedValueOf(instruction, 0, OPCODE_SIZE - 1, Processor.IR_SIZE);
+		return BitFields.opCode(instruction);
 	}
 
 	/**
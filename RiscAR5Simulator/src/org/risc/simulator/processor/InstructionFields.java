@@ -0,0 +1,74 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.util.BitFields;
+
+/**
+ * The fields of every 16 bit instruction word, decoded in advance.
+ * <br> An entry holds everything {@link Instruction} would compute for a word, so it can
+ * be decoded with a single array load and without creating an {@link Instruction}:
+ * <pre>
+ * | valid 31 | stop 30 | opcode 20-16 | register 10-8 | operand 7-0 |
+ * </pre>
+ * The table takes 256 KB and is built the first time it is used.
+ * @author Victor J.
+ */
+final class InstructionFields {
+
+	private static final int VALID = 1 << 31, STOP = 1 << 30, OPCODE_SHIFT = 16;
+	private static final int SIZE = 1 << Processor.IR_SIZE;
+
+	private static final int[] TABLE = new int[SIZE];
+
+	static {
+		for (int word = 0; word < SIZE; word++) {
+			int opCode = BitFields.opCode(word);
+			int entry = opCode << OPCODE_SHIFT | word & (BitFields.REGISTER_MASK << BitFields.REGISTER_SHIFT
+					| BitFields.OPERAND_MASK);
+			if (Instruction.isOpCodeValid(opCode)) {
+				entry |= VALID;
+				if (opCode == Processor.STOP_INSTRUCTION) {
+					entry |= STOP;
+				}
+			}
+			TABLE[word] = entry;
+		}
+	}
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private InstructionFields() {
+	}
+
+	/**
+	 * @param word instruction word, only its 16 least significant bits are used
+	 * @return the entry of the word
+	 */
+	static int of(int word) {
+		return TABLE[word & (SIZE - 1)];
+	}
+
+	static boolean isValid(int entry) {
+		return entry < 0;
+	}
+
+	static boolean isStop(int entry) {
+		return (entry & STOP) != 0;
+	}
+
+	static int opCode(int entry) {
+		return entry >>> OPCODE_SHIFT & BitFields.OPCODE_MASK;
+	}
+
+	static int register(int entry) {
+		return BitFields.register(entry);
+	}
+
+	/**
+	 * @return the operand as a signed byte
+	 */
+	static int operand(int entry) {
+		return BitFields.operand(entry);
+	}
+
+}
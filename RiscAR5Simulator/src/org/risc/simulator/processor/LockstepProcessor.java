@@ -0,0 +1,440 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.instructionSet.FlagTables;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs many instances of the RISC AR5 in lockstep.
+ * <br> The state of every instance, or lane, is kept in flat primitive arrays instead of
+ * {@link org.risc.simulator.memory.Register} objects: 256 memory cells and 8 general
+ * purpose registers per lane plus one slot per lane for the ACC, SR, PC and IR. Every
+ * {@link #step()} fetches the next instruction of each running lane, groups the lanes by
+ * opcode and then executes each group in a single loop, so all the lanes running the
+ * same code share the same tight loop.
+ * <br> A lane behaves exactly like a {@link RISCAR5Processor} with the same program and
+ * input. Where that processor would throw an exception (i.e. jumping outside the
+ * memory) the lane is marked as {@link LaneStatus#FAULTED} and the rest of the lanes
+ * keep running.
+ * @author Victor J.
+ */
+public class LockstepProcessor {
+
+	/**
+	 * State of a lane.
+	 */
+	public enum LaneStatus {
+		/**
+		 * The lane hasn't executed the stop instruction yet.
+		 */
+		RUNNING,
+		/**
+		 * The lane executed the stop instruction.
+		 */
+		STOPPED,
+		/**
+		 * The lane tried to fetch an instruction outside the memory.
+		 */
+		FAULTED
+	}
+
+	private static final byte RUNNING = 0, STOPPED = 1, FAULTED = 2;
+	private static final LaneStatus[] STATUSES = LaneStatus.values();
+
+	private static final int LOAD_LOCATION = 0;
+	private static final int INPUT_LOC = 250, OUTPUT_LOC = 252;
+	private static final int INPUT_SIZE = 2, OUTPUT_SIZE = 4;
+	private static final int CELL_SHIFT = 8, GPR_SHIFT = 3;
+	private static final int OPCODES = 1 << Processor.OPCODE_SIZE;
+	private static final int ZERO = 8, CARRY = 4, NEGATIVE = 2, OVERFLOW = 1;
+
+	private final int lanes;
+	private final byte[] memory;
+	private final byte[] registers;
+	private final byte[] acc, sr;
+	private final short[] pc, ir;
+	private final byte[] status;
+	private final long[] cycles;
+	private final byte[] input;
+	private final byte[] inputLength;
+
+	private final byte[] opCodes;
+	private final int[] order;
+	private final int[] groupStart = new int[OPCODES + 1];
+
+	/**
+	 * Creates the given number of lanes with every cell and register in zero.
+	 * @param lanes number of machine instances
+	 */
+	public LockstepProcessor(int lanes) {
+		if (lanes < 1) {
+			throw new IllegalArgumentException("At least one lane is needed");
+		}
+		this.lanes = lanes;
+		memory = new byte[lanes << CELL_SHIFT];
+		registers = new byte[lanes << GPR_SHIFT];
+		acc = new byte[lanes];
+		sr = new byte[lanes];
+		pc = new short[lanes];
+		ir = new short[lanes];
+		status = new byte[lanes];
+		cycles = new long[lanes];
+		input = new byte[lanes * INPUT_SIZE];
+		inputLength = new byte[lanes];
+		opCodes = new byte[lanes];
+		order = new int[lanes];
+	}
+
+	public int getLanes() {
+		return lanes;
+	}
+
+	/**
+	 * Loads the program in the memory of every lane. Like {@link RISCAR5Processor#init(List)}
+	 * the registers are left as they are.
+	 * @param instructions the program
+	 */
+	public void init(List<Instruction> instructions) {
+		byte[] image = new byte[Processor.MEMORY_SIZE];
+		int location = LOAD_LOCATION;
+		for (Instruction instruction : instructions) {
+			int value = instruction.getInstruction();
+			image[location] = (byte) (value >> CELL_SHIFT);
+			image[location + 1] = (byte) value;
+			location += Processor.PC_INCREMENT;
+		}
+		for (int lane = 0; lane < lanes; lane++) {
+			System.arraycopy(image, LOAD_LOCATION, memory, (lane << CELL_SHIFT) + LOAD_LOCATION, location);
+			writeInput(lane);
+		}
+	}
+
+	/**
+	 * Sets the contents of the input port of a lane. Only the first two characters are used.
+	 * @param lane number of the lane
+	 * @param data characters of the input port
+	 */
+	public void setInput(int lane, String data) {
+		int length = Math.min(data.length(), INPUT_SIZE);
+		for (int i = 0; i < length; i++) {
+			input[lane * INPUT_SIZE + i] = (byte) data.charAt(i);
+		}
+		inputLength[lane] = (byte) length;
+		writeInput(lane);
+	}
+
+	/**
+	 * Sets both cells of the input port of a lane.
+	 * @param lane   number of the lane
+	 * @param first  value of the cell at 250
+	 * @param second value of the cell at 251
+	 */
+	public void setInput(int lane, int first, int second) {
+		input[lane * INPUT_SIZE] = (byte) first;
+		input[lane * INPUT_SIZE + 1] = (byte) second;
+		inputLength[lane] = INPUT_SIZE;
+		writeInput(lane);
+	}
+
+	/**
+	 * The input port is written before and after every instruction, so it is enough
+	 * to rewrite it when it changes or when a program stores to it.
+	 */
+	private void writeInput(int lane) {
+		for (int i = 0; i < inputLength[lane]; i++) {
+			memory[(lane << CELL_SHIFT) + INPUT_LOC + i] = input[lane * INPUT_SIZE + i];
+		}
+	}
+
+	/**
+	 * Executes one instruction on every running lane.
+	 * @return true if there are lanes still running
+	 */
+	public boolean step() {
+		int[] start = groupStart;
+		Arrays.fill(start, 0);
+
+		//fetch and decode, counting the lanes of each opcode
+		int running = 0;
+		for (int lane = 0; lane < lanes; lane++) {
+			if (status[lane] != RUNNING) {
+				continue;
+			}
+			cycles[lane]++;
+			int location = pc[lane];
+			if (location < 0 || location > Processor.MEMORY_SIZE - 1 - Processor.PC_INCREMENT) {
+				status[lane] = FAULTED;
+				continue;
+			}
+			int cell = (lane << CELL_SHIFT) + location;
+			int word = memory[cell] << CELL_SHIFT | memory[cell + 1] & 0xFF;
+			pc[lane] = (short) (location + Processor.PC_INCREMENT);
+			ir[lane] = (short) word;
+			int opCode = word >> (Processor.IR_SIZE - Processor.OPCODE_SIZE) & (OPCODES - 1);
+			opCodes[lane] = (byte) opCode;
+			start[opCode + 1]++;
+			running++;
+		}
+		if (running == 0) {
+			return false;
+		}
+
+		//group the lanes by opcode
+		for (int i = 0; i < OPCODES; i++) {
+			start[i + 1] += start[i];
+		}
+		int[] next = order;
+		for (int lane = 0; lane < lanes; lane++) {
+			if (status[lane] == RUNNING) {
+				next[start[opCodes[lane]]++] = lane;
+			}
+		}
+		//start[i] now holds the end of group i, which is the start of group i + 1
+		int from = 0;
+		for (int opCode = 0; opCode < OPCODES; opCode++) {
+			int to = start[opCode];
+			if (to > from) {
+				execute(opCode, from, to);
+			}
+			from = to;
+		}
+		return count(LaneStatus.RUNNING) > 0;
+	}
+
+	/**
+	 * Executes the instruction of every lane in order[from, to), all of them with the given opcode.
+	 */
+	private void execute(int opCode, int from, int to) {
+		int[] lanesOf = order;
+		int entry;
+		switch (opCode) {
+			case 0: // AND
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.and(acc[lane], registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 1: // OR
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.or(acc[lane], registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 3: // ADDC
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.addC(acc[lane], registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)],
+							sr[lane] >> 2 & 1);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 4: // SUB
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.sub(acc[lane], registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 5: // MUL
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.mul(acc[lane], registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 6: // NEG
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.neg(acc[lane]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 7: // NOT
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.not(acc[lane]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 8: // RLC
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.rlc(acc[lane], sr[lane] >> 2 & 1);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 9: // RRC
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.rrc(acc[lane], sr[lane] >> 2 & 1);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 10: // LDA R
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.load(registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)], sr[lane]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 11: // STA R
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					registers[(lane << GPR_SHIFT) + (ir[lane] >> 8 & 7)] = acc[lane];
+				}
+				break;
+			case 12: // LDA A
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.load(memory[(lane << CELL_SHIFT) + (ir[lane] & 0xFF)], sr[lane]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 13: // STA A
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					int address = ir[lane] & 0xFF;
+					memory[(lane << CELL_SHIFT) + address] = acc[lane];
+					if (address >= INPUT_LOC && address < INPUT_LOC + INPUT_SIZE) {
+						writeInput(lane);
+					}
+				}
+				break;
+			case 14: // LDI
+				for (int i = from; i < to; i++) {
+					int lane = lanesOf[i];
+					entry = FlagTables.load(ir[lane], sr[lane]);
+					acc[lane] = (byte) FlagTables.result(entry);
+					sr[lane] = (byte) FlagTables.flags(entry);
+				}
+				break;
+			case 16: // BRZ
+				branch(ZERO, from, to);
+				break;
+			case 17: // BRC
+				branch(CARRY, from, to);
+				break;
+			case 18: // BRN
+				branch(NEGATIVE, from, to);
+				break;
+			case 19: // BRO
+				branch(OVERFLOW, from, to);
+				break;
+			case 31: // STOP
+				for (int i = from; i < to; i++) {
+					status[lanesOf[i]] = STOPPED;
+				}
+				break;
+			default: // NOP and invalid instructions
+				break;
+		}
+	}
+
+	private void branch(int flag, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int lane = order[i];
+			if ((sr[lane] & flag) != 0) {
+				pc[lane] = registers[(lane << GPR_SHIFT) + 7];
+			}
+		}
+	}
+
+	/**
+	 * Steps every lane until all of them are stopped or faulted, or the step limit is reached.
+	 * @param maxSteps maximum number of steps
+	 * @return the number of steps executed
+	 */
+	public long run(long maxSteps) {
+		long steps = 0;
+		while (steps < maxSteps && count(LaneStatus.RUNNING) > 0) {
+			step();
+			steps++;
+		}
+		return steps;
+	}
+
+	/**
+	 * @return the number of lanes with the given status.
+	 */
+	public int count(LaneStatus laneStatus) {
+		int count = 0;
+		for (int lane = 0; lane < lanes; lane++) {
+			if (status[lane] == laneStatus.ordinal()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public LaneStatus getStatus(int lane) {
+		return STATUSES[status[lane]];
+	}
+
+	/**
+	 * @return the number of instructions fetched by the lane.
+	 */
+	public long getCycles(int lane) {
+		return cycles[lane];
+	}
+
+	public int getAcc(int lane) {
+		return acc[lane];
+	}
+
+	public int getSr(int lane) {
+		return sr[lane];
+	}
+
+	public int getPc(int lane) {
+		return pc[lane];
+	}
+
+	public int getIr(int lane) {
+		return ir[lane];
+	}
+
+	/**
+	 * @param lane number of the lane
+	 * @param i    number of the general purpose register
+	 * @return the value of the register
+	 */
+	public int getRegister(int lane, int i) {
+		return registers[(lane << GPR_SHIFT) + i];
+	}
+
+	/**
+	 * @param lane     number of the lane
+	 * @param location memory cell
+	 * @return the signed value of the cell
+	 */
+	public int getDataAt(int lane, int location) {
+		return memory[(lane << CELL_SHIFT) + location];
+	}
+
+	/**
+	 * @return the contents of the output port of the lane, as the
+	 * {@link RISCAR5Processor} writes them after each instruction.
+	 */
+	public String getOutput(int lane) {
+		char[] ar = new char[OUTPUT_SIZE];
+		for (int i = 0; i < OUTPUT_SIZE; i++) {
+			ar[i] = (char) memory[(lane << CELL_SHIFT) + OUTPUT_LOC + i];
+		}
+		return new String(ar);
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.memory.Memory;
+import org.risc.simulator.memory.Register;
+
+/**
+ * Exact detector of infinite loops.
+ * <br> The processor is deterministic, so reaching a state it was already in means it
+ * will repeat the same cycle forever. The detector is checked at taken branches and
+ * compares the complete machine state (general purpose registers, ACC, SR, PC and every
+ * memory cell) against one saved state, saving a new one each time the number of checks
+ * reaches the next power of two (Brent's cycle detection). A loop is found within about
+ * twice the number of branches it takes to enter it and go once around it, using
+ * constant memory.
+ * @author Victor J.
+ */
+class LoopDetector {
+
+	private final Register[] gpr;
+	private final Register acc, sr, pc;
+	private final Memory memory;
+	private final int[] saved;
+	private final int registers;
+	private boolean hasSaved;
+	private long power = 1, checks;
+
+	/**
+	 * @param gpr    the general purpose registers
+	 * @param acc    the accumulator
+	 * @param sr     the status register
+	 * @param pc     the program counter
+	 * @param memory the memory of the processor
+	 */
+	LoopDetector(Register[] gpr, Register acc, Register sr, Register pc, Memory memory) {
+		this.gpr = gpr;
+		this.acc = acc;
+		this.sr = sr;
+		this.pc = pc;
+		this.memory = memory;
+		registers = gpr.length + 3;
+		saved = new int[registers + Processor.MEMORY_SIZE];
+	}
+
+	/**
+	 * Compares the current state against the saved one.
+	 * @return true if the processor was already in this state
+	 */
+	boolean check() {
+		if (hasSaved && isSavedState()) {
+			return true;
+		}
+		checks++;
+		if (!hasSaved || checks == power) {
+			save();
+			power <<= 1;
+			checks = 0;
+			hasSaved = true;
+		}
+		return false;
+	}
+
+	private boolean isSavedState() {
+		//the registers change more often than the memory, so they are compared first
+		if (saved[0] != pc.getData() || saved[1] != acc.getData() || saved[2] != sr.getData()) {
+			return false;
+		}
+		for (int i = 0; i < gpr.length; i++) {
+			if (saved[3 + i] != gpr[i].getData()) {
+				return false;
+			}
+		}
+		for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+			if (saved[registers + i] != memory.getDataAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void save() {
+		saved[0] = pc.getData();
+		saved[1] = acc.getData();
+		saved[2] = sr.getData();
+		for (int i = 0; i < gpr.length; i++) {
+			saved[3 + i] = gpr[i].getData();
+		}
+		for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+			saved[registers + i] = memory.getDataAt(i);
+		}
+	}
+
+}
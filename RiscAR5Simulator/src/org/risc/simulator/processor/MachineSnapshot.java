@@ -0,0 +1,62 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.memory.MemorySnapshot;
+
+/**
+ * Checkpoint of the whole state of a processor: registers, memory, I/O ports, cycle count
+ * and whether it is running.
+ * <br> Taken with {@link Processor#snapshot()} and given back to {@link Processor#restore(MachineSnapshot)}
+ * as many times as needed, it never changes.
+ * @author Victor J.
+ */
+public final class MachineSnapshot {
+
+	private final int[] registers;
+	private final MemorySnapshot memory;
+	private final String input, output;
+	private final long cycles;
+	private final boolean running, trapped;
+
+	MachineSnapshot(int[] registers, MemorySnapshot memory, String input, String output, long cycles,
+	                boolean running, boolean trapped) {
+		this.registers = registers;
+		this.memory = memory;
+		this.input = input;
+		this.output = output;
+		this.cycles = cycles;
+		this.running = running;
+		this.trapped = trapped;
+	}
+
+	/**
+	 * @return the values of the register file, in the order the processor keeps them.
+	 */
+	int[] getRegisters() {
+		return registers;
+	}
+
+	public MemorySnapshot getMemory() {
+		return memory;
+	}
+
+	public String getInput() {
+		return input;
+	}
+
+	public String getOutput() {
+		return output;
+	}
+
+	public long getCycleCount() {
+		return cycles;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	boolean isTrapped() {
+		return trapped;
+	}
+
+}
@@ -0,0 +1,662 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.util.BitFields;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Removes the instructions of a program that can't change what it does, so it runs in fewer
+ * cycles and takes fewer words.
+ * <br> The branches jump to the address in R7, so the constants in the registers are followed
+ * through the whole program, starting with nothing known, to find every target. The live
+ * registers, flags and memory cells are then found going backwards. Two kinds of instructions
+ * are removed, each kind in its own round until no more can be removed:
+ * <ul>
+ * <li>Dead ones: nop, a branch to the next instruction, instructions never reached and
+ * instructions that only write registers, flags or memory cells that are written again before
+ * being read, like a store to a cell stored again later.</li>
+ * <li>Ones that leave everything as it was: a star to a register that already has the value of
+ * ACC, like the star after an ldar of the same register, an ldar of a register equal to ACC and
+ * an ldi of the constant ACC already has, like the ldi of the same address to R7 before each
+ * branch.</li>
+ * </ul>
+ * The constants loaded into R7 for the branches are then changed to the new addresses.
+ * <p>
+ * The output, the memory cells and the registers at the stop are the same as without the
+ * optimization, except for the code addresses loaded for the branches, which are relocated with
+ * the code. The flags are kept whenever they can be read later, including at the stop. The program
+ * is returned as it is when that can't be ensured: when it reads or writes its own words, when a
+ * branch target is not a constant loaded by the program or is outside of it, and when it can run
+ * past its last word.
+ * @author Victor J.
+ */
+public final class PeepholeOptimizer {
+
+	private static final int AND = 0, OR = 1, ADDC = 3, SUB = 4, MUL = 5, NEG = 6, NOT = 7, RLC = 8, RRC = 9,
+			LDAR = 10, STAR = 11, LDA = 12, STA = 13, LDI = 14, BRZ = 16, BRC = 17, BRN = 18, BRO = 19, NOP = 24;
+
+	/**
+	 * First cell of the I/O ports, the stores to the ports are never removed.
+	 */
+	private static final int IO_LOCATION = 250;
+
+	/**
+	 * Index of ACC among the values followed, after the general purpose registers.
+	 */
+	private static final int A = Processor.NUMBER_OF_GPR;
+	private static final int VALUES = A + 1;
+
+	/**
+	 * Bits of the live sets, the general purpose registers take the lowest ones.
+	 */
+	private static final int LIVE_ACC = 1 << A, ZERO = 1 << 9, CARRY = 1 << 10, NEGATIVE = 1 << 11,
+			OVERFLOW = 1 << 12;
+	private static final int FLAGS = ZERO | CARRY | NEGATIVE | OVERFLOW, ALL = (1 << 13) - 1;
+	private static final int MEMORY_WORDS = Processor.MEMORY_SIZE / Long.SIZE;
+	private static final int MAX_LENGTH = Processor.MEMORY_SIZE / Processor.PC_INCREMENT;
+
+	/**
+	 * What is known of the registers before an instruction, on every path that reaches it.
+	 */
+	private static class State {
+		final int[] values = new int[VALUES];
+		/**
+		 * Bit i is set when the value of register i is a known constant.
+		 */
+		int known;
+		/**
+		 * The ldi instructions whose constant can reach each register unchanged.
+		 */
+		final long[][] origins = new long[VALUES][(MAX_LENGTH + 63) / 64];
+		/**
+		 * Bit i is set when register i has the value of ACC.
+		 */
+		int equalToAcc;
+		/**
+		 * True when the zero and negative flags are the ones of the value of ACC.
+		 */
+		boolean flagsOfAcc;
+
+		State copy() {
+			State copy = new State();
+			System.arraycopy(values, 0, copy.values, 0, VALUES);
+			copy.known = known;
+			for (int i = 0; i < VALUES; i++) {
+				copy.origins[i] = origins[i].clone();
+			}
+			copy.equalToAcc = equalToAcc;
+			copy.flagsOfAcc = flagsOfAcc;
+			return copy;
+		}
+
+		/**
+		 * Keeps only what is also known in the other state.
+		 * @return true if this state changed.
+		 */
+		boolean merge(State other) {
+			boolean changed = false;
+			for (int i = 0; i < VALUES; i++) {
+				int bit = 1 << i;
+				if ((known & bit) != 0 && ((other.known & bit) == 0 || values[i] != other.values[i])) {
+					known &= ~bit;
+					changed = true;
+				}
+				for (int j = 0; j < origins[i].length; j++) {
+					long merged = origins[i][j] | other.origins[i][j];
+					changed |= merged != origins[i][j];
+					origins[i][j] = merged;
+				}
+			}
+			if ((equalToAcc & ~other.equalToAcc) != 0) {
+				equalToAcc &= other.equalToAcc;
+				changed = true;
+			}
+			if (flagsOfAcc && !other.flagsOfAcc) {
+				flagsOfAcc = false;
+				changed = true;
+			}
+			return changed;
+		}
+
+		boolean isKnown(int i) {
+			return (known & 1 << i) != 0;
+		}
+
+		/**
+		 * Copies the value of a register to another.
+		 */
+		void copy(int from, int to) {
+			values[to] = values[from];
+			known = (known & ~(1 << to)) | (known >> from & 1) << to;
+			origins[to] = origins[from].clone();
+		}
+
+		/**
+		 * Sets the value of a register to one that is not known.
+		 */
+		void unknown(int i) {
+			known &= ~(1 << i);
+			Arrays.fill(origins[i], 0);
+		}
+	}
+
+	/**
+	 * What the program does, found by the forward and backward passes.
+	 */
+	private static class Analysis {
+		final int[] words;
+		final int length;
+		final int[] opCodes, operands;
+		final State[] entries;
+		final int[][] successors;
+		final int[] liveOut;
+		final long[][] memoryLiveOut;
+		/**
+		 * The ldi instructions whose constant is used as a branch target and the ones whose
+		 * constant is used in any other way.
+		 */
+		final long[] addresses, data;
+
+		Analysis(int[] words) {
+			this.words = words;
+			length = words.length;
+			opCodes = new int[length];
+			operands = new int[length];
+			for (int i = 0; i < length; i++) {
+				int fields = InstructionFields.of(words[i]);
+				opCodes[i] = InstructionFields.opCode(fields);
+				if (opCodes[i] == LDA || opCodes[i] == STA) {
+					operands[i] = InstructionFields.operand(fields) & BitFields.OPERAND_MASK;
+				} else if (opCodes[i] == LDI) {
+					operands[i] = InstructionFields.operand(fields);
+				} else {
+					operands[i] = InstructionFields.register(fields);
+				}
+			}
+			entries = new State[length];
+			successors = new int[length][];
+			liveOut = new int[length];
+			memoryLiveOut = new long[length][MEMORY_WORDS];
+			addresses = new long[(MAX_LENGTH + 63) / 64];
+			data = new long[addresses.length];
+		}
+
+		/**
+		 * @return false if the program can't be optimized.
+		 */
+		boolean run() {
+			if (!propagate()) {
+				return false;
+			}
+			findLive();
+			findUses();
+			return true;
+		}
+
+		/**
+		 * Follows the known values forwards from the first instruction until nothing changes.
+		 */
+		private boolean propagate() {
+			entries[0] = new State();
+			int[] work = new int[length];
+			boolean[] queued = new boolean[length];
+			int size = 0;
+			work[size++] = 0;
+			queued[0] = true;
+			while (size > 0) {
+				int i = work[--size];
+				queued[i] = false;
+				State out = entries[i].copy();
+				if (!execute(i, out)) {
+					return false;
+				}
+				int[] next = next(i, entries[i]);
+				if (next == null) {
+					return false;
+				}
+				for (int s : next) {
+					if (entries[s] == null) {
+						entries[s] = out.copy();
+					} else if (!entries[s].merge(out)) {
+						continue;
+					}
+					if (!queued[s]) {
+						queued[s] = true;
+						work[size++] = s;
+					}
+				}
+			}
+			for (int i = 0; i < length; i++) {
+				if (entries[i] != null) {
+					successors[i] = next(i, entries[i]);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Changes the state like the instruction does.
+		 * @return false if the instruction accesses the words of the program.
+		 */
+		private boolean execute(int i, State state) {
+			int operand = operands[i];
+			switch (opCodes[i]) {
+				case LDAR:
+					state.copy(operand, A);
+					state.equalToAcc = (state.equalToAcc & 1 << operand) != 0 ? state.equalToAcc : 1 << operand;
+					state.flagsOfAcc = true;
+					break;
+				case STAR:
+					state.copy(A, operand);
+					state.equalToAcc |= 1 << operand;
+					break;
+				case LDA:
+				case STA:
+					if (operand < length * Processor.PC_INCREMENT) {
+						return false;
+					}
+					if (opCodes[i] == LDA) {
+						state.unknown(A);
+						state.equalToAcc = 0;
+						state.flagsOfAcc = true;
+					}
+					break;
+				case LDI:
+					state.values[A] = operand;
+					state.known |= 1 << A;
+					Arrays.fill(state.origins[A], 0);
+					set(state.origins[A], i);
+					state.equalToAcc = 0;
+					state.flagsOfAcc = true;
+					break;
+				case AND:
+				case OR:
+				case ADDC:
+				case SUB:
+				case MUL:
+				case NEG:
+				case NOT:
+				case RLC:
+				case RRC:
+					state.unknown(A);
+					state.equalToAcc = 0;
+					//a carry out of addc can leave a zero result without the zero flag
+					state.flagsOfAcc = opCodes[i] != ADDC;
+					break;
+				default:
+					break;
+			}
+			return true;
+		}
+
+		/**
+		 * @param state what is known before the instruction
+		 * @return the instructions that can follow, null if the program can leave its words.
+		 */
+		private int[] next(int i, State state) {
+			int opCode = opCodes[i];
+			if (opCode == Processor.STOP_INSTRUCTION) {
+				return new int[0];
+			}
+			if (i + 1 == length) {
+				return null;
+			}
+			if (opCode < BRZ || opCode > BRO) {
+				return new int[]{i + 1};
+			}
+			int target = state.values[7];
+			if (!state.isKnown(7) || target < 0 || target >= length * Processor.PC_INCREMENT
+					|| target % Processor.PC_INCREMENT != 0) {
+				return null;
+			}
+			return new int[]{i + 1, target / Processor.PC_INCREMENT};
+		}
+
+		/**
+		 * Finds the registers, flags and memory cells live after each instruction, going
+		 * backwards until nothing changes. Everything is live after the stop, it can be read
+		 * once the program is done.
+		 */
+		private void findLive() {
+			long[] memory = new long[MEMORY_WORDS], in = new long[MEMORY_WORDS];
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (int i = length - 1; i >= 0; i--) {
+					if (entries[i] == null) {
+						continue;
+					}
+					int live = 0;
+					Arrays.fill(memory, opCodes[i] == Processor.STOP_INSTRUCTION ? -1L : 0);
+					if (opCodes[i] == Processor.STOP_INSTRUCTION) {
+						live = ALL;
+					}
+					for (int s : successors[i]) {
+						live |= liveIn(s, in);
+						for (int w = 0; w < MEMORY_WORDS; w++) {
+							memory[w] |= in[w];
+						}
+					}
+					if (live != liveOut[i] || !Arrays.equals(memory, memoryLiveOut[i])) {
+						liveOut[i] = live;
+						System.arraycopy(memory, 0, memoryLiveOut[i], 0, MEMORY_WORDS);
+						changed = true;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @param memory where the memory cells live before the instruction are written
+		 * @return the registers and flags live before the instruction.
+		 */
+		private int liveIn(int i, long[] memory) {
+			int live = liveOut[i];
+			int operand = operands[i];
+			System.arraycopy(memoryLiveOut[i], 0, memory, 0, MEMORY_WORDS);
+			switch (opCodes[i]) {
+				case AND:
+				case OR:
+				case SUB:
+				case MUL:
+					return live & ~(LIVE_ACC | FLAGS) | LIVE_ACC | 1 << operand;
+				case ADDC:
+					return live & ~(LIVE_ACC | FLAGS) | LIVE_ACC | 1 << operand | CARRY;
+				case NEG:
+				case NOT:
+					return live & ~(LIVE_ACC | FLAGS) | LIVE_ACC;
+				case RLC:
+				case RRC:
+					return live & ~(LIVE_ACC | FLAGS) | LIVE_ACC | CARRY;
+				case LDAR:
+					return live & ~(LIVE_ACC | ZERO | NEGATIVE) | 1 << operand;
+				case STAR:
+					return live & ~(1 << operand) | LIVE_ACC;
+				case LDA:
+					memory[operand >> 6] |= 1L << operand;
+					return live & ~(LIVE_ACC | ZERO | NEGATIVE);
+				case STA:
+					if (operand < IO_LOCATION) {//the ports are always live
+						memory[operand >> 6] &= ~(1L << operand);
+					}
+					return live | LIVE_ACC;
+				case LDI:
+					return live & ~(LIVE_ACC | ZERO | NEGATIVE);
+				case BRZ:
+					return live | 1 << 7 | ZERO;
+				case BRC:
+					return live | 1 << 7 | CARRY;
+				case BRN:
+					return live | 1 << 7 | NEGATIVE;
+				case BRO:
+					return live | 1 << 7 | OVERFLOW;
+				default:
+					return live;
+			}
+		}
+
+		/**
+		 * Finds which ldi constants are used as branch targets and which in any other way.
+		 */
+		private void findUses() {
+			for (int i = 0; i < length; i++) {
+				State state = entries[i];
+				if (state == null) {
+					continue;
+				}
+				int operand = operands[i];
+				switch (opCodes[i]) {
+					case AND:
+					case OR:
+					case ADDC:
+					case SUB:
+					case MUL:
+						or(data, state.origins[operand]);
+						or(data, state.origins[A]);
+						break;
+					case NEG:
+					case NOT:
+					case RLC:
+					case RRC:
+					case STA:
+						or(data, state.origins[A]);
+						break;
+					case LDAR:
+						if ((liveOut[i] & (ZERO | NEGATIVE)) != 0) {//the flags depend on the value
+							or(data, state.origins[operand]);
+						}
+						break;
+					case LDI:
+						if ((liveOut[i] & (ZERO | NEGATIVE)) != 0) {
+							set(data, i);
+						}
+						break;
+					case BRZ:
+					case BRC:
+					case BRN:
+					case BRO:
+						or(addresses, state.origins[7]);
+						break;
+					default:
+						break;
+				}
+			}
+		}
+
+		boolean isReached(int i) {
+			return entries[i] != null;
+		}
+
+		/**
+		 * @return true if the instruction can be removed because nothing reads what it writes.
+		 */
+		boolean isDead(int i) {
+			if (!isReached(i)) {
+				return true;
+			}
+			int live = liveOut[i];
+			int operand = operands[i];
+			switch (opCodes[i]) {
+				case NOP:
+					return true;
+				case BRZ:
+				case BRC:
+				case BRN:
+				case BRO:
+					return successors[i][1] == i + 1;
+				case AND:
+				case OR:
+				case ADDC:
+				case SUB:
+				case MUL:
+				case NEG:
+				case NOT:
+				case RLC:
+				case RRC:
+					return (live & (LIVE_ACC | FLAGS)) == 0;
+				case LDAR:
+				case LDA:
+				case LDI:
+					return (live & (LIVE_ACC | ZERO | NEGATIVE)) == 0;
+				case STAR:
+					return (live & 1 << operand) == 0;
+				case STA:
+					return operand < IO_LOCATION && !isLive(memoryLiveOut[i], operand);
+				default:
+					return false;
+			}
+		}
+
+		/**
+		 * @return true if the instruction can be removed because it leaves everything as it was.
+		 */
+		boolean isIdentity(int i) {
+			if (!isReached(i)) {
+				return false;
+			}
+			State state = entries[i];
+			int operand = operands[i];
+			switch (opCodes[i]) {
+				case LDI:
+					long[] self = new long[addresses.length];
+					set(self, i);
+					return state.isKnown(A) && state.values[A] == operand && state.flagsOfAcc
+							&& isCompatible(state.origins[A], self);
+				case LDAR:
+					return state.flagsOfAcc && isEqualToAcc(state, operand);
+				case STAR:
+					return isEqualToAcc(state, operand);
+				default:
+					return false;
+			}
+		}
+
+		private boolean isEqualToAcc(State state, int register) {
+			boolean equal = (state.equalToAcc & 1 << register) != 0 || state.isKnown(A) && state.isKnown(register)
+					&& state.values[A] == state.values[register];
+			return equal && isCompatible(state.origins[A], state.origins[register]);
+		}
+
+		/**
+		 * Two values can replace each other if the relocation changes both or neither of them.
+		 */
+		private boolean isCompatible(long[] a, long[] b) {
+			boolean address = false, other = false;
+			for (int j = 0; j < addresses.length; j++) {
+				long origins = a[j] | b[j];
+				address |= (origins & addresses[j]) != 0;
+				other |= (origins & ~addresses[j]) != 0 || (origins & data[j]) != 0;
+			}
+			return !address || !other;
+		}
+
+		/**
+		 * @return the first instruction that can be removed without moving a target whose
+		 * constant is also used as data, which can't be relocated.
+		 */
+		int firstMovable() {
+			int first = 0;
+			for (int i = 0; i < length; i++) {
+				if (isSet(addresses, i) && isSet(data, i)) {
+					first = Math.max(first, operands[i] / Processor.PC_INCREMENT);
+				}
+			}
+			return first;
+		}
+	}
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private PeepholeOptimizer() {
+	}
+
+	/**
+	 * @param image program to optimize
+	 * @return a new image without the instructions removed, or the same image if none can be removed.
+	 */
+	public static ProgramImage optimize(ProgramImage image) {
+		if (image.size() == 0 || image.size() > MAX_LENGTH) {
+			return image;
+		}
+		int[] words = new int[image.size()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = image.getWord(i);
+		}
+		int[] optimized = words;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int round = 0; round < 2; round++) {
+				Analysis analysis = new Analysis(optimized);
+				if (!analysis.run()) {
+					break;
+				}
+				int[] removed = remove(analysis, round == 0);
+				if (removed != null) {
+					optimized = removed;
+					changed = true;
+				}
+			}
+		}
+		if (optimized == words) {
+			return image;
+		}
+		ProgramImage result = new ProgramImage(optimized.length);
+		for (int word : optimized) {
+			result.add(word);
+		}
+		return result;
+	}
+
+	/**
+	 * @param instructions program to optimize
+	 * @return the instructions that are kept, with the branch targets relocated.
+	 */
+	public static List<Instruction> optimize(List<Instruction> instructions) {
+		ProgramImage image = ProgramImage.of(instructions);
+		ProgramImage optimized = optimize(image);
+		return optimized == image ? instructions : optimized.toInstructions();
+	}
+
+	/**
+	 * Removes the dead instructions or the ones that leave everything as it was, never both
+	 * kinds at once: an instruction found dead because the next one writes the same register
+	 * can be what makes the next one leave everything as it was.
+	 * @return the words kept with the branch targets relocated, null if none can be removed.
+	 */
+	private static int[] remove(Analysis analysis, boolean dead) {
+		int length = analysis.length;
+		boolean[] removed = new boolean[length];
+		boolean any = false;
+		for (int i = analysis.firstMovable(); i < length; i++) {
+			removed[i] = dead ? analysis.isDead(i) : analysis.isIdentity(i);
+			any |= removed[i];
+		}
+		if (!any) {
+			return null;
+		}
+		//new index of each instruction, a removed one is replaced by the next one kept
+		int[] moved = new int[length];
+		int kept = 0;
+		for (int i = 0; i < length; i++) {
+			moved[i] = kept;
+			if (!removed[i]) {
+				kept++;
+			}
+		}
+		int[] words = new int[kept];
+		for (int i = 0; i < length; i++) {
+			if (removed[i]) {
+				continue;
+			}
+			int word = analysis.words[i];
+			if (isSet(analysis.addresses, i)) {
+				int target = moved[analysis.operands[i] / Processor.PC_INCREMENT] * Processor.PC_INCREMENT;
+				word = word & ~BitFields.OPERAND_MASK | target & BitFields.OPERAND_MASK;
+			}
+			words[moved[i]] = word;
+		}
+		return words;
+	}
+
+	private static boolean isLive(long[] memory, int address) {
+		return (memory[address >> 6] & 1L << address) != 0;
+	}
+
+	private static void set(long[] bits, int i) {
+		bits[i >> 6] |= 1L << i;
+	}
+
+	private static boolean isSet(long[] bits, int i) {
+		return (bits[i >> 6] & 1L << i) != 0;
+	}
+
+	private static void or(long[] bits, long[] other) {
+		for (int j = 0; j < bits.length; j++) {
+			bits[j] |= other[j];
+		}
+	}
+
+}
@@ -131,6 +131,14 @@ public interface Processor {
 	 */
 	public void run();
 
+	/**
+	 * Method used to fetch, decode, execute the instructions until the processor stops or
+	 * one of the limits is reached.
+	 * @param limits The cycle budget, deadline and loop detection of this run.
+	 * @return How the run ended.
+	 */
+	public RunStatus run(RunLimits limits);
+
 	/**
 	 * Get the values from memory ranges 250-251 in processor instance.
 	 * @return The values corresponding to locations 250-251 in memory.
@@ -150,4 +158,16 @@ public interface Processor {
 	 */
 	public void init(List<Instruction> instructions);
 
+	/**
+	 * Takes a checkpoint of the state of this processor.
+	 * @return The registers, memory and I/O ports of this processor.
+	 */
+	public MachineSnapshot snapshot();
+
+	/**
+	 * Gives this processor back the exact state it had when the snapshot was taken.
+	 * @param snapshot A checkpoint taken from this processor.
+	 */
+	public void restore(MachineSnapshot snapshot);
+
 }
\ No newline at end of file
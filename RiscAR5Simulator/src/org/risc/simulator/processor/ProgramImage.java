@@ -0,0 +1,102 @@
+package org.risc.simulator.processor;
+
+import org.risc.simulator.util.BitFields;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The words of a program in the order they are loaded to memory, kept in a growable
+ * short array so no object is made per instruction.
+ * <br> {@link Instruction} objects are only made when they are asked for, with
+ * {@link #getInstruction(int)} or {@link #toInstructions()}.
+ * @author Victor J.
+ */
+public class ProgramImage {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private short[] words;
+	private int size;
+
+	public ProgramImage() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity number of words that can be added before the image grows
+	 */
+	public ProgramImage(int capacity) {
+		words = new short[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * @return an image with the words of the instructions.
+	 */
+	public static ProgramImage of(List<Instruction> instructions) {
+		ProgramImage image = new ProgramImage(instructions.size());
+		for (Instruction instruction : instructions) {
+			image.add(instruction.getInstruction());
+		}
+		return image;
+	}
+
+	/**
+	 * Adds a word after the last one.
+	 * @param word 16 bit instruction word
+	 * @throws IllegalArgumentException if the opcode of the word is not a valid one
+	 */
+	public void add(int word) {
+		if (!Instruction.isOpCodeValid(BitFields.opCode(word))) {
+			throw new IllegalArgumentException("Invalid instruction " + Integer.toHexString(word & 0xFFFF));
+		}
+		if (size == words.length) {
+			words = Arrays.copyOf(words, size * 2);
+		}
+		words[size++] = (short) word;
+	}
+
+	/**
+	 * @return the number of words.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the word at the index, as an unsigned 16 bit value.
+	 */
+	public int getWord(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " of " + size + " words");
+		}
+		return words[index] & 0xFFFF;
+	}
+
+	/**
+	 * @return a new instruction with the word at the index.
+	 */
+	public Instruction getInstruction(int index) {
+		return Instruction.ofWord(getWord(index));
+	}
+
+	/**
+	 * @return a new instruction for every word.
+	 */
+	public List<Instruction> toInstructions() {
+		List<Instruction> instructions = new ArrayList<Instruction>(size);
+		for (int i = 0; i < size; i++) {
+			instructions.add(Instruction.ofWord(words[i] & 0xFFFF));
+		}
+		return instructions;
+	}
+
+	/**
+	 * @return a copy of the words.
+	 */
+	public short[] toArray() {
+		return Arrays.copyOf(words, size);
+	}
+
+}
@@ -1,19 +1,26 @@
 package org.risc.simulator.processor;
 
 import org.risc.simulator.instructionSet.ArithmeticLogic;
+import org.risc.simulator.instructionSet.FlagTables;
 import org.risc.simulator.instructionSet.LoadStore;
 import org.risc.simulator.instructionSet.ProgramFlow;
 import org.risc.simulator.io.IOChannel;
-import org.risc.simulator.memory.ArrayListMemory;
+import org.risc.simulator.memory.ByteArrayMemory;
 import org.risc.simulator.memory.Memory;
+import org.risc.simulator.memory.MemorySnapshot;
 import org.risc.simulator.memory.Register;
+import org.risc.simulator.memory.RegisterFile;
 import org.risc.simulator.memory.StatusRegister;
+import org.risc.simulator.trace.TraceFormat;
+import org.risc.simulator.trace.TraceWriter;
 import org.risc.simulator.util.NumberUtils;
+import org.risc.simulator.util.RangePolicy;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class RISCAR5Processor implements Processor {
 
@@ -23,31 +30,82 @@ public class RISCAR5Processor implements Processor {
 	private static final int LOAD_LOCATION = 0;
 	private Register acc, ir, pc;
 	private boolean run = true;
+	private long cycles;
 	private List<Instruction> instructionList;
+	private ProgramImage image;
+	private DecodeCache decodeCache;
+	private BlockTranslator translator;
+	private Register[] gpr;
+	private int[] values;
 	private IOChannel in, out;
 	private static final int INPUT_LOC = 250, OUTPUT_LOC = 252;
 	private static final int INPUT_SIZE = 2, OUTPUT_SIZE = 4;
-
+	private static final int DEADLINE_CHECK_INTERVAL = 4096;
+	/**
+	 * Slots of the special registers in the register file, after the general purpose ones.
+	 */
+	private static final int ACC_INDEX = NUMBER_OF_GPR, SR_INDEX = ACC_INDEX + 1, PC_INDEX = SR_INDEX + 1,
+			IR_INDEX = PC_INDEX + 1;
+	private static final int ZERO = 8, CARRY = 4, NEGATIVE = 2, OVERFLOW = 1;
+	private final char[] outputData = new char[OUTPUT_SIZE];
+	private boolean inputStale = true, outputStale = true;
+	/**
+	 * False until the ports are copied for the first time after a program is loaded.
+	 */
+	private boolean portsCopied;
+	private int inputModificationCount;
+	private RangePolicy rangePolicy = RangePolicy.THROW;
+	private boolean trapped;
+	private ExecutionHistory history;
+	private TraceWriter trace;
+	private Breakpoints breakpoints;
+	/**
+	 * Location of the breakpoint the last run stopped at, which the next run steps over.
+	 */
+	private int breakAt = NO_HIT;
+	private int watchHit = NO_HIT;
+	private static final int NO_HIT = -1;
+
+	/**
+	 * Creates a processor backed by a {@link ByteArrayMemory}.
+	 */
 	public RISCAR5Processor() {
-		initComponents();
+		this(new ByteArrayMemory(MEMORY_SIZE));
 	}
 
-	private void initComponents() {
-		acc = new Register(ACC, REGISTER_WIDTH);
-		sr = new StatusRegister(SR);
-		pc = new Register(PC, REGISTER_WIDTH);
-		ir = new Register(IR, IR_SIZE);
+	/**
+	 * Creates a processor backed by the given memory.
+	 * @param memory memory of {@link Processor#MEMORY_SIZE} cells of {@link Processor#MEMORY_CELL_SIZE} bits
+	 * @throws IllegalArgumentException if the memory cells are not {@link Processor#MEMORY_CELL_SIZE} bits wide
+	 */
+	public RISCAR5Processor(Memory memory) {
+		if (memory.getCellSize() != MEMORY_CELL_SIZE) {
+			throw new IllegalArgumentException("Memory cells must be " + MEMORY_CELL_SIZE + " bits wide");
+		}
+		initComponents(memory);
+	}
+
+	private void initComponents(Memory memory) {
+		RegisterFile registerFile = new RegisterFile(IR_INDEX + 1);
+		acc = registerFile.add(ACC_INDEX, ACC, REGISTER_WIDTH);
+		sr = registerFile.addStatusRegister(SR_INDEX, SR);
+		pc = registerFile.add(PC_INDEX, PC, REGISTER_WIDTH);
+		ir = registerFile.add(IR_INDEX, IR, IR_SIZE);
+		values = registerFile.getValues();
 		registers = new HashMap<String, Register>(NUMBER_OF_GPR + 4);
 
+		gpr = new Register[NUMBER_OF_GPR];
 		for (int i = 0; i < NUMBER_OF_GPR; i++) {
 			String name = GPR_PREFIX + i;
-			registers.put(name, new Register(name, REGISTER_WIDTH));
+			gpr[i] = registerFile.add(i, name, REGISTER_WIDTH);
+			registers.put(name, gpr[i]);
 		}
 		registers.put(ir.getName(), ir);
 		registers.put(acc.getName(), acc);
 		registers.put(sr.getName(), sr);
 		registers.put(pc.getName(), pc);
-		memory = new ArrayListMemory(MEMORY_SIZE, MEMORY_CELL_SIZE);
+		this.memory = memory;
+		decodeCache = new DecodeCache(MEMORY_SIZE);
 		in = new IOChannel(INPUT_SIZE);
 		out = new IOChannel(OUTPUT_SIZE);
 	}
@@ -71,118 +129,482 @@ public class RISCAR5Processor implements Processor {
 
 	@Override
 	public void step() {
+		watchHit = NO_HIT;
 		fetchDecodeExecute();
 	}
 
 	@Override
 	public void run() {
+		run(RunLimits.NONE);
+	}
+
+	@Override
+	public RunStatus run(RunLimits limits) {
+		long cycleLimit = limits.getMaxCycles() == RunLimits.NO_LIMIT ? Long.MAX_VALUE : cycles + limits.getMaxCycles();
+		boolean hasDeadline = limits.getTimeoutMillis() != RunLimits.NO_LIMIT;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.getTimeoutMillis());
+		long nextDeadlineCheck = cycles + DEADLINE_CHECK_INTERVAL;
+		LoopDetector detector = limits.isLoopDetection() ? new LoopDetector(gpr, acc, sr, pc, memory) : null;
+		Breakpoints active = breakpoints == null || breakpoints.isEmpty() ? null : breakpoints;
+
 		while (run) {
-			fetchDecodeExecute();
+			if (cycles >= cycleLimit) {
+				return RunStatus.CYCLE_LIMIT;
+			}
+			if (hasDeadline && cycles >= nextDeadlineCheck) {
+				if (System.nanoTime() - deadline >= 0) {
+					return RunStatus.DEADLINE;
+				}
+				nextDeadlineCheck = cycles + DEADLINE_CHECK_INTERVAL;
+			}
+
+			int location = pc.getData();
+			if (active != null) {
+				if (location != breakAt && active.shouldBreak(location, this)) {
+					breakAt = location;
+					return RunStatus.BREAKPOINT;
+				}
+				breakAt = NO_HIT;
+				watchHit = NO_HIT;
+			}
+			int next = location + PC_INCREMENT;
+			TranslatedBlock block = translator == null || history != null || trace != null || active != null
+					? null : translator.lookup(location);
+			if (block != null && cycles + block.getLength() <= cycleLimit) {
+				//the loop detector checks the state after every block
+				next = execute(block, detector != null ? cycles
+						: hasDeadline ? Math.min(cycleLimit, nextDeadlineCheck) : cycleLimit);
+			} else {
+				fetchDecodeExecute();
+			}
+			if (active != null && watchHit != NO_HIT) {
+				return RunStatus.WATCHPOINT;
+			}
+
+			//only a taken branch can bring the processor back to a previous state
+			if (detector != null && run && pc.getData() != next && detector.check()) {
+				return RunStatus.NON_TERMINATING;
+			}
 		}
+		return trapped ? RunStatus.TRAPPED : RunStatus.STOPPED;
 	}
 
-	private void fetchDecodeExecute() {
-		//fetch
-		int location = pc.getData();
-		Instruction instruction = new Instruction(memory.getDataAt(location,
-				PC_INCREMENT));
+	/**
+	 * Sets what happens when the PC leaves the memory or a register is given a value
+	 * that doesn't fit in it.
+	 * <ul>
+	 * <li>{@link RangePolicy#THROW}, the default, throws a runtime exception.</li>
+	 * <li>{@link RangePolicy#WRAP} wraps the PC around the memory, the word at the last
+	 * cell continues in the first one.</li>
+	 * <li>{@link RangePolicy#SATURATE} keeps the PC at the last cell, a fetch from outside
+	 * the memory traps.</li>
+	 * <li>{@link RangePolicy#TRAP} stops the processor, see {@link #isTrapped()}.</li>
+	 * </ul>
+	 * @param rangePolicy policy applied to every register and to the fetch
+	 */
+	public void setRangePolicy(RangePolicy rangePolicy) {
+		this.rangePolicy = rangePolicy;
+		for (Register register : registers.values()) {
+			register.setRangePolicy(rangePolicy);
+		}
+	}
+
+	public RangePolicy getRangePolicy() {
+		return rangePolicy;
+	}
+
+	/**
+	 * @return true if the processor was stopped because the PC left the memory.
+	 */
+	public boolean isTrapped() {
+		return trapped;
+	}
+
+	private void trap() {
+		trapped = true;
+		run = false;
+	}
 
-		location += PC_INCREMENT;
-		pc.setData(location);
-		ir.setData(instruction.getInstruction());
+	/**
+	 * Enables or disables the block execution tier used by {@link #run()}.
+	 * <br> When enabled, straight line runs of instructions that are executed often are
+	 * translated and then executed as a whole directly on the register file.
+	 * {@link #step()} always uses the interpreter.
+	 * @param enabled true to translate hot blocks
+	 */
+	public void setTranslationEnabled(boolean enabled) {
+		if (enabled && translator == null) {
+			translator = new BlockTranslator(decodeCache, memory, INPUT_LOC);
+		} else if (!enabled) {
+			translator = null;
+		}
+	}
 
+	public boolean isTranslationEnabled() {
+		return translator != null;
+	}
+
+	/**
+	 * @return the number of blocks translated, 0 without translation.
+	 */
+	int getTranslatedBlockCount() {
+		return translator == null ? 0 : translator.size();
+	}
+
+	/**
+	 * Executes a translated block and the translated blocks that follow it, keeping
+	 * ACC and SR in locals until the chain ends. The result is the same as interpreting
+	 * each of their instructions.
+	 * <br> The chain ends at the stop instruction, before a location that isn't translated
+	 * and before a block that would go past the given number of cycles. Blocks don't
+	 * access the I/O cells, so the ports are only copied once before the first block.
+	 * @param block      first block to execute
+	 * @param cycleLimit number of cycles the blocks after the first one can't go past
+	 * @return the location after the last instruction executed, where execution
+	 * continues unless it branches.
+	 */
+	private int execute(TranslatedBlock block, long cycleLimit) {
+		int[] r = values;
+		for (int i = 0; i <= ACC_INDEX; i++) {
+			if (r[i] != (byte) r[i]) {//only byte values are handled by the block tier
+				int location = r[PC_INDEX];
+				fetchDecodeExecute();
+				return location + PC_INCREMENT;
+			}
+		}
 		updateDataFromPorts();
 
-		if (!instruction.isValid()) {
+		//every value written below is a byte, so the registers are only checked once
+		int a = r[ACC_INDEX];
+		int flags = r[SR_INDEX];
+		long executed = cycles;
+		int end, next;
+		do {
+			int length = block.getLength();
+			int[] opCodes = block.getOpCodes();
+			int[] operands = block.getOperands();
+			end = block.getEnd();
+			next = end;
+			executed += length;
+			for (int i = 0; i < length; i++) {
+				int operand = operands[i];
+				int entry;
+				switch (opCodes[i]) {
+					case 0: // AND
+						entry = FlagTables.and(a, r[operand]);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 1: // OR
+						entry = FlagTables.or(a, r[operand]);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 3: // ADDC
+						entry = FlagTables.addC(a, r[operand], flags >> 2 & 1);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 4: // SUB
+						entry = FlagTables.sub(a, r[operand]);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 5: // MUL
+						entry = FlagTables.mul(a, r[operand]);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 6: // NEG
+						entry = FlagTables.neg(a);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 7: // NOT
+						entry = FlagTables.not(a);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 8: // RLC
+						entry = FlagTables.rlc(a, flags >> 2 & 1);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 9: // RRC
+						entry = FlagTables.rrc(a, flags >> 2 & 1);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 10: // LDA R
+						entry = FlagTables.load(r[operand], flags);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 11: // STA R
+						r[operand] = a;
+						break;
+					case 12: // LDA A
+						entry = FlagTables.load(memory.getDataAt(operand), flags);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 13: // STA A
+						memory.setDataAt(operand, a);
+						stored(operand);
+						break;
+					case 14: // LDI
+						entry = FlagTables.load(operand, flags);
+						a = FlagTables.result(entry);
+						flags = FlagTables.flags(entry);
+						break;
+					case 16: // BRZ
+						if ((flags & ZERO) != 0) {
+							next = r[7];
+						}
+						break;
+					case 17: // BRC
+						if ((flags & CARRY) != 0) {
+							next = r[7];
+						}
+						break;
+					case 18: // BRN
+						if ((flags & NEGATIVE) != 0) {
+							next = r[7];
+						}
+						break;
+					case 19: // BRO
+						if ((flags & OVERFLOW) != 0) {
+							next = r[7];
+						}
+						break;
+					case 31: // STOP
+						ProgramFlow.stop(this);
+						break;
+					default: // NOP
+						break;
+				}
+			}
+			r[IR_INDEX] = block.getWords()[length - 1];
+			block = run ? translator.get(next) : null;
+		} while (block != null && executed + block.getLength() <= cycleLimit);
+
+		r[ACC_INDEX] = a;
+		r[SR_INDEX] = flags;
+		r[PC_INDEX] = next;
+		cycles = executed;
+		return end;
+	}
+
+	private void fetchDecodeExecute() {
+		//fetch, decoding only the locations that are not in the cache
+		cycles++;
+		int location = values[PC_INDEX];
+		if (location < 0 || location >= MEMORY_SIZE - 1) {//the word is not in memory
+			if (rangePolicy == RangePolicy.WRAP) {
+				location = NumberUtils.wrapToBits(location, REGISTER_WIDTH);
+				if (location == MEMORY_SIZE - 1) {//not cached, a store to the first cell doesn't invalidate it
+					decodeCache.decode(location, memory.getDataAt(location) << MEMORY_CELL_SIZE
+							| memory.getDataAt(0) & 0xFF);
+				}
+			} else if (rangePolicy != RangePolicy.THROW) {
+				trap();
+				return;
+			}
+		}
+		if (!decodeCache.isDecoded(location)) {
+			decodeCache.decode(location, memory.getDataAt(location, PC_INCREMENT));
+		}
+		int word = decodeCache.getWord(location);
+		int opCode = decodeCache.getOpCode(location);
+		int operand = decodeCache.getOperand(location);
+		byte mode = decodeCache.getMode(location);
+
+		if (pc.trySetData(location + PC_INCREMENT) == RangePolicy.TRAPPED) {
+			if (rangePolicy == RangePolicy.THROW) {
+				pc.setData(location + PC_INCREMENT);
+			}
+			trap();
 			return;
 		}
-
-		//get the opcode and select an addressing mode
-		//decode and execute
-		int opCode = instruction.getOpCode();
-		if (opCode >= 6 && opCode <= 9 || opCode >= 16 && opCode <= 19
-				|| opCode == 24 || opCode == 31)
-			implicit(instruction);
-		else if (opCode >= 0 && opCode <= 1 || opCode >= 3 && opCode <= 5
-				|| opCode >= 10 && opCode <= 11)
-			registerDirect(instruction);
-		else if (opCode >= 12 && opCode <= 13)
-			direct(instruction);
-		else if (opCode == 14)
-			immediate(instruction);
+		if (history != null) {
+			record(location, opCode, mode, operand);
+		}
+		values[IR_INDEX] = word;
 
 		updateDataFromPorts();
+
+		if (mode != DecodeCache.INVALID) {
+			//execute using the addressing mode selected at decode time
+			switch (mode) {
+				case DecodeCache.IMPLICIT:
+					implicit(opCode);
+					break;
+				case DecodeCache.REGISTER_DIRECT:
+					registerDirect(opCode, operand);
+					break;
+				case DecodeCache.DIRECT:
+					direct(opCode, operand);
+					break;
+				case DecodeCache.IMMEDIATE:
+					immediate(opCode, operand);
+					break;
+				default:
+					break;
+			}
+
+			updateDataFromPorts();
+		}
+
+		if (trace != null) {
+			trace(location, opCode, mode, operand);
+		}
 	}
 
-	private void updateDataFromPorts() {
-		String data = in.readString();
-		for (int i = 0; i < data.length(); i++) {
-			memory.setDataAt(INPUT_LOC + i, (int) data.charAt(i));
+	/**
+	 * Writes the state after the instruction to the trace.
+	 */
+	private void trace(int location, int opCode, byte mode, int operand) {
+		int kind = TraceFormat.NO_WRITE, index = 0, value = 0;
+		if (opCode == 11 && mode == DecodeCache.REGISTER_DIRECT) {
+			kind = TraceFormat.REGISTER_WRITE;
+			index = operand;
+			value = values[operand];
+		} else if (opCode == 13 && mode == DecodeCache.DIRECT) {
+			kind = TraceFormat.MEMORY_WRITE;
+			index = operand;
+			value = memory.getDataAt(operand);
 		}
+		trace.record(cycles, location, values[IR_INDEX], values[ACC_INDEX], values[SR_INDEX], kind, index, value);
+	}
+
+	/**
+	 * Writes a record of every cycle executed from now on to the trace. While tracing,
+	 * {@link #run()} doesn't use the block execution tier.
+	 * @param trace where to write the cycles, null to stop tracing. The caller closes it.
+	 */
+	public void setTraceWriter(TraceWriter trace) {
+		this.trace = trace;
+	}
 
-		char[] ar = new char[OUTPUT_SIZE];
-		for (int i = 0; i < OUTPUT_SIZE; i++) {
-			ar[i] = (char) memory.getDataAt(OUTPUT_LOC + i);
+	public TraceWriter getTraceWriter() {
+		return trace;
+	}
+
+	/**
+	 * Copies the input port to memory and the memory to the output port. Each side is
+	 * only copied when it changed: the host wrote the input port, a program stored to
+	 * the port cells or a program was loaded.
+	 */
+	private void updateDataFromPorts() {
+		int modificationCount = in.getModificationCount();
+		if (inputStale || modificationCount != inputModificationCount) {
+			inputStale = false;
+			inputModificationCount = modificationCount;
+			for (int i = 0; i < in.length(); i++) {
+				memory.setDataAt(INPUT_LOC + i, (int) in.charAt(i));
+				decodeCache.invalidate(INPUT_LOC + i);
+				if (translator != null) {
+					translator.invalidate(INPUT_LOC + i);
+				}
+			}
 		}
 
-		out.write(new String(ar));
+		if (outputStale) {
+			outputStale = false;
+			for (int i = 0; i < OUTPUT_SIZE; i++) {
+				outputData[i] = (char) memory.getDataAt(OUTPUT_LOC + i);
+			}
+			out.write(outputData);
+		}
+		portsCopied = true;
+	}
 
+	/**
+	 * Drops everything that depends on the memory cell at the given location after a store.
+	 */
+	private void stored(int address) {
+		decodeCache.invalidate(address);
+		if (translator != null) {
+			translator.invalidate(address);
+		}
+		if (address >= INPUT_LOC && address < INPUT_LOC + INPUT_SIZE) {
+			inputStale = true;
+		} else if (address >= OUTPUT_LOC && address < OUTPUT_LOC + OUTPUT_SIZE) {
+			outputStale = true;
+		}
 	}
 
-	private void immediate(Instruction instruction) {
-		int operand = instruction.getOperand(8, 15);
-		switch (instruction.getOpCode()) {
+	private void immediate(int opCode, int operand) {
+		switch (opCode) {
 			case 14:
-				LoadStore.ldaI(acc, operand, sr);
+				load(operand);
 				break;
 			default:
 				break;
 		}
 	}
 
-	private void direct(Instruction instruction) {
-		int address = instruction.getOperand(8, 15);
-		if (address < 0) {
-			address = MEMORY_SIZE + address;
+	private void direct(int opCode, int address) {
+		if (breakpoints != null && breakpoints.isWatched(address, opCode == 13 ? Breakpoints.WRITE : Breakpoints.READ)) {
+			watchHit = address;
 		}
-		switch (instruction.getOpCode()) {
+		switch (opCode) {
 			case 12:
 				LoadStore.ldaA(acc, memory, address, sr);
 				break;
 			case 13:
 				LoadStore.staA(acc, memory, address);
+				stored(address);
 				break;
 			default:
 				break;
 		}
 	}
 
-	private void implicit(Instruction instruction) {
-		Register r7 = registers.get(GPR_PREFIX + 7);
-		switch (instruction.getOpCode()) {
+	private void implicit(int opCode) {
+		int[] r = values;
+		int a = r[ACC_INDEX];
+		int carry = r[SR_INDEX] >> 2 & 1;
+		switch (opCode) {
 			case 6:
-				ArithmeticLogic.neg(acc, sr);
+				if (a == (byte) a) {
+					apply(FlagTables.neg(a));
+				} else {
+					ArithmeticLogic.neg(acc, sr);
+				}
 				break;
 			case 7:
-				ArithmeticLogic.not(acc, sr);
+				if (a == (byte) a) {
+					apply(FlagTables.not(a));
+				} else {
+					ArithmeticLogic.not(acc, sr);
+				}
 				break;
 			case 8:
-				ArithmeticLogic.rlc(acc, sr);
+				if (a == (byte) a) {
+					apply(FlagTables.rlc(a, carry));
+				} else {
+					ArithmeticLogic.rlc(acc, sr);
+				}
 				break;
 			case 9:
-				ArithmeticLogic.rrc(acc, sr);
+				if (a == (byte) a) {
+					apply(FlagTables.rrc(a, carry));
+				} else {
+					ArithmeticLogic.rrc(acc, sr);
+				}
 				break;
 			case 16:
-				ProgramFlow.brz(pc, r7, sr);
+				branch(ZERO);
 				break;
 			case 17:
-				ProgramFlow.brc(pc, r7, sr);
+				branch(CARRY);
 				break;
 			case 18:
-				ProgramFlow.brn(pc, r7, sr);
+				branch(NEGATIVE);
 				break;
 			case 19:
-				ProgramFlow.bro(pc, r7, sr);
+				branch(OVERFLOW);
 				break;
 			case 24:
 				ProgramFlow.nop();
@@ -195,11 +617,43 @@ public class RISCAR5Processor implements Processor {
 		}
 	}
 
-	private void registerDirect(Instruction instruction) {
-		int registerNumber = NumberUtils.getUnsignedValueOf(
-				instruction.getInstruction(), 5, 7, Processor.IR_SIZE);
-		Register op = registers.get(GPR_PREFIX + registerNumber);
-		switch (instruction.getOpCode()) {
+	private void registerDirect(int opCode, int registerNumber) {
+		int[] r = values;
+		int a = r[ACC_INDEX];
+		int op = r[registerNumber];
+		if (a != (byte) a || op != (byte) op) {//the tables only have byte values
+			registerDirect(opCode, gpr[registerNumber]);
+			return;
+		}
+		switch (opCode) {
+			case 0:
+				apply(FlagTables.and(a, op));
+				break;
+			case 1:
+				apply(FlagTables.or(a, op));
+				break;
+			case 3:
+				apply(FlagTables.addC(a, op, r[SR_INDEX] >> 2 & 1));
+				break;
+			case 4:
+				apply(FlagTables.sub(a, op));
+				break;
+			case 5:
+				apply(FlagTables.mul(a, op));
+				break;
+			case 10:
+				load(op);
+				break;
+			case 11:
+				r[registerNumber] = a;
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void registerDirect(int opCode, Register op) {
+		switch (opCode) {
 			case 0:
 				ArithmeticLogic.and(acc, op, sr);
 				break;
@@ -226,15 +680,284 @@ public class RISCAR5Processor implements Processor {
 		}
 	}
 
+	/**
+	 * Loads a byte value in the accumulator, keeping the carry and overflow flags.
+	 */
+	private void load(int value) {
+		apply(FlagTables.load(value, values[SR_INDEX]));
+	}
+
+	/**
+	 * Stores a result of the {@link FlagTables} in the accumulator and the status register.
+	 */
+	private void apply(int entry) {
+		values[ACC_INDEX] = FlagTables.result(entry);
+		values[SR_INDEX] = FlagTables.flags(entry);
+	}
+
+	/**
+	 * Jumps to the address in R7 if the flag is set.
+	 */
+	private void branch(int flag) {
+		if ((values[SR_INDEX] & flag) != 0) {
+			values[PC_INDEX] = values[7];
+		}
+	}
+
 	@Override
 	public void init(List<Instruction> instructions) {
 		this.instructionList = instructions;
+		this.image = null;
+		reset();
 		int location = LOAD_LOCATION;
 		for (Instruction instruction : instructions) {//load instructions to memory
 			int value = instruction.getInstruction();
 			memory.setDataAt(location, value, IR_SIZE);
 			location += PC_INCREMENT;
 		}
+		predecode(location);
+	}
+
+	/**
+	 * Initializes the processor with the words of a program, without making an
+	 * {@link Instruction} for each one.
+	 * @param image the program
+	 */
+	public void init(ProgramImage image) {
+		this.instructionList = null;
+		this.image = image;
+		reset();
+		int location = LOAD_LOCATION;
+		for (int i = 0; i < image.size(); i++) {
+			memory.setDataAt(location, image.getWord(i), IR_SIZE);
+			location += PC_INCREMENT;
+		}
+		predecode(location);
+	}
+
+	/**
+	 * Drops the state that depends on the previous program.
+	 */
+	private void reset() {
+		trapped = false;
+		breakAt = NO_HIT;
+		watchHit = NO_HIT;
+		if (history != null) {
+			history.clear();
+		}
+		inputStale = true;
+		outputStale = true;
+		portsCopied = false;
+		decodeCache.clear();
+		if (translator != null) {
+			translator.clear();
+		}
+	}
+
+	/**
+	 * Decodes the program loaded up to the given location.
+	 */
+	private void predecode(int end) {
+		for (int i = LOAD_LOCATION; i < end; i += PC_INCREMENT) {
+			decodeCache.decode(i, memory.getDataAt(i, PC_INCREMENT));
+		}
+	}
+
+	/**
+	 * The memory pages are shared with the snapshot until they are written, so taking
+	 * a snapshot costs about the same as copying the register file.
+	 */
+	@Override
+	public MachineSnapshot snapshot() {
+		updateDataFromPorts();
+		return new MachineSnapshot(values.clone(), MemorySnapshot.of(memory, MEMORY_SIZE), in.readString(),
+				out.readString(), cycles, run, trapped);
+	}
+
+	/**
+	 * Only the cells in the memory pages that changed since the snapshot lose their
+	 * decoded and translated instructions.
+	 */
+	@Override
+	public void restore(MachineSnapshot snapshot) {
+		MemorySnapshot saved = snapshot.getMemory();
+		if (memory instanceof ByteArrayMemory) {
+			ByteArrayMemory pagedMemory = (ByteArrayMemory) memory;
+			for (int page = 0; page * ByteArrayMemory.PAGE_SIZE < MEMORY_SIZE; page++) {
+				if (!pagedMemory.isPageOf(saved, page)) {
+					for (int i = 0; i < ByteArrayMemory.PAGE_SIZE; i++) {
+						stored(page * ByteArrayMemory.PAGE_SIZE + i);
+					}
+				}
+			}
+		} else {
+			for (int i = 0; i < MEMORY_SIZE; i++) {
+				stored(i);
+			}
+		}
+		saved.restoreTo(memory);
+		System.arraycopy(snapshot.getRegisters(), 0, values, 0, values.length);
+		in.write(snapshot.getInput());
+		out.write(snapshot.getOutput());
+		inputStale = true;
+		outputStale = true;
+		updateDataFromPorts();
+		cycles = snapshot.getCycleCount();
+		run = snapshot.isRunning();
+		trapped = snapshot.isTrapped();
+		if (history != null) {
+			history.clear();
+		}
+	}
+
+	/**
+	 * Stops {@link #run()} at the breakpoints and watchpoints given. A run started at the
+	 * breakpoint the previous one stopped at executes that instruction instead of stopping
+	 * again. While there are breakpoints or watchpoints, {@link #run()} doesn't use the block
+	 * execution tier.
+	 * <br> Without them, null or empty, the interpreter only checks that there are none when a
+	 * run starts. The breakpoints must not be changed during a run.
+	 * @param breakpoints breakpoints and watchpoints, null to remove them
+	 */
+	public void setBreakpoints(Breakpoints breakpoints) {
+		this.breakpoints = breakpoints;
+		breakAt = NO_HIT;
+	}
+
+	public Breakpoints getBreakpoints() {
+		return breakpoints;
+	}
+
+	/**
+	 * @return the memory cell whose watchpoint stopped the last instruction, -1 if it didn't access
+	 * a watched cell.
+	 */
+	public int getWatchHit() {
+		return watchHit;
+	}
+
+	/**
+	 * Records every instruction executed from now on in the history, so they can be
+	 * undone with {@link #stepBack()}. While recording, {@link #run()} doesn't use the
+	 * block execution tier.
+	 * @param history where to record the instructions, null to stop recording
+	 */
+	public void setHistory(ExecutionHistory history) {
+		this.history = history;
+	}
+
+	public ExecutionHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Undoes the last cycle recorded in the history.
+	 * @return false if there is nothing to undo
+	 */
+	public boolean stepBack() {
+		if (history == null) {
+			return false;
+		}
+		if (trapped) {//the cycle that trapped didn't change anything else
+			trapped = false;
+			run = true;
+			cycles--;
+			return true;
+		}
+		if (history.isEmpty()) {
+			return false;
+		}
+		undo(history.pop());
+		return true;
+	}
+
+	/**
+	 * Undoes the last cycles recorded in the history.
+	 * @param n number of cycles to undo
+	 * @return the number of cycles undone, less than n if the history ran out
+	 */
+	public long stepBack(long n) {
+		long undone = 0;
+		while (undone < n && stepBack()) {
+			undone++;
+		}
+		return undone;
+	}
+
+	/**
+	 * Steps back until the last instruction that stored to the memory cell is undone, so
+	 * the PC points to that instruction and the cell has the value it had before.
+	 * @param address memory cell
+	 * @return false if the history ran out before finding a store to the cell
+	 */
+	public boolean runBackToWrite(int address) {
+		if (history == null || trapped && !stepBack()) {
+			return false;
+		}
+		while (!history.isEmpty()) {
+			long record = history.pop();
+			undo(record);
+			if (ExecutionHistory.kind(record) == ExecutionHistory.CELL && ExecutionHistory.index(record) == address) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Records the state the instruction about to be executed can change.
+	 */
+	private void record(int location, int opCode, byte mode, int operand) {
+		int kind = ExecutionHistory.NONE, old = 0;
+		if (opCode == 11 && mode == DecodeCache.REGISTER_DIRECT) {
+			kind = ExecutionHistory.REGISTER;
+			old = values[operand];
+		} else if (opCode == 13 && mode == DecodeCache.DIRECT) {
+			kind = ExecutionHistory.CELL;
+			old = memory.getDataAt(operand);
+		}
+		if (!portsCopied) {//the ports as they were loaded, the cycle is about to copy them
+			int[] input = new int[INPUT_SIZE];
+			for (int i = 0; i < INPUT_SIZE; i++) {
+				input[i] = memory.getDataAt(INPUT_LOC + i);
+			}
+			history.recordPorts(cycles - 1, input, out.readString());
+		}
+		history.push(ExecutionHistory.record(location, values[ACC_INDEX], values[SR_INDEX], values[IR_INDEX], kind,
+				operand, old));
+	}
+
+	private void undo(long record) {
+		values[PC_INDEX] = ExecutionHistory.pc(record);
+		values[ACC_INDEX] = ExecutionHistory.acc(record);
+		values[SR_INDEX] = ExecutionHistory.sr(record);
+		values[IR_INDEX] = ExecutionHistory.ir(record);
+		int index = ExecutionHistory.index(record);
+		switch (ExecutionHistory.kind(record)) {
+			case ExecutionHistory.REGISTER:
+				values[index] = ExecutionHistory.old(record);
+				break;
+			case ExecutionHistory.CELL:
+				memory.setDataAt(index, ExecutionHistory.old(record));
+				stored(index);
+				break;
+			default:
+				break;
+		}
+		cycles--;
+		run = true;
+		if (history.hasPorts(cycles)) {
+			int[] input = history.getInputCells();
+			for (int i = 0; i < INPUT_SIZE; i++) {
+				memory.setDataAt(INPUT_LOC + i, input[i]);
+				stored(INPUT_LOC + i);
+			}
+			out.write(history.getOutput());
+			outputStale = true;
+			portsCopied = false;
+		} else {
+			updateDataFromPorts();
+		}
 	}
 
 	@Override
@@ -247,7 +970,20 @@ public class RISCAR5Processor implements Processor {
 		return run;
 	}
 
+	/**
+	 * @return the number of instructions fetched since this processor was created.
+	 */
+	public long getCycleCount() {
+		return cycles;
+	}
+
+	/**
+	 * @return the program loaded, made from the {@link ProgramImage} if it was loaded from one.
+	 */
 	public List<Instruction> getInstructionList() {
+		if (instructionList == null && image != null) {
+			instructionList = image.toInstructions();
+		}
 		return instructionList;
 	}
 
@@ -263,7 +999,7 @@ public class RISCAR5Processor implements Processor {
 
 	@Override
 	public Register getRegister(int i) {
-		return getRegister(GPR_PREFIX + i);
+		return gpr[i];
 	}
 
 }
\ No newline at end of file
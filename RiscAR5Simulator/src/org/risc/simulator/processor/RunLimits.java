@@ -0,0 +1,65 @@
+package org.risc.simulator.processor;
+
+/**
+ * Limits of a {@link Processor#run(RunLimits)}.
+ * <br> A run can be bounded by a number of cycles, by a wall clock timeout or both, and
+ * can look for repeated machine states to prove that the program will never stop.
+ */
+public class RunLimits {
+
+	/**
+	 * Value of the cycle budget or timeout that means there is no limit.
+	 */
+	public static final long NO_LIMIT = 0;
+
+	/**
+	 * Runs until the program stops, like {@link Processor#run()}.
+	 */
+	public static final RunLimits NONE = new RunLimits(NO_LIMIT, NO_LIMIT, false);
+
+	private final long maxCycles;
+	private final long timeoutMillis;
+	private final boolean loopDetection;
+
+	/**
+	 * @param maxCycles     maximum number of cycles to run or {@link #NO_LIMIT}
+	 * @param timeoutMillis maximum wall clock time of the run or {@link #NO_LIMIT}
+	 * @param loopDetection true to stop as soon as the processor repeats a state. This
+	 *                      assumes the input port doesn't change during the run.
+	 */
+	public RunLimits(long maxCycles, long timeoutMillis, boolean loopDetection) {
+		if (maxCycles < 0 || timeoutMillis < 0) {
+			throw new IllegalArgumentException("Limits can't be negative");
+		}
+		this.maxCycles = maxCycles;
+		this.timeoutMillis = timeoutMillis;
+		this.loopDetection = loopDetection;
+	}
+
+	/**
+	 * Limits a run to a number of cycles.
+	 * @param maxCycles maximum number of cycles to run
+	 */
+	public static RunLimits cycles(long maxCycles) {
+		return new RunLimits(maxCycles, NO_LIMIT, false);
+	}
+
+	public long getMaxCycles() {
+		return maxCycles;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public boolean isLoopDetection() {
+		return loopDetection;
+	}
+
+	@Override
+	public String toString() {
+		return "RunLimits [maxCycles=" + maxCycles + ", timeoutMillis=" + timeoutMillis
+				+ ", loopDetection=" + loopDetection + "]";
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.risc.simulator.processor;
+
+/**
+ * How a run of the processor with {@link RunLimits} ended.
+ */
+public enum RunStatus {
+
+	/**
+	 * The stop instruction was executed or the processor was stopped with {@link Processor#setRun(boolean)}.
+	 */
+	STOPPED,
+
+	/**
+	 * The cycle budget was used before the program stopped.
+	 */
+	CYCLE_LIMIT,
+
+	/**
+	 * The wall clock deadline passed before the program stopped.
+	 */
+	DEADLINE,
+
+	/**
+	 * The processor reached the same state twice, so the program will never stop.
+	 */
+	NON_TERMINATING,
+
+	/**
+	 * The PC left the memory and the {@link org.risc.simulator.util.RangePolicy} of the processor
+	 * stopped it, see {@link RISCAR5Processor#isTrapped()}.
+	 */
+	TRAPPED,
+
+	/**
+	 * The PC reached a breakpoint, see {@link RISCAR5Processor#setBreakpoints(Breakpoints)}.
+	 */
+	BREAKPOINT,
+
+	/**
+	 * An instruction accessed a watched memory cell, see {@link RISCAR5Processor#getWatchHit()}.
+	 */
+	WATCHPOINT
+
+}
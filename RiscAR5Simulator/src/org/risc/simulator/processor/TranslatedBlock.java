@@ -0,0 +1,73 @@
+package org.risc.simulator.processor;
+
+/**
+ * A straight line run of instructions translated for the block execution tier of
+ * {@link RISCAR5Processor}.
+ * <br> The block covers the memory cells [start, end) and holds the decoded opcode,
+ * operand and instruction word of every instruction in it. Only the last
+ * instruction can be a branch or the stop instruction.
+ * @author Victor J.
+ */
+class TranslatedBlock {
+
+	private final int start;
+	private final int end;
+	private final int length;
+	private final int[] opCodes;
+	private final int[] operands;
+	private final int[] words;
+
+	TranslatedBlock(int start, int length, int[] opCodes, int[] operands, int[] words) {
+		this.start = start;
+		this.end = start + length * Processor.PC_INCREMENT;
+		this.length = length;
+		this.opCodes = opCodes;
+		this.operands = operands;
+		this.words = words;
+	}
+
+	int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the first location after this block, where execution continues
+	 * unless the last instruction branches.
+	 */
+	int getEnd() {
+		return end;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	int[] getOpCodes() {
+		return opCodes;
+	}
+
+	/**
+	 * @return the register number, the normalized address or the signed constant
+	 * of each instruction depending on its addressing mode.
+	 */
+	int[] getOperands() {
+		return operands;
+	}
+
+	int[] getWords() {
+		return words;
+	}
+
+	/**
+	 * @return true if the cell at the given location was used to build this block.
+	 */
+	boolean covers(int location) {
+		return location >= start && location < end;
+	}
+
+	@Override
+	public String toString() {
+		return "TranslatedBlock [start=" + start + ", end=" + end + "]";
+	}
+
+}
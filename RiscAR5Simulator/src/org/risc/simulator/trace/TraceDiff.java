@@ -0,0 +1,261 @@
+package org.risc.simulator.trace;
+
+import org.risc.simulator.memory.Memory;
+import org.risc.simulator.processor.Processor;
+import org.risc.simulator.util.NumberUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Finds the first cycle where two traces of the same program differ, for example the
+ * trace of the interpreter and the one of a faster engine.
+ * <pre>
+ * java org.risc.simulator.trace.TraceDiff expected actual
+ * </pre>
+ * Both traces are read sequentially one chunk at a time, so traces of any length can be
+ * compared. The general purpose registers and the memory cells are followed through the
+ * writes of each trace, starting from zero or from the state of a {@link Processor}.
+ * <br> The exit status is 0 when the traces are the same, 1 when they differ and 2 when the
+ * arguments are wrong or a trace can't be read.
+ * @author Victor J.
+ */
+public class TraceDiff {
+
+	/**
+	 * The first difference between two traces.
+	 */
+	public static class Divergence {
+		private final long index;
+		private final long cycle;
+		private final String field;
+		private final long expected, actual;
+
+		Divergence(long index, long cycle, String field, long expected, long actual) {
+			this.index = index;
+			this.cycle = cycle;
+			this.field = field;
+			this.expected = expected;
+			this.actual = actual;
+		}
+
+		/**
+		 * @return the number of the record that differs, starting at 0.
+		 */
+		public long getIndex() {
+			return index;
+		}
+
+		public long getCycle() {
+			return cycle;
+		}
+
+		/**
+		 * @return what differs: CYCLE, PC, IR, ACC, SR, a register like R3, a memory cell
+		 * like M[FA] or LENGTH when a trace ends first.
+		 */
+		public String getField() {
+			return field;
+		}
+
+		public long getExpected() {
+			return expected;
+		}
+
+		public long getActual() {
+			return actual;
+		}
+
+		@Override
+		public String toString() {
+			return "First divergence at cycle " + cycle + " (record " + index + "): " + field + " expected "
+					+ expected + " but was " + actual;
+		}
+	}
+
+	/**
+	 * The registers and memory cells of a trace, updated with its writes.
+	 */
+	private static class State {
+		final int[] gpr = new int[Processor.NUMBER_OF_GPR];
+		final int[] memory = new int[Processor.MEMORY_SIZE];
+
+		State(Processor initial) {
+			if (initial != null) {
+				for (int i = 0; i < gpr.length; i++) {
+					gpr[i] = initial.getRegister(i).getData();
+				}
+				Memory cells = initial.getMemory();
+				for (int i = 0; i < memory.length; i++) {
+					memory[i] = cells.getDataAt(i);
+				}
+			}
+		}
+
+		void update(TraceReader reader) {
+			switch (reader.getKind()) {
+				case TraceFormat.REGISTER_WRITE:
+					gpr[reader.getIndexWritten()] = reader.getValue();
+					break;
+				case TraceFormat.MEMORY_WRITE:
+					memory[reader.getIndexWritten()] = reader.getValue();
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * @return the value of the register or cell written by the current record of the reader.
+		 */
+		int written(TraceReader reader) {
+			return reader.getKind() == TraceFormat.REGISTER_WRITE ? gpr[reader.getIndexWritten()]
+					: memory[reader.getIndexWritten()];
+		}
+	}
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private TraceDiff() {
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Compares the traces given in the arguments.
+	 * @param args the command line arguments
+	 * @param out  where the result is printed
+	 * @param err  where the errors are printed
+	 * @return the exit status
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		if (args.length != 2) {
+			err.println("Usage: TraceDiff expected actual");
+			return 2;
+		}
+		try {
+			TraceReader expected = new TraceReader(new File(args[0]));
+			try {
+				TraceReader actual = new TraceReader(new File(args[1]));
+				try {
+					Divergence divergence = compare(expected, actual, null);
+					if (divergence == null) {
+						out.println("The traces are the same, " + expected.getCount() + " records");
+						return 0;
+					}
+					out.println(divergence);
+					StringBuilder sb = new StringBuilder("expected ");
+					if (expected.getIndex() == divergence.getIndex()) {
+						TraceDump.format(expected, sb);
+					}
+					out.println(sb);
+					sb.setLength(0);
+					sb.append("actual   ");
+					if (actual.getIndex() == divergence.getIndex()) {
+						TraceDump.format(actual, sb);
+					}
+					out.println(sb);
+					return 1;
+				} finally {
+					actual.close();
+				}
+			} finally {
+				expected.close();
+			}
+		} catch (IOException e) {
+			err.println(e.getMessage());
+			return 2;
+		}
+	}
+
+	/**
+	 * Compares two traces that start from the same state.
+	 * @param expected reference trace
+	 * @param actual   trace compared with the reference
+	 * @return the first difference or null if the traces are the same
+	 * @throws IOException if a trace can't be read
+	 */
+	public static Divergence compare(File expected, File actual) throws IOException {
+		TraceReader e = new TraceReader(expected);
+		try {
+			TraceReader a = new TraceReader(actual);
+			try {
+				return compare(e, a, null);
+			} finally {
+				a.close();
+			}
+		} finally {
+			e.close();
+		}
+	}
+
+	/**
+	 * Compares the rest of two traces, leaving both readers at the records that differ.
+	 * @param expected reference trace
+	 * @param actual   trace compared with the reference
+	 * @param initial  processor with the registers and memory both traces start from, null if
+	 *                 they start from zero
+	 * @return the first difference or null if the traces are the same
+	 * @throws IOException if a trace can't be read
+	 */
+	public static Divergence compare(TraceReader expected, TraceReader actual, Processor initial) throws IOException {
+		State e = new State(initial), a = new State(initial);
+		long index = 0;
+		while (true) {
+			boolean hasExpected = expected.next(), hasActual = actual.next();
+			if (!hasExpected || !hasActual) {
+				if (hasExpected == hasActual) {
+					return null;
+				}
+				long cycle = hasExpected ? expected.getCycle() : actual.getCycle();
+				return new Divergence(index, cycle, "LENGTH", expected.getCount(), actual.getCount());
+			}
+			long cycle = expected.getCycle();
+			if (cycle != actual.getCycle()) {
+				return new Divergence(index, cycle, "CYCLE", cycle, actual.getCycle());
+			}
+			if (expected.getPc() != actual.getPc()) {
+				return new Divergence(index, cycle, "PC", expected.getPc(), actual.getPc());
+			}
+			if (expected.getIr() != actual.getIr()) {
+				return new Divergence(index, cycle, "IR", expected.getIr(), actual.getIr());
+			}
+			if (expected.getAcc() != actual.getAcc()) {
+				return new Divergence(index, cycle, "ACC", expected.getAcc(), actual.getAcc());
+			}
+			if (expected.getSr() != actual.getSr()) {
+				return new Divergence(index, cycle, "SR", expected.getSr(), actual.getSr());
+			}
+			e.update(expected);
+			a.update(actual);
+			//a write that differs changes the target of one of the traces at least
+			Divergence divergence = compareWritten(index, cycle, expected, e, a);
+			if (divergence == null) {
+				divergence = compareWritten(index, cycle, actual, e, a);
+			}
+			if (divergence != null) {
+				return divergence;
+			}
+			index++;
+		}
+	}
+
+	private static Divergence compareWritten(long index, long cycle, TraceReader reader, State e, State a) {
+		if (reader.getKind() == TraceFormat.NO_WRITE) {
+			return null;
+		}
+		int expectedValue = e.written(reader), actualValue = a.written(reader);
+		if (expectedValue == actualValue) {
+			return null;
+		}
+		String field = reader.getKind() == TraceFormat.REGISTER_WRITE
+				? Processor.GPR_PREFIX + reader.getIndexWritten()
+				: "M[" + NumberUtils.intToHexString(reader.getIndexWritten(), 2) + "]";
+		return new Divergence(index, cycle, field, expectedValue, actualValue);
+	}
+
+}
@@ -0,0 +1,111 @@
+package org.risc.simulator.trace;
+
+import org.risc.simulator.processor.Processor;
+import org.risc.simulator.util.NumberUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Prints the records of a binary trace as text, one line per record:
+ * <pre>
+ * java org.risc.simulator.trace.TraceDump [options] trace
+ *   --from N     first record printed, 0 by default
+ *   --count N    number of records printed, all of them by default
+ * </pre>
+ * Each line has the cycle, the PC and IR in hex, ACC, the flags of SR and what the
+ * instruction wrote:
+ * <pre>
+ * 12 PC=0A IR=5801 ACC=-128 SR=0010 R1=3
+ * 13 PC=0C IR=68FA ACC=65 SR=0000 M[FA]=65
+ * </pre>
+ * @author Victor J.
+ */
+public class TraceDump {
+
+	private static final String USAGE = "Usage: TraceDump [--from N] [--count N] trace";
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private TraceDump() {
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Prints the trace given in the arguments.
+	 * @param args the command line arguments
+	 * @param out  where the records are printed
+	 * @param err  where the errors are printed
+	 * @return 0 if the trace was printed, 1 if it couldn't be read and 2 if the arguments are wrong
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		long from = 0, count = Long.MAX_VALUE;
+		File file = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("--from") && i + 1 < args.length) {
+					from = Long.parseLong(args[++i]);
+				} else if (args[i].equals("--count") && i + 1 < args.length) {
+					count = Long.parseLong(args[++i]);
+				} else if (file == null && !args[i].startsWith("-")) {
+					file = new File(args[i]);
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (file == null) {
+				throw new IllegalArgumentException("No trace given");
+			}
+		} catch (IllegalArgumentException e) {//NumberFormatException too
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return 2;
+		}
+
+		try {
+			TraceReader reader = new TraceReader(file);
+			try {
+				reader.skip(from);
+				StringBuilder sb = new StringBuilder();
+				for (long i = 0; i < count && reader.next(); i++) {
+					sb.setLength(0);
+					format(reader, sb);
+					out.println(sb);
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			err.println(e.getMessage());
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Appends the current record of the reader as text.
+	 */
+	static void format(TraceReader reader, StringBuilder sb) {
+		sb.append(reader.getCycle());
+		sb.append(" PC=").append(NumberUtils.intToHexString(reader.getPc(), 2));
+		sb.append(" IR=").append(NumberUtils.intToHexString(reader.getIr(), 4));
+		sb.append(" ACC=").append(reader.getAcc());
+		sb.append(" SR=").append(NumberUtils.intToTwosComplementString(reader.getSr(), 4));
+		switch (reader.getKind()) {
+			case TraceFormat.REGISTER_WRITE:
+				sb.append(' ').append(Processor.GPR_PREFIX).append(reader.getIndexWritten()).append('=').append(reader.getValue());
+				break;
+			case TraceFormat.MEMORY_WRITE:
+				sb.append(" M[").append(NumberUtils.intToHexString(reader.getIndexWritten(), 2)).append("]=").append(reader.getValue());
+				break;
+			default:
+				break;
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.risc.simulator.trace;
+
+/**
+ * Layout of the binary trace files written by {@link TraceWriter}, all values are big endian.
+ * <p>
+ * Header of {@link #HEADER_SIZE} bytes:
+ * <pre>
+ * 0  int   magic number
+ * 4  short version
+ * 6  short record size
+ * 8  long  number of records, {@link #UNKNOWN_COUNT} until the writer is closed
+ * </pre>
+ * Followed by records of {@link #RECORD_SIZE} bytes, one per cycle traced, with the
+ * state after the instruction was executed:
+ * <pre>
+ * 0  long  cycle
+ * 8  short PC of the instruction
+ * 10 short IR
+ * 12 short ACC
+ * 14 byte  SR
+ * 15 byte  kind of write, {@link #NO_WRITE}, {@link #REGISTER_WRITE} or {@link #MEMORY_WRITE}
+ * 16 short register or memory cell written
+ * 18 short value written
+ * 20 int   reserved
+ * </pre>
+ * @author Victor J.
+ */
+public final class TraceFormat {
+
+	public static final int MAGIC = 0x52415254; // RART
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 24;
+	public static final long UNKNOWN_COUNT = -1;
+
+	public static final int NO_WRITE = 0, REGISTER_WRITE = 1, MEMORY_WRITE = 2;
+
+	static final int COUNT_OFFSET = 8;
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private TraceFormat() {
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.risc.simulator.trace;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a trace in the {@link TraceFormat} one record at a time, in chunks of
+ * {@link #CHUNK_RECORDS} records, so a trace of any length can be read with a fixed
+ * amount of memory.
+ * <br> {@link #next()} moves to the next record, whose fields are then returned by the getters:
+ * <pre>
+ * while (reader.next()) {
+ *     reader.getPc();
+ * }
+ * </pre>
+ * Traces that were not closed by their writer are read up to the last record written,
+ * the rest of their last window is zeros and no cycle is 0.
+ * @author Victor J.
+ */
+public class TraceReader implements Closeable {
+
+	public static final int CHUNK_RECORDS = 1 << 14;
+
+	private final FileInputStream in;
+	private final FileChannel channel;
+	private final ByteBuffer chunk;
+	private long count;
+	private final boolean complete;
+	private long read;
+
+	private long cycle;
+	private int pc, ir, acc, sr, kind, index, value;
+
+	/**
+	 * @param file trace to read
+	 * @throws IOException if the file can't be read or is not a trace
+	 */
+	public TraceReader(File file) throws IOException {
+		in = new FileInputStream(file);
+		channel = in.getChannel();
+		try {
+			ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+			fill(header);
+			header.flip();
+			if (header.getInt() != TraceFormat.MAGIC || header.getShort() != TraceFormat.VERSION
+					|| header.getShort() != TraceFormat.RECORD_SIZE) {
+				throw new IOException(file + " is not a trace");
+			}
+			long headerCount = header.getLong();
+			long available = (channel.size() - TraceFormat.HEADER_SIZE) / TraceFormat.RECORD_SIZE;
+			complete = headerCount != TraceFormat.UNKNOWN_COUNT;
+			count = complete ? Math.min(headerCount, available) : available;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		chunk = ByteBuffer.allocateDirect(CHUNK_RECORDS * TraceFormat.RECORD_SIZE);
+		chunk.limit(0);
+	}
+
+	/**
+	 * @return the number of records in the trace, for a trace that was not closed an upper
+	 * bound until the last record is read.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Moves to the next record.
+	 * @return false if there are no more records
+	 * @throws IOException if the file can't be read
+	 */
+	public boolean next() throws IOException {
+		if (read >= count) {
+			return false;
+		}
+		if (!chunk.hasRemaining()) {
+			chunk.clear();
+			long records = Math.min(CHUNK_RECORDS, count - read);
+			chunk.limit((int) records * TraceFormat.RECORD_SIZE);
+			fill(chunk);
+			chunk.flip();
+		}
+		ByteBuffer c = chunk;
+		cycle = c.getLong();
+		pc = c.getShort();
+		ir = c.getShort();
+		acc = c.getShort();
+		sr = c.get();
+		kind = c.get();
+		index = c.getShort();
+		value = c.getShort();
+		c.getInt();
+		if (cycle == 0 && !complete) {
+			count = read;
+			return false;
+		}
+		read++;
+		return true;
+	}
+
+	/**
+	 * Skips records without decoding them.
+	 * @param records number of records to skip
+	 * @throws IOException if the file can't be read
+	 */
+	public void skip(long records) throws IOException {
+		records = Math.min(records, count - read);
+		int buffered = chunk.remaining() / TraceFormat.RECORD_SIZE;
+		if (records <= buffered) {
+			chunk.position(chunk.position() + (int) records * TraceFormat.RECORD_SIZE);
+		} else {
+			channel.position(channel.position() + (records - buffered) * TraceFormat.RECORD_SIZE);
+			chunk.limit(0);
+		}
+		read += records;
+	}
+
+	private void fill(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("The trace ended before the last record");
+			}
+		}
+	}
+
+	/**
+	 * @return the number of the record the reader is at, starting at 0.
+	 */
+	public long getIndex() {
+		return read - 1;
+	}
+
+	public long getCycle() {
+		return cycle;
+	}
+
+	public int getPc() {
+		return pc;
+	}
+
+	public int getIr() {
+		return ir;
+	}
+
+	public int getAcc() {
+		return acc;
+	}
+
+	public int getSr() {
+		return sr;
+	}
+
+	/**
+	 * @return {@link TraceFormat#NO_WRITE}, {@link TraceFormat#REGISTER_WRITE} or {@link TraceFormat#MEMORY_WRITE}
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return the register or memory cell written.
+	 */
+	public int getIndexWritten() {
+		return index;
+	}
+
+	/**
+	 * @return the value written.
+	 */
+	public int getValue() {
+		return value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
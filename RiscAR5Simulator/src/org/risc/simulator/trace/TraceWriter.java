@@ -0,0 +1,167 @@
+package org.risc.simulator.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes an execution trace in the {@link TraceFormat} to a memory mapped file.
+ * <br> The file is mapped in windows of {@link #WINDOW_RECORDS} records, so the records
+ * never go through the heap and tracing doesn't allocate anything per cycle.
+ * <p>
+ * The overhead can be bounded in two ways:
+ * <ul>
+ * <li>{@link #setSampleInterval(int)} records only one of every n cycles. The cycles that
+ * write to a register or to the memory are always recorded, so the state can still be followed.</li>
+ * <li>{@link #setMaxRecords(long)} stops recording after a number of records.</li>
+ * </ul>
+ * @author Victor J.
+ */
+public class TraceWriter implements Closeable {
+
+	/**
+	 * Records in each window of the file mapped.
+	 */
+	public static final int WINDOW_RECORDS = 1 << 18;
+	private static final long WINDOW_SIZE = (long) WINDOW_RECORDS * TraceFormat.RECORD_SIZE;
+	/**
+	 * True where a file can't be cut while it is mapped.
+	 */
+	static final boolean MAPPED_FILES_LOCKED = System.getProperty("os.name").startsWith("Windows");
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer window;
+	private long windowStart = TraceFormat.HEADER_SIZE;
+	private long count;
+	private long maxRecords = Long.MAX_VALUE;
+	private int sampleInterval = 1;
+	private int untilSample = 1;
+	private boolean closed;
+
+	/**
+	 * Creates the file, replacing it if it exists.
+	 * @param file where to write the trace
+	 * @throws IOException if the file can't be created
+	 */
+	public TraceWriter(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0);
+		channel = this.file.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+		header.putInt(TraceFormat.MAGIC).putShort(TraceFormat.VERSION).putShort((short) TraceFormat.RECORD_SIZE)
+				.putLong(TraceFormat.UNKNOWN_COUNT).flip();
+		channel.write(header, 0);
+		window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+	}
+
+	/**
+	 * @param sampleInterval records one of every sampleInterval cycles, 1 records all of them
+	 * @throws IllegalArgumentException if the interval is not positive
+	 */
+	public void setSampleInterval(int sampleInterval) {
+		if (sampleInterval < 1) {
+			throw new IllegalArgumentException("The sample interval must be positive");
+		}
+		this.sampleInterval = sampleInterval;
+		untilSample = 1;
+	}
+
+	/**
+	 * @param maxRecords number of records after which the cycles are not recorded anymore
+	 */
+	public void setMaxRecords(long maxRecords) {
+		this.maxRecords = maxRecords;
+	}
+
+	/**
+	 * @return the number of records written.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return true if no more cycles will be recorded because of the maximum number of records.
+	 */
+	public boolean isFull() {
+		return count >= maxRecords;
+	}
+
+	/**
+	 * Records the state after a cycle, unless it is skipped by the sampling or the writer is full.
+	 * @param cycle number of the cycle, starting at 1
+	 * @param pc    location of the instruction executed
+	 * @param ir    instruction executed
+	 * @param acc   ACC after the instruction
+	 * @param sr    SR after the instruction
+	 * @param kind  {@link TraceFormat#NO_WRITE}, {@link TraceFormat#REGISTER_WRITE} or {@link TraceFormat#MEMORY_WRITE}
+	 * @param index register or memory cell written
+	 * @param value value written
+	 * @throws IllegalStateException if the next window of the file can't be mapped
+	 */
+	public void record(long cycle, int pc, int ir, int acc, int sr, int kind, int index, int value) {
+		if (--untilSample > 0 && kind == TraceFormat.NO_WRITE) {
+			return;
+		}
+		untilSample = sampleInterval;
+		if (count >= maxRecords || closed) {
+			return;
+		}
+		if (!window.hasRemaining()) {
+			windowStart += WINDOW_SIZE;
+			try {
+				window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+			} catch (IOException e) {
+				throw new IllegalStateException("The trace file can't be extended", e);
+			}
+		}
+		MappedByteBuffer w = window;
+		w.putLong(cycle);
+		w.putShort((short) pc);
+		w.putShort((short) ir);
+		w.putShort((short) acc);
+		w.put((byte) sr);
+		w.put((byte) kind);
+		w.putShort((short) index);
+		w.putShort((short) value);
+		w.putInt(0);
+		count++;
+	}
+
+	/**
+	 * Writes the number of records in the header and cuts the file after the last one.
+	 * <br> Windows doesn't cut a file while it is mapped, and a mapping is only released when
+	 * it is garbage collected, so there the zeros up to the end of the last window are left.
+	 * The readers stop at the number in the header.
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			window.force();
+			window = null;
+			ByteBuffer header = ByteBuffer.allocate(8);
+			header.putLong(count).flip();
+			channel.write(header, TraceFormat.COUNT_OFFSET);
+			try {
+				channel.truncate(TraceFormat.HEADER_SIZE + count * TraceFormat.RECORD_SIZE);
+			} catch (IOException e) {
+				if (!MAPPED_FILES_LOCKED) {
+					throw e;
+				}
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.risc.simulator.util;
+
+/**
+ * Extractors of the fixed bit fields used by the processor, specialized versions of
+ * {@link NumberUtils#getUnsignedValueOf(int, int, int, int)} and
+ * {@link NumberUtils#getSignedValueOf(int, int, int, int)} for constant arguments.
+ * <br> They are a shift and a mask without any check, so they can be used in the hot paths.
+ * The bits are numbered from the least significant one, unlike the ones of {@link NumberUtils}.
+ * <p>
+ * Instruction word of 16 bits:
+ * <pre>
+ * | opcode 15-11 | register 10-8 | operand 7-0 |
+ * </pre>
+ * @author Victor J.
+ */
+public final class BitFields {
+
+	public static final int OPCODE_SHIFT = 11, OPCODE_MASK = 0x1F;
+	public static final int REGISTER_SHIFT = 8, REGISTER_MASK = 0x7;
+	public static final int OPERAND_MASK = 0xFF;
+
+	/**
+	 * Utilities class no instantiation
+	 */
+	private BitFields() {
+	}
+
+	/**
+	 * Same as getUnsignedValueOf(word, 0, 4, 16)
+	 * @return the opcode of an instruction word
+	 */
+	public static int opCode(int word) {
+		return word >>> OPCODE_SHIFT & OPCODE_MASK;
+	}
+
+	/**
+	 * Same as getUnsignedValueOf(word, 5, 7, 16)
+	 * @return the register of an instruction word
+	 */
+	public static int register(int word) {
+		return word >>> REGISTER_SHIFT & REGISTER_MASK;
+	}
+
+	/**
+	 * Same as getSignedValueOf(word, 8, 15, 16)
+	 * @return the operand of an instruction word as a signed byte
+	 */
+	public static int operand(int word) {
+		return (byte) word;
+	}
+
+	/**
+	 * Same as getUnsignedValueOf(value, 0, 7, 8)
+	 * @return the least significant byte of the value
+	 */
+	public static int unsignedByte(int value) {
+		return value & 0xFF;
+	}
+
+	/**
+	 * Same as {@link NumberUtils#getMSB(int)}
+	 * @return the most significant bit of a byte
+	 */
+	public static int msb(int value) {
+		return value >>> 7 & 1;
+	}
+
+	/**
+	 * Same as {@link NumberUtils#getMSB(int, int)}
+	 * @param bits width of the value, from 1 to 32
+	 * @return the most significant bit of the value
+	 */
+	public static int msb(int value, int bits) {
+		return value >>> bits - 1 & 1;
+	}
+
+	/**
+	 * Same as {@link NumberUtils#getLSB(int)}
+	 * @return the least significant bit
+	 */
+	public static int lsb(int value) {
+		return value & 1;
+	}
+
+	/**
+	 * @param index position of the bit, 0 is the least significant one
+	 * @return the bit at the index
+	 */
+	public static int bit(int value, int index) {
+		return value >>> index & 1;
+	}
+
+}
@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 public class NumberUtils {
 
 	private static final byte NUM_BITS = 32;
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
 	/**
 	 * Utilities class no instantiation
@@ -40,11 +41,18 @@ public class NumberUtils {
 	 * @param hexDigits number of hex digits wanted in the String
 	 * @return the hex representation of the value masked to the number of
 	 * hex digits
+	 * @throws IllegalArgumentException if the number of hex digits is not between 1 and 8
 	 */
 	public static String intToHexString(int value, int hexDigits) {
-		int max = (1 << hexDigits * 4) - 1;
-		String format = String.format("%%0%dX", hexDigits);
-		return String.format(format, value & max).toUpperCase();
+		if (hexDigits < 1 || hexDigits > 8) {
+			throw new IllegalArgumentException("Invalid number of hex digits " + hexDigits);
+		}
+		int max = (int) ((1L << hexDigits * 4) - 1);
+		char[] digits = new char[hexDigits];
+		for (int i = hexDigits - 1, v = value & max; i >= 0; i--, v >>>= 4) {
+			digits[i] = HEX_DIGITS[v & 0xF];
+		}
+		return new String(digits);
 	}
 
 	/**
@@ -67,6 +75,33 @@ public class NumberUtils {
 		}
 	}
 
+	/**
+	 * Keeps the numBits least significant bits of the value, as an unsigned number.
+	 * <br> Doesn't check anything, so it can be used in the hot paths.
+	 * <code>
+	 * wrapToBits(256, 8) = 0 <br>
+	 * wrapToBits(-2, 8) = 254 <br>
+	 * </code>
+	 * @param value   number to wrap
+	 * @param numBits number of bits to keep, less than 32
+	 * @return the value in the range [0, 2^numBits)
+	 */
+	public static int wrapToBits(int value, int numBits) {
+		return value & ((1 << numBits) - 1);
+	}
+
+	/**
+	 * Clamps the value to the range [-(2^(numBits-1)), 2^numBits), the same range accepted
+	 * by {@link #fitsInBits(int, int)}.
+	 * @param value   number to clamp
+	 * @param numBits number of bits to use in this representation, less than 32
+	 * @return the closest number to the value that fits in the specified bits
+	 */
+	public static int saturateToBits(int value, int numBits) {
+		int min = -(1 << (numBits - 1)), max = (1 << numBits) - 1;
+		return value < min ? min : value > max ? max : value;
+	}
+
 	/**
 	 * Gets the unsigned value of the wanted bits. The most significant bit, starts with
 	 * index 0
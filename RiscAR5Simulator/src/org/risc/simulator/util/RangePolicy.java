@@ -0,0 +1,36 @@
+package org.risc.simulator.util;
+
+/**
+ * What a register does with a value that doesn't fit in its width.
+ * <br> Only {@link #THROW} allocates an exception, the other policies are cheap enough
+ * to be used by runs where out of range values are common, like fuzzing.
+ * @author Victor J.
+ */
+public enum RangePolicy {
+
+	/**
+	 * Throws a {@link NumberFormatException}, the value is not stored.
+	 */
+	THROW,
+
+	/**
+	 * Keeps the least significant bits of the value, see {@link NumberUtils#wrapToBits(int, int)}.
+	 */
+	WRAP,
+
+	/**
+	 * Stores the closest value in range, see {@link NumberUtils#saturateToBits(int, int)}.
+	 */
+	SATURATE,
+
+	/**
+	 * The value is not stored and the caller is told with a status code.
+	 */
+	TRAP;
+
+	/**
+	 * Status codes of a store under a policy.
+	 */
+	public static final int IN_RANGE = 0, WRAPPED = 1, SATURATED = 2, TRAPPED = 3;
+
+}
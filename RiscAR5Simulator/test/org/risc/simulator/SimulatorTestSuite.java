@@ -8,8 +8,8 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.risc.simulator.suites.*;
 
 @RunWith(Suite.class)
-@SuiteClasses({InstructionSetTestSuite.class, IOTestSuite.class, MemoryTestSuite.class, ProcessorTestSuite.class,
-		UtilTestSuite.class})
+@SuiteClasses({AssemblerTestSuite.class, BatchTestSuite.class, CliTestSuite.class, InstructionSetTestSuite.class, IOTestSuite.class, MemoryTestSuite.class, ProcessorTestSuite.class,
+		TraceTestSuite.class, UtilTestSuite.class})
 public class SimulatorTestSuite {
 
 	@BeforeClass
@@ -0,0 +1,76 @@
+package org.risc.simulator.assembler;
+
+import org.junit.Test;
+import org.risc.simulator.processor.Instruction;
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AssemblerTest {
+
+	@Test
+	public void testAssemble() throws Exception {
+		List<Instruction> program = assemble("ldi -128\nstar 7\nLDA 250\n  addc 3  \nneg\nsta 252\nstop\n");
+		String[] expected = {"7080", "5F00", "60FA", "1B00", "3000", "68FC", "F800"};
+		assertEquals(expected.length, program.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], program.get(i).getOriginalInstruction());
+		}
+	}
+
+	@Test
+	public void testAssembleImage() throws Exception {
+		ProgramImage image = new Assembler(new StringReader("ldi -1\nstar 2\nstop\nnop\n")).assembleImage();
+		assertEquals(3, image.size());
+		assertEquals(0x70FF, image.getWord(0));
+		assertEquals(0x5A00, image.getWord(1));
+		assertEquals(0xF800, image.getWord(2));
+	}
+
+	@Test
+	public void testLineEndings() throws Exception {
+		assertEquals(3, assemble("ldi 1\r\nnop\rnop").size());
+		assertEquals("A last line break doesn't add a line", 2, assemble("ldi 1\nnop\n").size());
+	}
+
+	@Test
+	public void testImplicitIgnoresOperands() throws Exception {
+		assertEquals("3000", assemble("neg 99999999999 1").get(0).getOriginalInstruction());
+	}
+
+	@Test
+	public void testStopsAtStopInstruction() throws Exception {
+		assertEquals(2, assemble("nop\nstop\nnot valid\n").size());
+	}
+
+	@Test
+	public void testErrors() {
+		assertError("ldi 1\nldi x\n", "Invalid format at line 2, column 5");
+		assertError("ldi 1\n\n", "Invalid format at line 2, column 1");
+		assertError("ldi5", "Invalid format at line 1, column 4");
+		assertError("ldi 1 2 3", "Invalid format at line 1, column 9");
+		assertError("  load 1", "Invalid mnemonic load at line 1, column 3");
+		assertError("ldi 300", "Constant doesn't fit in 8 bits 300 at line 1, column 5");
+		assertError("star 8", "Invalid register 8 at line 1, column 6");
+		assertError("sta", "Missing operand of sta at line 1, column 1");
+		assertError("lda -99999999999", "Number too large at line 1, column 5");
+	}
+
+	private static List<Instruction> assemble(String source) throws AssemblerException {
+		return new Assembler(new StringReader(source)).assemble();
+	}
+
+	private static void assertError(String source, String message) {
+		try {
+			assemble(source);
+			fail("No error in " + source);
+		} catch (AssemblerException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+
+}
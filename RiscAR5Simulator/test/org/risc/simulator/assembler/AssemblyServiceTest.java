@@ -0,0 +1,179 @@
+package org.risc.simulator.assembler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AssemblyServiceTest {
+
+	private static final int FILES = 40;
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("sources", "");
+		directory.delete();
+		directory.mkdir();
+		File nested = new File(directory, "nested");
+		nested.mkdir();
+		for (int i = 0; i < FILES; i++) {
+			//every tenth file has an unknown mnemonic
+			String source = i % 10 == 9 ? "ldi 1\nfoo 2\n" : "ldi " + i + "\nsta 252\nstop\n";
+			write(new File(i % 2 == 0 ? directory : nested, "file" + i + ".asm"), source);
+		}
+		write(new File(directory, "notes.txt"), "not a source");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		delete(directory);
+	}
+
+	@Test
+	public void testFindSources() {
+		List<File> sources = AssemblyService.findSources(directory);
+		assertEquals(FILES, sources.size());
+		for (File source : sources) {
+			assertTrue(source.getName().endsWith(AssemblyService.ASSEMBLY_EXTENSION));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFindSourcesNotADirectory() {
+		AssemblyService.findSources(new File(directory, "notes.txt"));
+	}
+
+	@Test
+	public void testAssembleFile() throws Exception {
+		File file = new File(directory, "file0.asm");
+		AssemblyResult result = AssemblyService.assemble(file);
+		assertTrue(result.isSuccessful());
+		assertNull(result.getError());
+		assertEquals(file, result.getFile());
+		assertArrayEquals(new Assembler(file).assembleImage().toArray(), result.getImage().toArray());
+
+		result = AssemblyService.assemble(new File(directory, "nested/file9.asm"));
+		assertFalse(result.isSuccessful());
+		assertNull(result.getImage());
+		assertTrue(result.getError().contains("line 2"));
+
+		assertFalse(AssemblyService.assemble(new File(directory, "missing.asm")).isSuccessful());
+	}
+
+	@Test
+	public void testAssembleInParallel() throws Exception {
+		List<File> sources = AssemblyService.findSources(directory);
+		final List<AssemblyResult> results = new ArrayList<AssemblyResult>();
+		final Thread caller = Thread.currentThread();
+		AssemblyReport report = new AssemblyService(4).assemble(sources, new AssemblyService.Listener() {
+			@Override
+			public void assembled(AssemblyResult result) {
+				assertEquals(caller, Thread.currentThread());
+				results.add(result);
+			}
+		});
+		assertEquals(FILES, results.size());
+		assertEquals(FILES, report.getFiles());
+		assertEquals(FILES / 10, report.getFailed());
+		assertEquals(FILES - FILES / 10, report.getAssembled());
+		assertEquals(4, report.getThreads());
+
+		Set<File> files = new HashSet<File>();
+		long instructions = 0;
+		for (AssemblyResult result : results) {
+			files.add(result.getFile());
+			if (result.isSuccessful()) {
+				//the same words as the sequential assembler
+				short[] expected = new Assembler(result.getFile()).assembleImage().toArray();
+				assertArrayEquals(expected, result.getImage().toArray());
+				instructions += expected.length;
+			}
+		}
+		assertEquals(new HashSet<File>(sources), files);
+		assertEquals(instructions, report.getInstructions());
+	}
+
+	@Test
+	public void testAssembleWithoutListener() {
+		AssemblyReport report = new AssemblyService(2).assemble(AssemblyService.findSources(directory), null);
+		assertEquals(FILES / 10, report.getFailed());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() {
+		new AssemblyService(0);
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+		String path = directory.getPath();
+		assertEquals(1, run(out, err, "-j", "2", path));
+		assertEquals(FILES / 10 + 1, out.toString().trim().split("\n").length);
+
+		assertEquals(0, run(out, err, new File(directory, "file0.asm").getPath()));
+		assertEquals(2, run(out, err));
+		assertEquals(2, run(out, err, "-x", path));
+		assertEquals(2, run(out, err, "-j", "many", path));
+		assertTrue(err.toString().contains("Usage"));
+	}
+
+	@Test
+	public void testRunOutput() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+		//what the assembler prints to the console would go in the middle of the report
+		PrintStream console = System.out;
+		PrintStream stdout = new PrintStream(out);
+		System.setOut(stdout);
+		try {
+			String[] args = {"-j", "1", new File(directory, "file0.asm").getPath()};
+			assertEquals(0, AssemblyService.run(args, stdout, new PrintStream(err)));
+		} finally {
+			System.setOut(console);
+		}
+		String report = out.toString();
+		assertTrue(report, report.matches(
+				"1 files, 0 with errors, 3 instructions in [0-9.]+ s, [0-9]+ files/s with 1 threads\\r?\\n"));
+		assertEquals("", err.toString());
+	}
+
+	private static int run(ByteArrayOutputStream out, ByteArrayOutputStream err, String... args) {
+		out.reset();
+		return AssemblyService.run(args, new PrintStream(out), new PrintStream(err));
+	}
+
+	private static void write(File file, String text) throws Exception {
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(text);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,38 @@
+package org.risc.simulator.assembler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MnemonicTrieTest {
+
+	private final MnemonicTrie trie = InstructionSet.getInstance().getTrie();
+
+	@Test
+	public void testFindsEveryMnemonic() {
+		String[] mnemonics = {"and", "or", "addc", "sub", "mul", "neg", "not", "rlc", "rrc", "ldar", "star", "lda",
+				"sta", "ldi", "brz", "brc", "brn", "bro", "stop", "nop"};
+		for (String mnemonic : mnemonics) {
+			assertEquals(InstructionSet.getInstance().get(mnemonic), find(mnemonic));
+			assertEquals(InstructionSet.getInstance().get(mnemonic), find(mnemonic.toUpperCase()));
+		}
+	}
+
+	@Test
+	public void testPrefixesAndUnknown() {
+		assertTrue("A prefix is not a mnemonic", find("ld") == null);
+		assertTrue(find("ldax") == null);
+		assertTrue(find("l_i") == null);
+		assertEquals(MnemonicTrie.NONE, trie.next(MnemonicTrie.NONE, 'a'));
+	}
+
+	private AssemblerInstruction find(String mnemonic) {
+		int node = MnemonicTrie.ROOT;
+		for (int i = 0; i < mnemonic.length(); i++) {
+			node = trie.next(node, mnemonic.charAt(i));
+		}
+		return trie.get(node);
+	}
+
+}
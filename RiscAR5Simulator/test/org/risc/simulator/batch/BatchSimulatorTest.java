@@ -0,0 +1,145 @@
+package org.risc.simulator.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.processor.Instruction;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class BatchSimulatorTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/";
+	private BatchSimulator simulator;
+
+	@Before
+	public void setUp() throws Exception {
+		simulator = new BatchSimulator(4);
+		simulator.setCycleLimit(100000);
+		simulator.setInput("AB");
+	}
+
+	@Test
+	public void testDirectory() throws Exception {
+		File directory = getFile("processorCommands");
+		BatchReport report = simulator.run(directory);
+		assertEquals(directory.listFiles().length, report.getResults().size());
+		for (BatchResult result : report.getResults()) {
+			if (result.getName().endsWith("infinite.asm")) {
+				assertEquals(BatchResult.Status.NON_TERMINATING, result.getStatus());
+				assertTrue(result.getCycles() < 100);
+			} else {
+				assertEquals(result.getName(), BatchResult.Status.STOPPED, result.getStatus());
+				assertNull(result.getError());
+			}
+		}
+		assertEquals(1, report.count(BatchResult.Status.NON_TERMINATING));
+		String summary = report.toString();
+		assertTrue(summary, summary.startsWith(report.getResults().size() + " programs (" + (report.getResults().size() - 1)
+				+ " stopped, 0 cycle limit, 0 deadline, 1 non terminating, 0 trapped, 0 error) in "));
+	}
+
+	@Test
+	public void testCycleLimit() throws Exception {
+		simulator.setLoopDetection(false);
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		jobs.add(BatchJob.fromFile(getFile("processorCommands/infinite.asm")));
+		BatchResult result = simulator.run(jobs).getResults().get(0);
+		assertEquals(BatchResult.Status.CYCLE_LIMIT, result.getStatus());
+		assertEquals(100000, result.getCycles());
+	}
+
+	@Test
+	public void testResults() throws Exception {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		jobs.add(BatchJob.fromFile(getFile("processorCommands/outputWriter.asm")));
+		jobs.add(BatchJob.fromFile(getFile("processorCommands/inputReader.asm")));
+		jobs.add(BatchJob.fromInstructions("stop", new Assembler(getFile("processorCommands/stop.asm")).assemble()));
+		BatchReport report = simulator.run(jobs);
+
+		BatchResult output = report.getResults().get(0);
+		assertEquals("ABCD", output.getOutput());
+		assertEquals(9, output.getCycles());
+
+		BatchResult input = report.getResults().get(1);
+		assertEquals(65, input.getRegister(0));
+		assertEquals(66, input.getRegister(1));
+
+		assertEquals("stop", report.getResults().get(2).getName());
+		assertEquals(BatchResult.Status.STOPPED, report.getResults().get(2).getStatus());
+	}
+
+	@Test
+	public void testMemoryDigest() throws Exception {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		jobs.add(BatchJob.fromInstructions("one", assemble("ldi 1\nsta 200\nstop")));
+		jobs.add(BatchJob.fromInstructions("two", assemble("ldi 1\nsta 201\nstop")));
+		jobs.add(BatchJob.fromInstructions("again", assemble("ldi 1\nsta 200\nstop")));
+		List<BatchResult> results = simulator.run(jobs).getResults();
+		String digest = results.get(0).getMemoryDigest();
+		assertEquals(8, digest.length());
+		assertFalse(digest.equals("00000000"));
+		assertFalse(digest.equals(results.get(1).getMemoryDigest()));
+		assertEquals(digest, results.get(2).getMemoryDigest());
+	}
+
+	@Test
+	public void testInvalidFiles() throws Exception {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		jobs.add(BatchJob.fromFile(getFile("errorsInFile.txt")));
+		jobs.add(BatchJob.fromFile(getFile("doesntHaveStop.txt")));
+		jobs.add(BatchJob.fromFile(new File("missing.asm")));
+		BatchReport report = simulator.run(jobs);
+		assertEquals(3, report.count(BatchResult.Status.ERROR));
+		for (BatchResult result : report.getResults()) {
+			assertNotNull(result.getError());
+		}
+	}
+
+	@Test
+	public void testSameResultsOnOneThread() throws Exception {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		for (int i = 0; i < 50; i++) {
+			for (File file : getFile("processorCommands").listFiles()) {
+				jobs.add(BatchJob.fromFile(file));
+			}
+		}
+		BatchReport parallel = simulator.run(jobs);
+		BatchSimulator single = new BatchSimulator(1);
+		single.setCycleLimit(100000);
+		single.setInput("AB");
+		BatchReport sequential = single.run(jobs);
+
+		assertEquals(sequential.getTotalCycles(), parallel.getTotalCycles());
+		for (int i = 0; i < jobs.size(); i++) {
+			BatchResult expected = sequential.getResults().get(i);
+			BatchResult actual = parallel.getResults().get(i);
+			assertEquals(expected.toString(), actual.toString());
+			assertEquals(expected.getOutput(), actual.getOutput());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() throws Exception {
+		new BatchSimulator(0);
+	}
+
+	private static List<Instruction> assemble(String source) throws Exception {
+		return new Assembler(new StringReader(source)).assemble();
+	}
+
+	private File getFile(String name) {
+		return new File(this.getClass().getResource(RESOURCE_PATH + name).getFile());
+	}
+
+}
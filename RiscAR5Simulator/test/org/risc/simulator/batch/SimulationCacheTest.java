@@ -0,0 +1,224 @@
+package org.risc.simulator.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.processor.ProgramImage;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationCacheTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/";
+	private File directory;
+	private SimulationCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("cache", "");
+		directory.delete();
+		cache = new SimulationCache(directory, SimulationCache.DEFAULT_MAX_BYTES);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		cache.close();
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testKeys() throws Exception {
+		ProgramImage image = new Assembler(getFile("processorCommands/mulLoop.asm")).assembleImage();
+		String key = SimulationCache.resultKey(image, "AB", 1000, true);
+		assertEquals(64, key.length());
+		assertEquals(key, SimulationCache.resultKey(image, "AB", 1000, true));
+		assertFalse(key.equals(SimulationCache.resultKey(image, "AC", 1000, true)));
+		assertFalse(key.equals(SimulationCache.resultKey(image, "AB", 1001, true)));
+		assertFalse(key.equals(SimulationCache.resultKey(image, "AB", 1000, false)));
+		image.add(0);
+		assertFalse(key.equals(SimulationCache.resultKey(image, "AB", 1000, true)));
+
+		byte[] source = "ldi 1\nstop\n".getBytes("UTF-8");
+		assertEquals(SimulationCache.imageKey(source), SimulationCache.imageKey(source.clone()));
+		assertFalse(SimulationCache.imageKey(source).equals(SimulationCache.imageKey("ldi 2\nstop\n".getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void testImagesAndResults() throws Exception {
+		ProgramImage image = new Assembler(getFile("processorCommands/outputWriter.asm")).assembleImage();
+		String imageKey = SimulationCache.imageKey(new byte[]{1, 2, 3});
+		assertNull(cache.getImage(imageKey));
+		cache.putImage(imageKey, image);
+		assertArrayEquals(image.toArray(), cache.getImage(imageKey).toArray());
+
+		BatchResult result = run(new BatchSimulator(1), "processorCommands/outputWriter.asm");
+		String resultKey = SimulationCache.resultKey(image, "", BatchSimulator.DEFAULT_CYCLE_LIMIT, true);
+		cache.putResult(resultKey, result);
+		BatchResult cached = cache.getResult(resultKey, "copy");
+		assertEquals("copy", cached.getName());
+		assertEquals(result.toString().replace(result.getName(), "copy"), cached.toString());
+		assertEquals("ABCD", cached.getOutput());
+
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testReopen() throws Exception {
+		String[] keys = put(cache, 10, 100);
+		cache.close();
+		assertTrue(new File(directory, SimulationCache.INDEX_FILE).isFile());
+
+		cache = new SimulationCache(directory, SimulationCache.DEFAULT_MAX_BYTES);
+		assertEquals(10, cache.size());
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(i, cache.get(keys[i])[0]);
+		}
+	}
+
+	@Test
+	public void testRebuildIndex() throws Exception {
+		String[] keys = put(cache, 10, 100);
+		cache.close();
+		new File(directory, SimulationCache.INDEX_FILE).delete();
+		//a record cut short by a crash
+		RandomAccessFile data = new RandomAccessFile(new File(directory, SimulationCache.DATA_FILE), "rw");
+		long length = data.length();
+		data.setLength(length - 50);
+		data.close();
+
+		cache = new SimulationCache(directory, SimulationCache.DEFAULT_MAX_BYTES);
+		assertEquals(9, cache.size());
+		assertEquals(8, cache.get(keys[8])[0]);
+		assertNull(cache.get(keys[9]));
+		assertEquals(length - 136, new File(directory, SimulationCache.DATA_FILE).length());
+	}
+
+	@Test
+	public void testOtherVersion() throws Exception {
+		put(cache, 10, 100);
+		cache.close();
+		RandomAccessFile data = new RandomAccessFile(new File(directory, SimulationCache.DATA_FILE), "rw");
+		data.seek(4);
+		data.writeInt(SimulationCache.VERSION + 1);
+		data.close();
+
+		cache = new SimulationCache(directory, SimulationCache.DEFAULT_MAX_BYTES);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		cache.close();
+		cache = new SimulationCache(directory, 3 * 136);//three values of 100 bytes and their keys
+		String[] keys = put(cache, 3, 100);
+		assertEquals(3 * 136, cache.getLiveBytes());
+		cache.get(keys[0]);
+		String[] more = put(cache, 1, 100);
+		assertEquals(3, cache.size());
+		assertNotNull(cache.get(keys[0]));
+		assertNull(cache.get(keys[1]));
+		assertNotNull(cache.get(keys[2]));
+		assertNotNull(cache.get(more[0]));
+
+		//the evicted values are dropped from the data file
+		put(cache, 20, 100);
+		assertTrue(new File(directory, SimulationCache.DATA_FILE).length() <= 8 + 2 * cache.getLiveBytes());
+		cache.compact();
+		assertEquals(8 + cache.getLiveBytes(), new File(directory, SimulationCache.DATA_FILE).length());
+	}
+
+	@Test
+	public void testReplace() throws Exception {
+		String key = put(cache, 1, 10)[0];
+		cache.put(key, new byte[]{7});
+		assertEquals(1, cache.size());
+		assertArrayEquals(new byte[]{7}, cache.get(key));
+		assertEquals(37, cache.getLiveBytes());
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		for (int i = 0; i < 3; i++) {
+			for (File file : getFile("processorCommands").listFiles()) {
+				jobs.add(BatchJob.fromFile(file));
+			}
+		}
+		BatchSimulator simulator = new BatchSimulator(2);
+		simulator.setInput("AB");
+		BatchReport uncached = simulator.run(jobs);
+
+		simulator.setCache(cache);
+		BatchReport first = simulator.run(jobs);
+		long misses = cache.getMisses();
+		cache.close();
+		cache = new SimulationCache(directory, SimulationCache.DEFAULT_MAX_BYTES);
+		simulator.setCache(cache);
+		BatchReport second = simulator.run(jobs);
+		//every image and result is found
+		assertEquals(0, cache.getMisses());
+		assertEquals(2 * jobs.size(), cache.getHits());
+		assertTrue(misses < 2 * jobs.size());
+
+		for (int i = 0; i < jobs.size(); i++) {
+			String expected = uncached.getResults().get(i).toString();
+			assertEquals(expected, first.getResults().get(i).toString());
+			assertEquals(expected, second.getResults().get(i).toString());
+			assertEquals(uncached.getResults().get(i).getOutput(), second.getResults().get(i).getOutput());
+		}
+
+		simulator.setInput("AC");
+		simulator.run(jobs);
+		assertTrue(cache.getMisses() > 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() throws Exception {
+		cache.close();
+		cache.get(SimulationCache.imageKey(new byte[0]));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidKey() throws Exception {
+		cache.put("cafe", new byte[1]);
+	}
+
+	/**
+	 * Puts values whose first byte is their number.
+	 */
+	private static String[] put(SimulationCache cache, int count, int size) throws Exception {
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			byte[] value = new byte[size];
+			value[0] = (byte) i;
+			keys[i] = SimulationCache.imageKey(("value " + i + " " + System.nanoTime()).getBytes("UTF-8"));
+			cache.put(keys[i], value);
+		}
+		return keys;
+	}
+
+	private BatchResult run(BatchSimulator simulator, String name) {
+		return simulator.simulate(BatchJob.fromFile(getFile(name)));
+	}
+
+	private File getFile(String name) {
+		return new File(this.getClass().getResource(RESOURCE_PATH + name).getFile());
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.risc.simulator.cli;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.batch.SimulationCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class CommandLineRunnerTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/";
+	private ByteArrayOutputStream out, err;
+
+	@Before
+	public void setUp() throws Exception {
+		out = new ByteArrayOutputStream();
+		err = new ByteArrayOutputStream();
+	}
+
+	@Test
+	public void testJson() throws Exception {
+		int status = run("-i", "AB", getPath("processorCommands/inputReader.asm"),
+				getPath("processorCommands/outputWriter.asm"));
+		assertEquals(CommandLineRunner.EXIT_STOPPED, status);
+		String json = out.toString();
+		assertTrue(json, json.startsWith("{\"summary\":{\"programs\":2,"));
+		assertTrue(json, json.contains("\"status\":\"STOPPED\",\"error\":null,\"cycles\":5,"));
+		assertTrue(json, json.contains("\"registers\":[65,66,0,0,0,0,0,0]"));
+		assertTrue(json, json.contains("\"output\":\"ABCD\""));
+	}
+
+	@Test
+	public void testCsv() throws Exception {
+		int status = run("--format", "csv", "-b", "0x41,66", getPath("processorCommands/inputReader.asm"),
+				getPath("processorCommands/infinite.asm"));
+		assertEquals(CommandLineRunner.EXIT_NOT_STOPPED, status);
+		String[] lines = out.toString().split("\r?\n");
+		assertEquals(3, lines.length);
+		assertEquals("name,status,error,cycles,acc,sr,pc,ir,R0,R1,R2,R3,R4,R5,R6,R7,output,memoryDigest", lines[0]);
+		assertTrue(lines[1], lines[1].contains(",STOPPED,,5,"));
+		assertTrue(lines[1], lines[1].contains(",65,66,0,0,0,0,0,0,\"\\u0000\\u0000\\u0000\\u0000\","));
+		assertTrue(lines[2], lines[2].contains(",NON_TERMINATING,"));
+	}
+
+	@Test
+	public void testOnlyResultsInOutput() throws Exception {
+		//what the loaders print to the console would go in the middle of the results
+		PrintStream console = System.out;
+		PrintStream stdout = new PrintStream(out);
+		System.setOut(stdout);
+		try {
+			CommandLineRunner.run(new String[]{"-f", "csv", getPath("processorCommands/stop.asm"),
+					getPath("processorCommands/mulLoop.asm"), getPath("validFile.txt")}, stdout, new PrintStream(err));
+		} finally {
+			System.setOut(console);
+		}
+		String[] lines = out.toString().split("\r?\n");
+		assertEquals(4, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("name,"));
+		assertTrue(lines[1], lines[1].startsWith(getPath("processorCommands/stop.asm") + ","));
+		assertTrue(lines[2], lines[2].startsWith(getPath("processorCommands/mulLoop.asm") + ","));
+		assertTrue(lines[3], lines[3].startsWith(getPath("validFile.txt") + ","));
+	}
+
+	@Test
+	public void testDirectory() throws Exception {
+		int status = run("-f", "csv", "-c", "100", "--no-loop-detection", getPath("processorCommands"));
+		assertEquals(CommandLineRunner.EXIT_NOT_STOPPED, status);
+		String csv = out.toString();
+		assertEquals(new File(getPath("processorCommands")).listFiles().length + 1, csv.split("\r?\n").length);
+		assertTrue(csv, csv.contains(",CYCLE_LIMIT,,100,"));
+	}
+
+	@Test
+	public void testInvalidFile() throws Exception {
+		assertEquals(CommandLineRunner.EXIT_NOT_STOPPED, run(getPath("errorsInFile.txt")));
+		assertTrue(out.toString().contains("\"status\":\"ERROR\""));
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		File cache = File.createTempFile("cache", "");
+		cache.delete();
+		try {
+			run("-f", "csv", "-i", "AB", getPath("processorCommands"));
+			String uncached = out.toString();
+			out.reset();
+			run("-f", "csv", "-i", "AB", "--cache", cache.getPath(), "--cache-size", "1", getPath("processorCommands"));
+			assertEquals(uncached, out.toString());
+			out.reset();
+			run("-f", "csv", "-i", "AB", "--cache", cache.getPath(), getPath("processorCommands"));
+			assertEquals(uncached, out.toString());
+			assertTrue(new File(cache, SimulationCache.INDEX_FILE).isFile());
+		} finally {
+			for (File file : cache.listFiles()) {
+				file.delete();
+			}
+			cache.delete();
+		}
+	}
+
+	@Test
+	public void testOptimize() throws Exception {
+		run("-f", "csv", "-i", "AB", getPath("processorCommands/mulLoop.asm"));
+		String[] plain = out.toString().split("\r?\n")[1].split(",");
+		out.reset();
+		assertEquals(CommandLineRunner.EXIT_STOPPED, run("-f", "csv", "-i", "AB", "-O",
+				getPath("processorCommands/mulLoop.asm")));
+		String[] optimized = out.toString().split("\r?\n")[1].split(",");
+		assertEquals("STOPPED", optimized[1]);
+		//the same acc, sr, R0 to R6 and output
+		for (int i : new int[]{4, 5, 8, 9, 10, 11, 12, 13, 14, 16}) {
+			assertEquals(plain[i], optimized[i]);
+		}
+	}
+
+	@Test
+	public void testUsage() throws Exception {
+		assertEquals(CommandLineRunner.EXIT_USAGE, run());
+		assertEquals(CommandLineRunner.EXIT_USAGE, run("-x", getPath("errorsInFile.txt")));
+		assertEquals(CommandLineRunner.EXIT_USAGE, run("-f", "xml", getPath("errorsInFile.txt")));
+		assertEquals(CommandLineRunner.EXIT_USAGE, run("-b", "300", getPath("errorsInFile.txt")));
+		assertEquals(CommandLineRunner.EXIT_USAGE, run(getPath("errorsInFile.txt"), "-c"));
+		assertEquals(CommandLineRunner.EXIT_USAGE, run("--cache-size", "-1", getPath("errorsInFile.txt")));
+		//a limit of 0 cycles would let a program run forever
+		assertEquals(CommandLineRunner.EXIT_USAGE, run("-c", "0", getPath("errorsInFile.txt")));
+		assertTrue(err.toString().contains("Usage"));
+		assertEquals("", out.toString());
+	}
+
+	private int run(String... args) {
+		return CommandLineRunner.run(args, new PrintStream(out), new PrintStream(err));
+	}
+
+	private String getPath(String name) {
+		return this.getClass().getResource(RESOURCE_PATH + name).getFile();
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.risc.simulator.instructionSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.memory.Register;
+import org.risc.simulator.memory.StatusRegister;
+import org.risc.simulator.processor.Processor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares every table entry against ArithmeticLogic and LoadStore, for every
+ * operand and every previous value of the status register.
+ */
+public class FlagTablesTest {
+
+	private static final int MIN = -128, MAX = 127, FLAG_VALUES = 16;
+
+	Register acc = null;
+	Register op = null;
+	StatusRegister sr = null;
+
+	@Before
+	public void setUp() throws Exception {
+		acc = new Register(Processor.ACC, 0, Processor.REGISTER_WIDTH);
+		op = new Register(Processor.GPR_PREFIX + "1", 0, Processor.REGISTER_WIDTH);
+		sr = new StatusRegister(Processor.SR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		acc = null;
+		op = null;
+		sr = null;
+	}
+
+	@Test
+	public void testBinaryOperations() throws Exception {
+		for (int a = MIN; a <= MAX; a++) {
+			for (int o = MIN; o <= MAX; o++) {
+				for (int flags = 0; flags < FLAG_VALUES; flags++) {
+					int carry = (flags >> 2) & 1;
+					set(a, o, flags);
+					ArithmeticLogic.and(acc, op, sr);
+					assertEntry("and", FlagTables.and(a, o));
+
+					set(a, o, flags);
+					ArithmeticLogic.or(acc, op, sr);
+					assertEntry("or", FlagTables.or(a, o));
+
+					set(a, o, flags);
+					ArithmeticLogic.addC(acc, op, sr);
+					assertEntry("addc", FlagTables.addC(a, o, carry));
+
+					set(a, o, flags);
+					ArithmeticLogic.sub(acc, op, sr);
+					assertEntry("sub", FlagTables.sub(a, o));
+
+					set(a, o, flags);
+					ArithmeticLogic.mul(acc, op, sr);
+					assertEntry("mul", FlagTables.mul(a, o));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testUnaryOperations() throws Exception {
+		for (int a = MIN; a <= MAX; a++) {
+			for (int flags = 0; flags < FLAG_VALUES; flags++) {
+				int carry = (flags >> 2) & 1;
+				set(a, 0, flags);
+				ArithmeticLogic.not(acc, sr);
+				assertEntry("not", FlagTables.not(a));
+
+				set(a, 0, flags);
+				ArithmeticLogic.neg(acc, sr);
+				assertEntry("neg", FlagTables.neg(a));
+
+				set(a, 0, flags);
+				ArithmeticLogic.rlc(acc, sr);
+				assertEntry("rlc", FlagTables.rlc(a, carry));
+
+				set(a, 0, flags);
+				ArithmeticLogic.rrc(acc, sr);
+				assertEntry("rrc", FlagTables.rrc(a, carry));
+			}
+		}
+	}
+
+	@Test
+	public void testLoadOperations() throws Exception {
+		for (int a = MIN; a <= MAX; a++) {
+			for (int value = MIN; value <= MAX; value++) {
+				for (int flags = 0; flags < FLAG_VALUES; flags++) {
+					set(a, value, flags);
+					LoadStore.ldaR(acc, op, sr);
+					assertEntry("ldar", FlagTables.load(value, flags));
+
+					set(a, value, flags);
+					LoadStore.ldaI(acc, value, sr);
+					assertEntry("ldi", FlagTables.load(value, flags));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testApply() throws Exception {
+		set(100, 100, 0);
+		FlagTables.apply(FlagTables.addC(100, 100, 0), acc, sr);
+		assertEquals(-56, acc.getData());
+		assertEquals(1, sr.getFlagValue(StatusRegister.Flag.NEGATIVE));
+		assertEquals(1, sr.getFlagValue(StatusRegister.Flag.OVERFLOW));
+		assertEquals(0, sr.getFlagValue(StatusRegister.Flag.CARRY));
+		assertEquals(0, sr.getFlagValue(StatusRegister.Flag.ZERO));
+	}
+
+	private void set(int a, int o, int flags) {
+		acc.setData(a);
+		op.setData(o);
+		sr.setData(flags);
+	}
+
+	private void assertEntry(String operation, int entry) {
+		assertEquals(operation + " result", acc.getData(), FlagTables.result(entry));
+		assertEquals(operation + " flags", sr.getData(), FlagTables.flags(entry));
+	}
+
+}
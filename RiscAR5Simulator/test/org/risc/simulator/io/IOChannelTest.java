@@ -0,0 +1,66 @@
+package org.risc.simulator.io;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class IOChannelTest {
+
+	private IOChannel channel;
+
+	@Before
+	public void setUp() throws Exception {
+		channel = new IOChannel(4);
+	}
+
+	@Test
+	public void testWrite() throws Exception {
+		assertEquals("", channel.readString());
+		channel.write("AB");
+		assertEquals("AB", channel.readString());
+		assertEquals(2, channel.length());
+		assertEquals('B', channel.charAt(1));
+		channel.write(new char[]{'W', 'X', 'Y', 'Z'});
+		assertEquals("WXYZ", channel.readString());
+	}
+
+	@Test
+	public void testTrim() throws Exception {
+		channel.write("ABCDEF");
+		assertEquals("ABCD", channel.readString());
+		channel.write(new char[]{'1', '2', '3', '4', '5'});
+		assertEquals("1234", channel.readString());
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		channel.write("AB");
+		channel.clear();
+		assertEquals("", channel.readString());
+		assertEquals(0, channel.length());
+	}
+
+	@Test
+	public void testModificationCount() throws Exception {
+		int count = channel.getModificationCount();
+		channel.write("AB");
+		assertTrue(channel.getModificationCount() != count);
+		count = channel.getModificationCount();
+		String s = channel.readString();
+		assertSame(s, channel.readString());
+		assertEquals(count, channel.getModificationCount());
+		channel.clear();
+		assertTrue(channel.getModificationCount() != count);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharAtOutOfBounds() throws Exception {
+		channel.write("AB");
+		channel.charAt(2);
+	}
+
+}
@@ -0,0 +1,14 @@
+lda 250
+star 0
+lda 251
+star 1
+ldi 12
+star 7
+ldar 0
+addc 1
+star 0
+rlc
+sta 200
+brc
+sta 252
+stop
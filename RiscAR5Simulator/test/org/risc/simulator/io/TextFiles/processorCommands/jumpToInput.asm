@@ -0,0 +1,6 @@
+lda 251
+star 7
+lda 250
+brz
+sta 253
+stop
@@ -0,0 +1,15 @@
+ldi 1
+star 1
+ldi -128
+star 0
+ldi 12
+star 7
+ldi 3
+mul 1
+addc 2
+star 2
+ldar 0
+addc 1
+star 0
+brn
+stop
@@ -0,0 +1,6 @@
+ldi -8
+sta 6
+nop
+nop
+ldi 1
+stop
@@ -0,0 +1,6 @@
+ldi 5
+sta 250
+lda 250
+star 0
+sta 253
+stop
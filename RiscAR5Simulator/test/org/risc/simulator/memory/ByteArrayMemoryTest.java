@@ -0,0 +1,187 @@
+package org.risc.simulator.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ByteArrayMemoryTest {
+
+	private ByteArrayMemory m;
+	private static final int LEN = 4, CELL = 8;
+
+	@Before
+	public void setUp() throws Exception {
+		m = new ByteArrayMemory(LEN);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		m = null;
+	}
+
+	@Test
+	public void testGetDataAtInt() {
+		assertTrue(0 == m.getDataAt(0));
+		assertEquals(CELL, m.getCellSize());
+	}
+
+	@Test
+	public void testSetAndGetDataAtWithNumBits() {
+		m.setDataAt(0, -258, 10);
+		assertTrue(-258 == m.getDataAt(0, 2));
+	}
+
+	@Test
+	public void testSetWithNumBitsLessThanCellSize() {
+		int expected = 4;
+		m.setDataAt(0, expected, 4);
+		assertTrue(expected == m.getDataAt(0));
+	}
+
+	@Test
+	public void testSetDataAt() {
+		int expected = 3;
+		int test = 1 << CELL;
+		test += 3;
+		m.setDataAt(1, test);
+		assertTrue(expected == m.getDataAt(1));
+	}
+
+	@Test
+	public void testSetWithNumberOfBitsGreaterThanCell() {
+		int test = 1 << CELL;
+		m.setDataAt(2, test);
+		assertEquals(0, m.getDataAt(2));
+	}
+
+	@Test
+	public void testSameAsArrayListMemory() {
+		ArrayListMemory expected = new ArrayListMemory(LEN, CELL);
+		int[] values = {0, 1, -1, 127, -128, 255, 256, -258, 0x7FFF, 0xABCD, -32768, 0x12345678};
+		for (int value : values) {
+			for (int numBits = 1; numBits <= 32; numBits++) {
+				int cells = (numBits + CELL - 1) / CELL;
+				for (int location = 0; location + cells <= LEN; location++) {
+					expected.setDataAt(location, value, numBits);
+					m.setDataAt(location, value, numBits);
+					for (int fetchSize = 1; location + fetchSize <= LEN; fetchSize++) {
+						assertEquals(expected.getDataAt(location, fetchSize), m.getDataAt(location, fetchSize));
+					}
+				}
+			}
+			m.setDataAt(3, value);
+			expected.setDataAt(3, value);
+			assertEquals(expected.getDataAt(3), m.getDataAt(3));
+		}
+
+		Iterator<Integer> it = m.iterator();
+		for (Integer cell : expected) {
+			assertEquals(cell, it.next());
+		}
+		assertEquals(expected.toString(), m.toString());
+	}
+
+	@Test
+	public void testSnapshotIsNotChangedByWrites() {
+		ByteArrayMemory memory = new ByteArrayMemory(40);
+		memory.setDataAt(20, 7);
+		MemorySnapshot snapshot = memory.snapshot();
+		memory.setDataAt(20, 9);
+		memory.setDataAt(39, -1);
+		assertEquals(7, snapshot.getDataAt(20));
+		assertEquals(0, snapshot.getDataAt(39));
+		assertEquals(9, memory.getDataAt(20));
+
+		assertEquals("Only the pages written must change", 2, memory.restore(snapshot));
+		assertEquals(7, memory.getDataAt(20));
+		assertEquals(0, memory.getDataAt(39));
+
+		memory.setDataAt(21, 3);
+		assertEquals("The snapshot can be restored many times", 0, snapshot.getDataAt(21));
+		memory.restore(snapshot);
+		assertEquals(0, memory.getDataAt(21));
+	}
+
+	@Test
+	public void testSnapshotSharesPagesNotWritten() {
+		ByteArrayMemory memory = new ByteArrayMemory(40);
+		MemorySnapshot snapshot = memory.snapshot();
+		memory.setDataAt(0, 1);
+		assertTrue(!memory.isPageOf(snapshot, 0));
+		assertTrue(memory.isPageOf(snapshot, 1));
+		assertTrue(memory.isPageOf(snapshot, 2));
+	}
+
+	@Test
+	public void testDirtyCells() {
+		ByteArrayMemory memory = new ByteArrayMemory(200);
+		assertEquals(-1, memory.nextDirty(0));
+		memory.setDataAt(3, 1);
+		memory.setDataAt(64, 1);
+		memory.setDataAt(199, 1);
+		assertTrue(memory.isDirty(64));
+		assertTrue(!memory.isDirty(63));
+		assertEquals(3, memory.nextDirty(0));
+		assertEquals(64, memory.nextDirty(4));
+		assertEquals(199, memory.nextDirty(65));
+		assertEquals(-1, memory.nextDirty(200));
+
+		memory.clearDirty();
+		assertEquals(-1, memory.nextDirty(0));
+	}
+
+	@Test
+	public void testRestoreMarksChangedPagesDirty() {
+		ByteArrayMemory memory = new ByteArrayMemory(40);
+		MemorySnapshot snapshot = memory.snapshot();
+		memory.setDataAt(35, 2);
+		memory.clearDirty();
+		memory.restore(snapshot);
+		assertEquals(32, memory.nextDirty(0));
+		assertTrue(memory.isDirty(39));
+		assertTrue(!memory.isDirty(31));
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void testAccessAfterLastCell() {
+		new ByteArrayMemory(20).getDataAt(20);
+	}
+
+	@Test
+	public void testFetchSizes() {
+		try {
+			m.getDataAt(0, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("fetch size must be positive", e.getMessage());
+		}
+		try {
+			m.getDataAt(0, 5);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("number of bits is greater than an int", e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRestoreFromAnotherSize() {
+		m.restore(new ByteArrayMemory(LEN + 1).snapshot());
+	}
+
+	@Test
+	public void testSnapshotOfOtherMemory() {
+		ArrayListMemory memory = new ArrayListMemory(LEN, CELL);
+		memory.setDataAt(1, -5);
+		MemorySnapshot snapshot = MemorySnapshot.of(memory, LEN);
+		memory.setDataAt(1, 6);
+		snapshot.restoreTo(memory);
+		assertEquals(-5, memory.getDataAt(1));
+	}
+
+}
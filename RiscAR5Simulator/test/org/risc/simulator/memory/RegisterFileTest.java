@@ -0,0 +1,58 @@
+package org.risc.simulator.memory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class RegisterFileTest {
+
+	private RegisterFile file;
+	private Register r0;
+	private StatusRegister sr;
+
+	@Before
+	public void setUp() throws Exception {
+		file = new RegisterFile(3);
+		r0 = file.add(0, "R0", 8);
+		sr = file.addStatusRegister(2, "SR");
+	}
+
+	@Test
+	public void testViews() throws Exception {
+		assertSame(r0, file.get(0));
+		assertSame(sr, file.get(2));
+		assertNull(file.get(1));
+		assertEquals(3, file.size());
+		assertEquals("R0", r0.getName());
+		assertEquals(8, r0.getWidth());
+	}
+
+	@Test
+	public void testSharedStorage() throws Exception {
+		r0.setData(-5);
+		assertEquals(-5, file.getValues()[0]);
+		file.getValues()[0] = 100;
+		assertEquals(100, r0.getData());
+
+		sr.setFlagValue(StatusRegister.Flag.ZERO, true);
+		assertEquals(8, file.getValues()[2]);
+		file.getValues()[2] = 4;
+		assertTrue(sr.isFlagSet(StatusRegister.Flag.CARRY));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testWidthIsChecked() throws Exception {
+		r0.setData(256);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSlotUsed() throws Exception {
+		file.add(0, "R1", 8);
+	}
+
+}
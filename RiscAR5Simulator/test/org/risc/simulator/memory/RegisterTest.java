@@ -3,7 +3,9 @@ package org.risc.simulator.memory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.risc.simulator.util.RangePolicy;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class RegisterTest {
@@ -42,4 +44,37 @@ public class RegisterTest {
 		r.setData(16);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testTrySetData() {
+		assertEquals(RangePolicy.IN_RANGE, r.trySetData(15));
+		assertEquals(RangePolicy.TRAPPED, r.trySetData(16));
+		assertEquals("The data must not change", 15, r.getData());
+	}
+
+	@Test
+	public void testWrapPolicy() {
+		r.setRangePolicy(RangePolicy.WRAP);
+		assertEquals(RangePolicy.WRAPPED, r.trySetData(17));
+		assertEquals(1, r.getData());
+		r.setData(-10);
+		assertEquals(6, r.getData());
+	}
+
+	@Test
+	public void testSaturatePolicy() {
+		r.setRangePolicy(RangePolicy.SATURATE);
+		assertEquals(RangePolicy.SATURATED, r.trySetData(100));
+		assertEquals(15, r.getData());
+		r.setData(-100);
+		assertEquals(-8, r.getData());
+	}
+
+	@Test
+	public void testTrapPolicy() {
+		r.setRangePolicy(RangePolicy.TRAP);
+		r.setData(-9);
+		assertEquals(10, r.getData());
+		assertEquals(RangePolicy.TRAPPED, r.trySetData(-9));
+	}
+
+}
@@ -0,0 +1,85 @@
+package org.risc.simulator.processor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BreakpointsTest {
+
+	@Test
+	public void testAddAndRemove() {
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.add(0);
+		breakpoints.add(64);
+		breakpoints.add(255);
+		assertTrue(breakpoints.isSet(0));
+		assertTrue(breakpoints.isSet(64));
+		assertTrue(breakpoints.isSet(255));
+		assertTrue(!breakpoints.isSet(2));
+		assertTrue(!breakpoints.isSet(-2));
+		breakpoints.remove(64);
+		assertTrue(!breakpoints.isSet(64));
+		breakpoints.clear();
+		assertTrue(!breakpoints.isSet(0));
+		assertTrue(breakpoints.isEmpty());
+		breakpoints.watch(250, Breakpoints.READ);
+		assertTrue(!breakpoints.isEmpty());
+		breakpoints.watch(250, 0);
+		assertTrue(breakpoints.isEmpty());
+	}
+
+	@Test
+	public void testConditions() {
+		Processor processor = new RISCAR5Processor();
+		processor.getRegister(3).setData(5);
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.add(10, Breakpoints.Condition.parse("r3>5"));
+		assertTrue(!breakpoints.shouldBreak(10, processor));
+		breakpoints.add(10, Breakpoints.Condition.parse("R3 <= 5"));
+		assertTrue("Any condition stops", breakpoints.shouldBreak(10, processor));
+		assertEquals(2, breakpoints.getConditions(10).length);
+		assertEquals("R3<=5", breakpoints.getConditions(10)[1].toString());
+
+		breakpoints.add(10);
+		assertEquals("A breakpoint without condition replaces them", 0, breakpoints.getConditions(10).length);
+		breakpoints.add(10, Breakpoints.Condition.parse("R3!=5"));
+		assertTrue(breakpoints.shouldBreak(10, processor));
+		assertTrue(!breakpoints.shouldBreak(12, processor));
+	}
+
+	@Test
+	public void testWatches() {
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.watch(250, Breakpoints.READ);
+		breakpoints.watch(252, Breakpoints.READ | Breakpoints.WRITE);
+		assertTrue(breakpoints.isWatched(250, Breakpoints.READ));
+		assertTrue(!breakpoints.isWatched(250, Breakpoints.WRITE));
+		assertTrue(breakpoints.isWatched(252, Breakpoints.WRITE));
+		breakpoints.watch(252, 0);
+		assertEquals(0, breakpoints.getWatch(252));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongCondition() {
+		Breakpoints.Condition.parse("R3=5");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownRegister() {
+		Breakpoints.Condition.parse("R9==1");
+	}
+
+	@Test
+	public void testRegisterNames() {
+		for (String register : new String[]{"R0", "R7", "ACC", "SR", "PC", "IR"}) {
+			assertEquals(register, new Breakpoints.Condition(register, "==", 0).getRegister());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLocationNotInMemory() {
+		new Breakpoints().add(256);
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.risc.simulator.processor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionHistoryTest {
+
+	@Test
+	public void testRecordFields() {
+		int[] values = {-128, -1, 0, 1, 127, 128, 255};
+		for (int value : values) {
+			long record = ExecutionHistory.record(value, value, 0xF, -2, ExecutionHistory.CELL, 250, value);
+			assertEquals(value, ExecutionHistory.pc(record));
+			assertEquals(value, ExecutionHistory.acc(record));
+			assertEquals(0xF, ExecutionHistory.sr(record));
+			assertEquals(-2, ExecutionHistory.ir(record));
+			assertEquals(ExecutionHistory.CELL, ExecutionHistory.kind(record));
+			assertEquals(250, ExecutionHistory.index(record));
+			assertEquals(value, ExecutionHistory.old(record));
+		}
+	}
+
+	@Test
+	public void testOldestCyclesAreDiscarded() {
+		ExecutionHistory history = new ExecutionHistory(3);
+		for (long i = 0; i < 5; i++) {
+			history.push(i);
+		}
+		assertEquals(3, history.size());
+		assertEquals(2, history.getDiscarded());
+		assertEquals(4, history.pop());
+		assertEquals(3, history.pop());
+		history.push(7);
+		assertEquals(7, history.pop());
+		assertEquals(2, history.pop());
+		assertTrue(history.isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPopEmpty() {
+		new ExecutionHistory(1).pop();
+	}
+
+}
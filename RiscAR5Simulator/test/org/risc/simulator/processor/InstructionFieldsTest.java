@@ -0,0 +1,26 @@
+package org.risc.simulator.processor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks every entry of the table against {@link Instruction}.
+ */
+public class InstructionFieldsTest {
+
+	@Test
+	public void testEveryWord() {
+		for (int word = Short.MIN_VALUE; word <= Short.MAX_VALUE; word++) {
+			Instruction instruction = new Instruction(word);
+			int fields = InstructionFields.of(word);
+			assertEquals(instruction.isValid(), InstructionFields.isValid(fields));
+			assertEquals(instruction.isStopInstruction(), InstructionFields.isStop(fields));
+			assertEquals(instruction.getOpCode(), InstructionFields.opCode(fields));
+			assertEquals(instruction.getOperand(5, 7) & 7, InstructionFields.register(fields));
+			assertEquals(instruction.getOperand(8, 15), InstructionFields.operand(fields));
+			assertEquals(fields, InstructionFields.of(word & 0xFFFF));
+		}
+	}
+
+}
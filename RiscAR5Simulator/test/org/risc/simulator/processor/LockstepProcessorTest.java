@@ -0,0 +1,125 @@
+package org.risc.simulator.processor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class LockstepProcessorTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/processorCommands/";
+	private static final int MAX_STEPS = 2000;
+	private LockstepProcessor lockstep;
+
+	@Before
+	public void setUp() throws Exception {
+		lockstep = new LockstepProcessor(256);
+	}
+
+	@Test
+	public void testSamePrograms() throws Exception {
+		String[] programs = {"add.asm", "infinite.asm", "load20toEachRegister.asm", "loopUntilPositive.asm",
+				"manipulateMemory.asm", "inputReader.asm", "outputWriter.asm", "naydaTest.asm", "selfModifying.asm",
+				"mulLoop.asm", "inputLoop.asm", "jumpToInput.asm"};
+		for (String program : programs) {
+			List<Instruction> instructions = assemble(program);
+			lockstep = new LockstepProcessor(256);
+			for (int lane = 0; lane < lockstep.getLanes(); lane++) {
+				lockstep.setInput(lane, lane * 7, lane);
+			}
+			lockstep.init(instructions);
+			lockstep.run(MAX_STEPS);
+			for (int lane = 0; lane < lockstep.getLanes(); lane++) {
+				assertSameState(program + " lane " + lane, instructions, lane);
+			}
+		}
+	}
+
+	@Test
+	public void testExhaustiveInput() throws Exception {
+		List<Instruction> instructions = assemble("inputReader.asm");
+		lockstep = new LockstepProcessor(1 << 16);
+		for (int lane = 0; lane < lockstep.getLanes(); lane++) {
+			lockstep.setInput(lane, lane >> 8, lane);
+		}
+		lockstep.init(instructions);
+		assertEquals(5, lockstep.run(MAX_STEPS));
+		assertEquals(lockstep.getLanes(), lockstep.count(LockstepProcessor.LaneStatus.STOPPED));
+		for (int lane = 0; lane < lockstep.getLanes(); lane++) {
+			assertEquals((byte) (lane >> 8), lockstep.getRegister(lane, 0));
+			assertEquals((byte) lane, lockstep.getRegister(lane, 1));
+		}
+	}
+
+	@Test
+	public void testFaultedLanes() throws Exception {
+		List<Instruction> instructions = assemble("jumpToInput.asm");
+		for (int lane = 0; lane < lockstep.getLanes(); lane++) {
+			lockstep.setInput(lane, 0, lane);
+		}
+		lockstep.init(instructions);
+		lockstep.run(MAX_STEPS);
+		assertEquals(LockstepProcessor.LaneStatus.FAULTED, lockstep.getStatus(0x80));
+		assertEquals(LockstepProcessor.LaneStatus.FAULTED, lockstep.getStatus(0xFF));
+		assertEquals(LockstepProcessor.LaneStatus.STOPPED, lockstep.getStatus(10));
+		assertTrue(lockstep.count(LockstepProcessor.LaneStatus.FAULTED) >= 128);
+	}
+
+	@Test
+	public void testStringInput() throws Exception {
+		lockstep.setInput(3, "AB");
+		lockstep.init(assemble("inputReader.asm"));
+		lockstep.run(MAX_STEPS);
+		assertEquals(65, lockstep.getRegister(3, 0));
+		assertEquals(66, lockstep.getRegister(3, 1));
+		assertEquals(0, lockstep.getRegister(4, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoLanes() throws Exception {
+		new LockstepProcessor(0);
+	}
+
+	/**
+	 * Runs the lane on a {@link RISCAR5Processor} and compares the final states.
+	 */
+	private void assertSameState(String message, List<Instruction> instructions, int lane) {
+		RISCAR5Processor p = new RISCAR5Processor();
+		p.getInputChannel().write(new String(new char[]{(char) (byte) (lane * 7), (char) (byte) lane}));
+		p.init(instructions);
+		LockstepProcessor.LaneStatus status = LockstepProcessor.LaneStatus.RUNNING;
+		try {
+			while (p.isRunning() && p.getCycleCount() < MAX_STEPS) {
+				p.step();
+			}
+			if (!p.isRunning()) {
+				status = LockstepProcessor.LaneStatus.STOPPED;
+			}
+		} catch (RuntimeException e) {
+			status = LockstepProcessor.LaneStatus.FAULTED;
+		}
+		assertEquals(message, status, lockstep.getStatus(lane));
+		assertEquals(message, p.getCycleCount(), lockstep.getCycles(lane));
+		assertEquals(message, p.getRegister(Processor.ACC).getData(), lockstep.getAcc(lane));
+		assertEquals(message, p.getRegister(Processor.SR).getData(), lockstep.getSr(lane));
+		assertEquals(message, p.getRegister(Processor.PC).getData(), lockstep.getPc(lane));
+		assertEquals(message, p.getRegister(Processor.IR).getData(), lockstep.getIr(lane));
+		for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+			assertEquals(message, p.getRegister(i).getData(), lockstep.getRegister(lane, i));
+		}
+		for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+			assertEquals(message, p.getMemory().getDataAt(i), lockstep.getDataAt(lane, i));
+		}
+	}
+
+	private List<Instruction> assemble(String name) throws Exception {
+		return new Assembler(new File(this.getClass().getResource(RESOURCE_PATH + name).getFile())).assemble();
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.risc.simulator.processor;
+
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.batch.BatchJob;
+import org.risc.simulator.batch.BatchResult;
+import org.risc.simulator.batch.BatchSimulator;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PeepholeOptimizerTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/processorCommands/";
+
+	@Test
+	public void testNopsAndBranchTargets() throws Exception {
+		//the target moves from 12 to 10
+		assertOptimized("nop\nldi 12\nstar 7\nlda 250\nbrz\nsta 253\nldi 65\nsta 252\nstop",
+				"ldi 10\nstar 7\nlda 250\nbrz\nsta 253\nldi 65\nsta 252\nstop");
+		//a branch to the next instruction, its target is still moved
+		assertOptimized("ldi 8\nstar 7\nldi 0\nbrz\nstop", "ldi 6\nstar 7\nldi 0\nstop");
+	}
+
+	@Test
+	public void testCopiesBack() throws Exception {
+		assertOptimized("ldi 3\nstar 1\nldar 1\nsta 252\nstop", "ldi 3\nstar 1\nsta 252\nstop");
+		assertOptimized("ldar 2\nstar 2\nsta 252\nstop", "ldar 2\nsta 252\nstop");
+	}
+
+	@Test
+	public void testRepeatedBranchTargets() throws Exception {
+		assertOptimized("ldi 18\nstar 7\nlda 250\nbrz\nldi 18\nstar 7\nlda 251\nbrn\nsta 252\nstop",
+				"ldi 14\nstar 7\nlda 250\nbrz\nlda 251\nbrn\nsta 252\nstop");
+	}
+
+	@Test
+	public void testDeadStores() throws Exception {
+		assertOptimized("ldi 1\nsta 200\nldi 2\nsta 200\nstop", "ldi 2\nsta 200\nstop");
+		//every write to the output port is seen
+		assertUnchanged("ldi 1\nsta 252\nldi 2\nsta 252\nstop");
+	}
+
+	@Test
+	public void testFlagsRead() throws Exception {
+		//the sum with carry is 0 but leaves Z clear, the ldar sets it
+		assertUnchanged("ldi 1\nstar 1\nldi -1\naddc 1\nstar 3\nldar 3\nstop");
+		assertOptimized("ldi 1\nstar 1\nldi -1\nor 1\nstar 3\nldar 3\nstop",
+				"ldi 1\nstar 1\nldi -1\nor 1\nstar 3\nstop");
+	}
+
+	@Test
+	public void testUnknownPrograms() throws Exception {
+		assertUnchanged("lda 250\nstar 7\nnop\nldi 0\nbrz\nstop");
+		assertUnchanged("nop\nldi 1");
+		ProgramImage image = new Assembler(getFile("selfModifying.asm")).assembleImage();
+		assertSame(image, PeepholeOptimizer.optimize(image));
+	}
+
+	@Test
+	public void testInstructions() throws Exception {
+		List<Instruction> instructions = new Assembler(new StringReader("nop\nldi 1\nnop\nstop")).assemble();
+		List<Instruction> optimized = PeepholeOptimizer.optimize(instructions);
+		assertEquals(2, optimized.size());
+		assertEquals(4, instructions.size());
+		assertTrue(optimized.get(1).isStopInstruction());
+	}
+
+	@Test
+	public void testSamePrograms() throws Exception {
+		BatchSimulator simulator = new BatchSimulator(1), optimizing = new BatchSimulator(1);
+		optimizing.setOptimization(true);
+		for (File file : getFile("").listFiles()) {
+			for (String input : new String[]{"AB", "\u0000\u00FF"}) {
+				simulator.setInput(input);
+				optimizing.setInput(input);
+				BatchResult expected = simulator.simulate(BatchJob.fromFile(file));
+				BatchResult result = optimizing.simulate(BatchJob.fromFile(file));
+				String name = file.getName();
+				assertEquals(name, expected.getStatus(), result.getStatus());
+				assertEquals(name, expected.getOutput(), result.getOutput());
+				assertEquals(name, expected.getAcc(), result.getAcc());
+				assertEquals(name, expected.getSr(), result.getSr());
+				for (int i = 0; i < 7; i++) {
+					assertEquals(name, expected.getRegister(i), result.getRegister(i));
+				}
+				assertTrue(name, result.getCycles() <= expected.getCycles());
+			}
+		}
+	}
+
+	private void assertOptimized(String source, String expected) throws Exception {
+		ProgramImage image = new Assembler(new StringReader(source)).assembleImage();
+		assertArrayEquals(new Assembler(new StringReader(expected)).assembleImage().toArray(),
+				PeepholeOptimizer.optimize(image).toArray());
+	}
+
+	private void assertUnchanged(String source) throws Exception {
+		ProgramImage image = new Assembler(new StringReader(source)).assembleImage();
+		assertSame(image, PeepholeOptimizer.optimize(image));
+	}
+
+	private File getFile(String name) {
+		return new File(this.getClass().getResource(RESOURCE_PATH + name).getFile());
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.risc.simulator.processor;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProgramImageTest {
+
+	@Test
+	public void testGrows() {
+		ProgramImage image = new ProgramImage(1);
+		for (int i = 0; i < 100; i++) {
+			image.add(0x7000 | i);
+		}
+		assertEquals(100, image.size());
+		assertEquals(0x7063, image.getWord(99));
+		assertEquals(100, image.toArray().length);
+	}
+
+	@Test
+	public void testInstructionsOnDemand() {
+		ProgramImage image = ProgramImage.of(Arrays.asList(new Instruction("70FF"), new Instruction("F800")));
+		assertEquals(0xF800, image.getWord(1));
+		Instruction instruction = image.getInstruction(0);
+		assertEquals(0x70FF, instruction.getInstruction());
+		assertEquals("Written like a loaded hex file", "70FF", instruction.getOriginalInstruction());
+		List<Instruction> instructions = image.toInstructions();
+		assertTrue(instructions.get(1).isStopInstruction());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidOpcode() {
+		new ProgramImage().add(2 << 11);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testWordAfterLast() {
+		new ProgramImage().getWord(0);
+	}
+
+}
@@ -5,10 +5,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.risc.simulator.assembler.Assembler;
 import org.risc.simulator.io.IOChannel;
+import org.risc.simulator.memory.ArrayListMemory;
 import org.risc.simulator.memory.Memory;
 import org.risc.simulator.memory.Register;
+import org.risc.simulator.util.RangePolicy;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -112,6 +115,17 @@ public class RISCAR5ProcessorTest {
 
 	}
 
+	@Test
+	public void testArrayListMemory() throws Exception {
+		p = new RISCAR5Processor(new ArrayListMemory(Processor.MEMORY_SIZE, Processor.MEMORY_CELL_SIZE));
+		acc = p.getRegister(Processor.ACC);
+		pc = p.getRegister(Processor.PC);
+		int i = assemble("add.asm");
+		p.run();
+		assertEquals(20, acc.getData());
+		testPCAndStop(i);
+	}
+
 	@Test
 	public void testStep() throws Exception {
 		int i = assemble("add.asm");
@@ -150,6 +164,414 @@ public class RISCAR5ProcessorTest {
 		testPCAndStop(inst);
 	}
 	
+	@Test
+	public void testInputPortChangedWhileRunning() throws Exception {
+		p.getInputChannel().write("AB");
+		assemble("inputReader.asm");
+		p.step();
+		p.step();
+		assertEquals(65, p.getRegister(0).getData());
+		p.getInputChannel().write("CD");
+		p.step();
+		p.step();
+		assertEquals(68, p.getRegister(1).getData());
+		assertEquals(67, p.getMemory().getDataAt(250));
+	}
+
+	@Test
+	public void testStoreToInputPort() throws Exception {
+		p.getInputChannel().write("AB");
+		assemble("storeToInput.asm");
+		p.run();
+		assertEquals("The input port must be written again after the store", 65, p.getRegister(0).getData());
+		assertEquals(65, p.getMemory().getDataAt(250));
+		assertEquals('A', p.getOutputChannel().readString().charAt(1));
+	}
+
+	@Test
+	public void testRegistersByIndexAndName() throws Exception {
+		for (int i = 0; i < Processor.NUMBER_OF_GPR; i++) {
+			assertTrue(p.getRegister(i) == p.getRegister(Processor.GPR_PREFIX + i));
+		}
+		assertEquals(Processor.NUMBER_OF_GPR + 4, p.getRegisters().size());
+	}
+
+	@Test
+	public void testSelfModifyingCode() throws Exception {
+		assemble("selfModifying.asm");
+		p.run();
+		assertEquals("The stored stop instruction must be executed", 4 * Processor.PC_INCREMENT, pc.getData());
+		assertEquals(-8, acc.getData());
+		assertTrue("Processor shouldn't be running", !p.isRunning());
+	}
+	
+	@Test
+	public void testTranslatedRun() throws Exception {
+		String[] programs = {"add.asm", "loopUntilPositive.asm", "load20toEachRegister.asm", "manipulateMemory.asm",
+				"inputReader.asm", "outputWriter.asm", "naydaTest.asm", "selfModifying.asm", "mulLoop.asm"};
+		for (String program : programs) {
+			p = new RISCAR5Processor();
+			p.getInputChannel().write("AB");
+			assemble(program);
+			p.run();
+			Processor interpreted = p;
+
+			p = new RISCAR5Processor();
+			((RISCAR5Processor) p).setTranslationEnabled(true);
+			p.getInputChannel().write("AB");
+			assemble(program);
+			p.run();
+			assertSameState(program, interpreted, p);
+		}
+	}
+
+	@Test
+	public void testTranslatedMulLoop() throws Exception {
+		int i = assemble("mulLoop.asm");
+		((RISCAR5Processor) p).setTranslationEnabled(true);
+		p.run();
+		assertEquals(0, p.getRegister(0).getData());
+		testPCAndStop(i);
+	}
+	
+	@Test
+	public void testRunCycleLimit() throws Exception {
+		assemble("infinite.asm");
+		assertEquals(RunStatus.CYCLE_LIMIT, p.run(RunLimits.cycles(50)));
+		assertEquals(50, ((RISCAR5Processor) p).getCycleCount());
+		assertEquals(RunStatus.CYCLE_LIMIT, p.run(RunLimits.cycles(50)));
+		assertEquals(100, ((RISCAR5Processor) p).getCycleCount());
+		assertTrue(p.isRunning());
+	}
+
+	@Test
+	public void testRunDeadline() throws Exception {
+		assemble("infinite.asm");
+		assertEquals(RunStatus.DEADLINE, p.run(new RunLimits(RunLimits.NO_LIMIT, 20, false)));
+		assertTrue(p.isRunning());
+	}
+
+	@Test
+	public void testTranslatedRunLimits() throws Exception {
+		assemble("mulLoop.asm");
+		Processor interpreted = p;
+		p = new RISCAR5Processor();
+		((RISCAR5Processor) p).setTranslationEnabled(true);
+		assemble("mulLoop.asm");
+		//the chains of blocks must end at every limit
+		while (p.isRunning()) {
+			assertEquals(interpreted.run(RunLimits.cycles(37)), p.run(RunLimits.cycles(37)));
+			assertEquals(((RISCAR5Processor) interpreted).getCycleCount(), ((RISCAR5Processor) p).getCycleCount());
+			assertSameState("mulLoop.asm", interpreted, p);
+		}
+		assertTrue(((RISCAR5Processor) p).getTranslatedBlockCount() > 0);
+
+		p = new RISCAR5Processor();
+		((RISCAR5Processor) p).setTranslationEnabled(true);
+		assemble("infinite.asm");
+		assertEquals(RunStatus.DEADLINE, p.run(new RunLimits(RunLimits.NO_LIMIT, 20, false)));
+		assertTrue(((RISCAR5Processor) p).getTranslatedBlockCount() > 0);
+	}
+
+	@Test
+	public void testRunDetectsLoop() throws Exception {
+		assemble("infinite.asm");
+		assertEquals(RunStatus.NON_TERMINATING, p.run(new RunLimits(1000, RunLimits.NO_LIMIT, true)));
+		assertTrue(((RISCAR5Processor) p).getCycleCount() < 100);
+
+		p = new RISCAR5Processor();
+		((RISCAR5Processor) p).setTranslationEnabled(true);
+		assemble("infinite.asm");
+		assertEquals(RunStatus.NON_TERMINATING, p.run(new RunLimits(100000, RunLimits.NO_LIMIT, true)));
+	}
+
+	@Test
+	public void testLoopDetectionOnlyStopsLoops() throws Exception {
+		String[] programs = {"loopUntilPositive.asm", "naydaTest.asm", "selfModifying.asm", "mulLoop.asm", "inputLoop.asm"};
+		for (String program : programs) {
+			p = new RISCAR5Processor();
+			p.getInputChannel().write("AB");
+			assemble(program);
+			p.run();
+			Processor unlimited = p;
+
+			p = new RISCAR5Processor();
+			((RISCAR5Processor) p).setTranslationEnabled(true);
+			p.getInputChannel().write("AB");
+			assemble(program);
+			assertEquals(program, RunStatus.STOPPED, p.run(new RunLimits(RunLimits.NO_LIMIT, RunLimits.NO_LIMIT, true)));
+			assertSameState(program, unlimited, p);
+		}
+	}
+
+	@Test
+	public void testSnapshotAndRestore() throws Exception {
+		String[] programs = {"mulLoop.asm", "selfModifying.asm", "outputWriter.asm", "inputReader.asm"};
+		for (String program : programs) {
+			for (int translated = 0; translated < 2; translated++) {
+				p = new RISCAR5Processor();
+				((RISCAR5Processor) p).setTranslationEnabled(translated == 1);
+				p.getInputChannel().write("AB");
+				assemble(program);
+				MachineSnapshot start = p.snapshot();
+				p.run(RunLimits.cycles(3));
+				MachineSnapshot middle = p.snapshot();
+				p.run();
+				Processor expected = p;
+
+				p = new RISCAR5Processor();
+				((RISCAR5Processor) p).setTranslationEnabled(translated == 1);
+				p.restore(middle);
+				p.run();
+				assertSameState(program, expected, p);
+				assertEquals(((RISCAR5Processor) expected).getCycleCount(), ((RISCAR5Processor) p).getCycleCount());
+
+				expected.restore(start);
+				assertEquals(program, 0, ((RISCAR5Processor) expected).getCycleCount());
+				assertTrue(expected.isRunning());
+				expected.run();
+				assertSameState(program, p, expected);
+			}
+		}
+	}
+
+	@Test
+	public void testRestoreWithArrayListMemory() throws Exception {
+		p = new RISCAR5Processor(new ArrayListMemory(Processor.MEMORY_SIZE, Processor.MEMORY_CELL_SIZE));
+		assemble("selfModifying.asm");
+		MachineSnapshot start = p.snapshot();
+		p.run();
+		p.restore(start);
+		assertEquals(0, p.getRegister(Processor.PC).getData());
+		p.run();
+		assertEquals(-8, p.getRegister(Processor.ACC).getData());
+	}
+
+	@Test
+	public void testStepBack() throws Exception {
+		String[] programs = {"mulLoop.asm", "selfModifying.asm", "outputWriter.asm", "manipulateMemory.asm"};
+		for (String program : programs) {
+			p = new RISCAR5Processor();
+			RISCAR5Processor processor = (RISCAR5Processor) p;
+			processor.setHistory(new ExecutionHistory(2000));
+			p.getInputChannel().write("AB");
+			assemble(program);
+			List<MachineSnapshot> states = new ArrayList<MachineSnapshot>();
+			while (p.isRunning()) {
+				states.add(p.snapshot());
+				p.step();
+			}
+			for (int i = states.size() - 1; i >= 0; i--) {
+				assertTrue(processor.stepBack());
+				Processor expected = new RISCAR5Processor();
+				expected.restore(states.get(i));
+				assertSameState(program + " cycle " + i, expected, p);
+				assertEquals(states.get(i).getCycleCount(), processor.getCycleCount());
+				assertTrue(p.isRunning());
+			}
+			assertTrue("Nothing left to undo", !processor.stepBack());
+		}
+	}
+
+	@Test
+	public void testStepBackToTheStateLoaded() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		processor.setHistory(new ExecutionHistory(100));
+		p.getInputChannel().write("AB");
+		assemble("outputWriter.asm");
+		//the ports are only copied by the first cycle
+		String output = p.getOutputChannel().readString();
+		int[] input = {p.getMemory().getDataAt(250), p.getMemory().getDataAt(251)};
+		p.step();
+		p.step();
+		assertEquals(65, p.getMemory().getDataAt(250));
+		assertEquals(2, processor.stepBack(2));
+		assertEquals(0, processor.getCycleCount());
+		assertEquals(input[0], p.getMemory().getDataAt(250));
+		assertEquals(input[1], p.getMemory().getDataAt(251));
+		assertEquals(output, p.getOutputChannel().readString());
+
+		p.run();
+		assertEquals(66, p.getMemory().getDataAt(251));
+		assertEquals("ABCD", p.getOutputChannel().readString());
+	}
+
+	@Test
+	public void testRunBackToWrite() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		processor.setHistory(new ExecutionHistory(1000));
+		assemble("selfModifying.asm");
+		p.run();
+		int stored = p.getMemory().getDataAt(6);
+		assertTrue(processor.runBackToWrite(6));
+		assertTrue("The cell must have its value before the store", stored != p.getMemory().getDataAt(6));
+		int word = p.getMemory().getDataAt(p.getRegister(Processor.PC).getData(), Processor.PC_INCREMENT);
+		assertEquals("The PC must point to the store", 13, new Instruction(word).getOpCode());
+		assertTrue(!processor.runBackToWrite(6));
+		assertEquals(0, processor.getCycleCount());
+	}
+
+	@Test
+	public void testStepBackFromTrap() throws Exception {
+		RISCAR5Processor processor = jumpTo(-2, RangePolicy.TRAP);
+		processor.setHistory(new ExecutionHistory(10));
+		processor.step();
+		assertTrue(processor.isTrapped());
+		assertEquals("Only the cycle that trapped was recorded", 1, processor.stepBack(2));
+		assertTrue(processor.isRunning());
+		assertEquals(4, processor.getCycleCount());
+	}
+
+	@Test
+	public void testInitWithProgramImage() throws Exception {
+		RISCAR5Processor expected = new RISCAR5Processor();
+		p = expected;
+		assemble("mulLoop.asm");
+		expected.run();
+		RISCAR5Processor processor = new RISCAR5Processor();
+		processor.init(new Assembler(getFile("mulLoop.asm")).assembleImage());
+		processor.run();
+		assertSameState("The image must load the same program", expected, processor);
+		assertEquals(expected.getInstructionList().size(), processor.getInstructionList().size());
+	}
+
+	@Test
+	public void testBreakpoint() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		pc = p.getRegister(Processor.PC);
+		assemble("mulLoop.asm");
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.add(12);
+		processor.setBreakpoints(breakpoints);
+		assertEquals(RunStatus.BREAKPOINT, processor.run(RunLimits.NONE));
+		assertEquals(12, pc.getData());
+		assertEquals("The instruction at the breakpoint must not be executed", 6, processor.getCycleCount());
+		int hits = 1;
+		while (processor.run(RunLimits.NONE) == RunStatus.BREAKPOINT) {
+			assertEquals(12, pc.getData());
+			hits++;
+		}
+		assertEquals("One stop per iteration of the loop", 127, hits);
+
+		RISCAR5Processor expected = new RISCAR5Processor();
+		p = expected;
+		assemble("mulLoop.asm");
+		expected.run();
+		assertSameState("The breakpoints must not change the result", expected, processor);
+	}
+
+	@Test
+	public void testEmptyBreakpointsKeepTranslation() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		processor.setTranslationEnabled(true);
+		assemble("mulLoop.asm");
+		Breakpoints breakpoints = new Breakpoints();
+		processor.setBreakpoints(breakpoints);
+		assertEquals(RunStatus.STOPPED, processor.run(RunLimits.NONE));
+		assertTrue(processor.getTranslatedBlockCount() > 0);
+
+		processor = new RISCAR5Processor();
+		p = processor;
+		processor.setTranslationEnabled(true);
+		assemble("mulLoop.asm");
+		breakpoints.add(200);
+		processor.setBreakpoints(breakpoints);
+		assertEquals(RunStatus.STOPPED, processor.run(RunLimits.NONE));
+		assertEquals(0, processor.getTranslatedBlockCount());
+	}
+
+	@Test
+	public void testConditionalBreakpoint() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		assemble("mulLoop.asm");
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.add(12, Breakpoints.Condition.parse("R0 == -1"));
+		processor.setBreakpoints(breakpoints);
+		assertEquals(RunStatus.BREAKPOINT, processor.run(RunLimits.NONE));
+		assertEquals(-1, p.getRegister(0).getData());
+		assertEquals(RunStatus.STOPPED, processor.run(RunLimits.NONE));
+	}
+
+	@Test
+	public void testWatchpointOnOutputPort() throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		p = processor;
+		pc = p.getRegister(Processor.PC);
+		assemble("outputWriter.asm");
+		Breakpoints breakpoints = new Breakpoints();
+		breakpoints.watch(253, Breakpoints.WRITE);
+		breakpoints.watch(254, Breakpoints.READ);
+		processor.setBreakpoints(breakpoints);
+		assertEquals(RunStatus.WATCHPOINT, processor.run(RunLimits.NONE));
+		assertEquals(253, processor.getWatchHit());
+		assertEquals("The run stops after the store", 8, pc.getData());
+		assertEquals(66, p.getMemory().getDataAt(253));
+		assertEquals(RunStatus.STOPPED, processor.run(RunLimits.NONE));
+		assertEquals(-1, processor.getWatchHit());
+	}
+
+	@Test
+	public void testTrapWhenPcLeavesMemory() throws Exception {
+		RISCAR5Processor processor = jumpTo(-2, RangePolicy.TRAP);
+		assertEquals(RunStatus.TRAPPED, processor.run(RunLimits.NONE));
+		assertTrue(processor.isTrapped());
+		assertTrue("Processor shouldn't be running", !processor.isRunning());
+		assertEquals(-2, pc.getData());
+
+		processor = jumpTo(-2, RangePolicy.SATURATE);
+		assertEquals(RunStatus.TRAPPED, processor.run(RunLimits.NONE));
+
+		processor = jumpTo(-2, RangePolicy.SATURATE);
+		pc.setData(254);
+		processor.step();
+		assertEquals("The PC must saturate at the last cell", 255, pc.getData());
+		processor.step();
+		assertTrue(processor.isTrapped());
+	}
+
+	@Test
+	public void testWrapWhenPcLeavesMemory() throws Exception {
+		RISCAR5Processor processor = jumpTo(-2, RangePolicy.WRAP);
+		processor.step();
+		assertEquals("The PC must wrap after the last word", 0, pc.getData());
+		assertTrue(processor.isRunning());
+
+		processor = jumpTo(-1, RangePolicy.WRAP);
+		processor.step();
+		assertEquals(1, pc.getData());
+		assertEquals("The word must continue in the first cell", 0xFF & p.getMemory().getDataAt(0), p.getRegister(Processor.IR).getData());
+		assertTrue(!processor.isTrapped());
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testThrowWhenPcLeavesMemory() throws Exception {
+		RISCAR5Processor processor = jumpTo(-2, RangePolicy.THROW);
+		pc.setData(254);
+		processor.step();
+	}
+
+	/**
+	 * Runs jumpToInput.asm until it jumps to the location given in the input port, which
+	 * is a signed byte.
+	 */
+	private RISCAR5Processor jumpTo(int location, RangePolicy policy) throws Exception {
+		p = new RISCAR5Processor();
+		pc = p.getRegister(Processor.PC);
+		((RISCAR5Processor) p).setRangePolicy(policy);
+		p.getInputChannel().write(new char[]{0, (char) (location & 0xFF)});
+		assemble("jumpToInput.asm");
+		for (int i = 0; i < 4; i++) {
+			p.step();
+		}
+		assertEquals(location, pc.getData());
+		return (RISCAR5Processor) p;
+	}
+
 	@Test
 	public void naydaTest() throws Exception{
 		System.out.println("Nayda test");
@@ -161,6 +583,20 @@ public class RISCAR5ProcessorTest {
 		testPCAndStop(inst);
 	}
 
+	/**
+	 * Checks that both processors have the same registers, memory and ports.
+	 */
+	private void assertSameState(String message, Processor expected, Processor actual) {
+		for (Register r : expected.getRegisters()) {
+			assertEquals(message + " " + r.getName(), r.getData(), actual.getRegister(r.getName()).getData());
+		}
+		for (int i = 0; i < Processor.MEMORY_SIZE; i++) {
+			assertEquals(message + " memory " + i, expected.getMemory().getDataAt(i), actual.getMemory().getDataAt(i));
+		}
+		assertEquals(message, expected.getOutputChannel().readString(), actual.getOutputChannel().readString());
+		assertEquals(message, expected.isRunning(), actual.isRunning());
+	}
+
 	/**
 	 * Checks if the PC value after stopping is the one after the last instruction.
 	 * And verifies that the processor is not running
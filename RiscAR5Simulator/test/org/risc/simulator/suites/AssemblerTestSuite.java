@@ -0,0 +1,24 @@
+package org.risc.simulator.suites;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.assembler.AssemblerTest;
+import org.risc.simulator.assembler.AssemblyServiceTest;
+import org.risc.simulator.assembler.MnemonicTrieTest;
+
+@RunWith(Suite.class)
+@SuiteClasses({AssemblerTest.class, AssemblyServiceTest.class, MnemonicTrieTest.class})
+public class AssemblerTestSuite {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+}
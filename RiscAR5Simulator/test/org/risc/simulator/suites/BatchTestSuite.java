@@ -0,0 +1,23 @@
+package org.risc.simulator.suites;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.batch.BatchSimulatorTest;
+import org.risc.simulator.batch.SimulationCacheTest;
+
+@RunWith(Suite.class)
+@SuiteClasses({BatchSimulatorTest.class, SimulationCacheTest.class})
+public class BatchTestSuite {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+}
\ No newline at end of file
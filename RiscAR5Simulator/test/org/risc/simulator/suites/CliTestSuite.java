@@ -0,0 +1,22 @@
+package org.risc.simulator.suites;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.cli.CommandLineRunnerTest;
+
+@RunWith(Suite.class)
+@SuiteClasses({CommandLineRunnerTest.class})
+public class CliTestSuite {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+}
\ No newline at end of file
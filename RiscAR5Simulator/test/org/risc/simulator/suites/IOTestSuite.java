@@ -6,9 +6,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.risc.simulator.io.FileLoaderTest;
+import org.risc.simulator.io.IOChannelTest;
 
 @RunWith(Suite.class)
-@SuiteClasses({FileLoaderTest.class})
+@SuiteClasses({FileLoaderTest.class, IOChannelTest.class})
 public class IOTestSuite {
 
 	@BeforeClass
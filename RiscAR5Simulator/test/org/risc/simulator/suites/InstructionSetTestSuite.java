@@ -7,11 +7,13 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.risc.simulator.instructionSet.ArithmeticLogicTest;
 import org.risc.simulator.instructionSet.FlagManagementTest;
+import org.risc.simulator.instructionSet.FlagTablesTest;
 import org.risc.simulator.instructionSet.LoadStoreTest;
 import org.risc.simulator.instructionSet.ProgramFlowTest;
 
 @RunWith(Suite.class)
-@SuiteClasses(value = {ArithmeticLogicTest.class, LoadStoreTest.class, ProgramFlowTest.class, FlagManagementTest.class})
+@SuiteClasses(value = {ArithmeticLogicTest.class, LoadStoreTest.class, ProgramFlowTest.class, FlagManagementTest.class,
+		FlagTablesTest.class})
 
 public class InstructionSetTestSuite {
 
@@ -6,11 +6,14 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.risc.simulator.memory.ArrayListMemoryTest;
+import org.risc.simulator.memory.ByteArrayMemoryTest;
+import org.risc.simulator.memory.RegisterFileTest;
 import org.risc.simulator.memory.RegisterTest;
 import org.risc.simulator.memory.StatusRegisterTest;
 
 @RunWith(Suite.class)
-@SuiteClasses({ArrayListMemoryTest.class, StatusRegisterTest.class, RegisterTest.class})
+@SuiteClasses({ArrayListMemoryTest.class, ByteArrayMemoryTest.class, StatusRegisterTest.class, RegisterTest.class,
+		RegisterFileTest.class})
 public class MemoryTestSuite {
 
 	@BeforeClass
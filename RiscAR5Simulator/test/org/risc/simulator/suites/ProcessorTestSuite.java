@@ -5,12 +5,18 @@ import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.processor.BreakpointsTest;
+import org.risc.simulator.processor.ExecutionHistoryTest;
+import org.risc.simulator.processor.InstructionFieldsTest;
 import org.risc.simulator.processor.InstructionTest;
+import org.risc.simulator.processor.LockstepProcessorTest;
 import org.risc.simulator.processor.OpCodeValidatorTest;
+import org.risc.simulator.processor.PeepholeOptimizerTest;
+import org.risc.simulator.processor.ProgramImageTest;
 import org.risc.simulator.processor.RISCAR5ProcessorTest;
 
 @RunWith(Suite.class)
-@SuiteClasses({InstructionTest.class, OpCodeValidatorTest.class, RISCAR5ProcessorTest.class})
+@SuiteClasses({BreakpointsTest.class, ExecutionHistoryTest.class, InstructionFieldsTest.class, InstructionTest.class, LockstepProcessorTest.class, OpCodeValidatorTest.class, PeepholeOptimizerTest.class, ProgramImageTest.class, RISCAR5ProcessorTest.class})
 public class ProcessorTestSuite {
 
 	@BeforeClass
@@ -0,0 +1,23 @@
+package org.risc.simulator.suites;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.trace.TraceDiffTest;
+import org.risc.simulator.trace.TraceWriterTest;
+
+@RunWith(Suite.class)
+@SuiteClasses({TraceDiffTest.class, TraceWriterTest.class})
+public class TraceTestSuite {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+}
@@ -5,10 +5,11 @@ import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
+import org.risc.simulator.util.BitFieldsTest;
 import org.risc.simulator.util.NumberUtilsTest;
 
 @RunWith(Suite.class)
-@SuiteClasses({NumberUtilsTest.class})
+@SuiteClasses({BitFieldsTest.class, NumberUtilsTest.class})
 public class UtilTestSuite {
 
 	@BeforeClass
@@ -0,0 +1,126 @@
+package org.risc.simulator.trace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.processor.RISCAR5Processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceDiffTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/processorCommands/";
+	private File expected, actual;
+
+	@Before
+	public void setUp() throws Exception {
+		expected = File.createTempFile("expected", ".bin");
+		actual = File.createTempFile("actual", ".bin");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		expected.delete();
+		actual.delete();
+	}
+
+	@Test
+	public void testSameTraces() throws Exception {
+		trace("mulLoop.asm", "AB", expected);
+		trace("mulLoop.asm", "AB", actual);
+		assertNull(TraceDiff.compare(expected, actual));
+	}
+
+	@Test
+	public void testDifferentInput() throws Exception {
+		trace("inputReader.asm", "AB", expected);
+		trace("inputReader.asm", "AC", actual);
+		TraceDiff.Divergence divergence = TraceDiff.compare(expected, actual);
+		assertEquals(3, divergence.getCycle());
+		assertEquals(2, divergence.getIndex());
+		assertEquals("ACC", divergence.getField());
+		assertEquals('B', divergence.getExpected());
+		assertEquals('C', divergence.getActual());
+	}
+
+	@Test
+	public void testDifferentWrites() throws Exception {
+		write(expected, 3, TraceFormat.MEMORY_WRITE, 0xFA, 1);
+		write(actual, 3, TraceFormat.MEMORY_WRITE, 0xFB, 1);
+		TraceDiff.Divergence divergence = TraceDiff.compare(expected, actual);
+		assertEquals("M[FA]", divergence.getField());
+		assertEquals(1, divergence.getExpected());
+		assertEquals(0, divergence.getActual());
+
+		write(expected, 3, TraceFormat.REGISTER_WRITE, 2, 5);
+		write(actual, 3, TraceFormat.REGISTER_WRITE, 2, 6);
+		assertEquals("R2", TraceDiff.compare(expected, actual).getField());
+
+		write(actual, 3, TraceFormat.REGISTER_WRITE, 2, 5);
+		assertNull(TraceDiff.compare(expected, actual));
+	}
+
+	@Test
+	public void testDifferentLength() throws Exception {
+		write(expected, 3, TraceFormat.NO_WRITE, 0, 0);
+		write(actual, 4, TraceFormat.NO_WRITE, 0, 0);
+		TraceDiff.Divergence divergence = TraceDiff.compare(expected, actual);
+		assertEquals("LENGTH", divergence.getField());
+		assertEquals(3, divergence.getIndex());
+		assertEquals(4, divergence.getCycle());
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		trace("inputReader.asm", "AB", expected);
+		trace("inputReader.asm", "AC", actual);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream err = new PrintStream(new ByteArrayOutputStream());
+		assertEquals(1, TraceDiff.run(new String[]{expected.getPath(), actual.getPath()}, new PrintStream(out), err));
+		String[] lines = out.toString().split("\r?\n");
+		assertTrue(lines[0], lines[0].startsWith("First divergence at cycle 3 (record 2): ACC expected 66 but was 67"));
+		assertEquals("actual   3 PC=04 IR=60FB ACC=67 SR=0000", lines[2]);
+		assertEquals(0, TraceDiff.run(new String[]{expected.getPath(), expected.getPath()}, new PrintStream(out), err));
+		assertEquals(2, TraceDiff.run(new String[]{expected.getPath()}, new PrintStream(out), err));
+	}
+
+	/**
+	 * Writes a trace with the given number of cycles, the last one writing a value.
+	 */
+	private void write(File file, int cycles, int kind, int index, int value) throws Exception {
+		TraceWriter writer = new TraceWriter(file);
+		try {
+			for (int i = 1; i <= cycles; i++) {
+				boolean last = i == cycles;
+				writer.record(i, 2 * i, 0, 0, 0, last ? kind : TraceFormat.NO_WRITE, last ? index : 0, last ? value : 0);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void trace(String program, String input, File file) throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		processor.getInputChannel().write(input);
+		processor.init(new Assembler(new File(getPath(program))).assemble());
+		TraceWriter writer = new TraceWriter(file);
+		processor.setTraceWriter(writer);
+		try {
+			processor.run();
+		} finally {
+			writer.close();
+		}
+	}
+
+	private String getPath(String name) {
+		return this.getClass().getResource(RESOURCE_PATH + name).getFile();
+	}
+
+}
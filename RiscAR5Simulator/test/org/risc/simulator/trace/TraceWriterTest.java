@@ -0,0 +1,169 @@
+package org.risc.simulator.trace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.risc.simulator.assembler.Assembler;
+import org.risc.simulator.processor.RISCAR5Processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TraceWriterTest {
+
+	private static String RESOURCE_PATH = "../io/TextFiles/processorCommands/";
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("trace", ".bin");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+
+	@Test
+	public void testTraceOfProgram() throws Exception {
+		RISCAR5Processor processor = trace("outputWriter.asm", 1);
+		TraceReader reader = new TraceReader(file);
+		try {
+			assertEquals(processor.getCycleCount(), reader.getCount());
+			if (!TraceWriter.MAPPED_FILES_LOCKED) {
+				assertEquals(TraceFormat.HEADER_SIZE + reader.getCount() * TraceFormat.RECORD_SIZE, file.length());
+			}
+			assertTrue(reader.next());
+			assertEquals(1, reader.getCycle());
+			assertEquals(0, reader.getPc());
+			assertEquals(65, reader.getAcc());
+			assertEquals(TraceFormat.NO_WRITE, reader.getKind());
+			assertTrue(reader.next());
+			assertEquals(2, reader.getPc());
+			assertEquals(TraceFormat.MEMORY_WRITE, reader.getKind());
+			assertEquals(252, reader.getIndexWritten());
+			assertEquals(65, reader.getValue());
+			reader.skip(6);
+			assertTrue(reader.next());
+			assertEquals(processor.getRegister(RISCAR5Processor.IR).getData(), reader.getIr());
+			assertTrue(!reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testSamplingKeepsWrites() throws Exception {
+		trace("mulLoop.asm", 100);
+		TraceReader reader = new TraceReader(file);
+		try {
+			long last = 0;
+			while (reader.next()) {
+				assertTrue(reader.getCycle() > last);
+				assertTrue(reader.getKind() != TraceFormat.NO_WRITE || (reader.getCycle() - 1) % 100 == 0
+						|| reader.getCycle() - last == 100);
+				last = reader.getCycle();
+			}
+			assertTrue(reader.getCount() < 1023);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testWindowsAndLimit() throws Exception {
+		TraceWriter writer = new TraceWriter(file);
+		long records = TraceWriter.WINDOW_RECORDS + 10;
+		writer.setMaxRecords(records);
+		for (long i = 1; i <= records + 5; i++) {
+			writer.record(i, (int) i & 0xFF, (int) i, -1, 0xF, TraceFormat.NO_WRITE, 0, 0);
+		}
+		assertTrue(writer.isFull());
+		writer.close();
+
+		TraceReader reader = new TraceReader(file);
+		try {
+			assertEquals(records, reader.getCount());
+			reader.skip(TraceWriter.WINDOW_RECORDS);
+			assertTrue(reader.next());
+			assertEquals(TraceWriter.WINDOW_RECORDS + 1, reader.getCycle());
+			assertEquals((short) (TraceWriter.WINDOW_RECORDS + 1), reader.getIr());
+			assertEquals(-1, reader.getAcc());
+			assertEquals(0xF, reader.getSr());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testUnclosedTrace() throws Exception {
+		TraceWriter writer = new TraceWriter(file);
+		for (int i = 1; i <= 3; i++) {
+			writer.record(i, 0, 0, 0, 0, TraceFormat.NO_WRITE, 0, 0);
+		}
+		RandomAccessFile raw = new RandomAccessFile(file, "r");
+		try {
+			raw.seek(8);
+			assertEquals(TraceFormat.UNKNOWN_COUNT, raw.readLong());
+		} finally {
+			raw.close();
+		}
+		TraceReader reader = new TraceReader(file);
+		try {
+			int read = 0;
+			while (reader.next()) {
+				read++;
+			}
+			assertEquals(3, read);
+			assertEquals(3, reader.getCount());
+		} finally {
+			reader.close();
+		}
+		writer.close();
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotATrace() throws Exception {
+		new TraceReader(new File(getPath("add.asm")));
+	}
+
+	@Test
+	public void testDump() throws Exception {
+		trace("outputWriter.asm", 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		int status = TraceDump.run(new String[]{"--from", "1", "--count", "2", file.getPath()}, new PrintStream(out),
+				new PrintStream(err));
+		assertEquals(0, status);
+		String[] lines = out.toString().split("\r?\n");
+		assertEquals(2, lines.length);
+		assertEquals("2 PC=02 IR=68FC ACC=65 SR=0000 M[FC]=65", lines[0]);
+		assertEquals(2, TraceDump.run(new String[]{"--from"}, new PrintStream(out), new PrintStream(err)));
+	}
+
+	private RISCAR5Processor trace(String program, int sampleInterval) throws Exception {
+		RISCAR5Processor processor = new RISCAR5Processor();
+		processor.setTranslationEnabled(true);
+		processor.init(new Assembler(new File(getPath(program))).assemble());
+		TraceWriter writer = new TraceWriter(file);
+		writer.setSampleInterval(sampleInterval);
+		processor.setTraceWriter(writer);
+		try {
+			processor.run();
+		} finally {
+			writer.close();
+		}
+		return processor;
+	}
+
+	private String getPath(String name) {
+		return this.getClass().getResource(RESOURCE_PATH + name).getFile();
+	}
+
+}
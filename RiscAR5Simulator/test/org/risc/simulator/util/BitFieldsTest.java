@@ -0,0 +1,48 @@
+package org.risc.simulator.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.risc.simulator.util.BitFields.*;
+
+/**
+ * Checks the specialized extractors against the generic ones of {@link NumberUtils}.
+ */
+public class BitFieldsTest {
+
+	private static final int WORDS = 1 << 16;
+
+	@Test
+	public void testInstructionFields() {
+		for (int word = Short.MIN_VALUE; word < WORDS; word++) {
+			assertEquals(NumberUtils.getUnsignedValueOf(word, 0, 4, 16), opCode(word));
+			assertEquals(NumberUtils.getUnsignedValueOf(word, 5, 7, 16), register(word));
+			assertEquals(NumberUtils.getSignedValueOf(word, 8, 15, 16), operand(word));
+		}
+	}
+
+	@Test
+	public void testByteFields() {
+		for (int value = -WORDS; value < WORDS; value++) {
+			assertEquals(NumberUtils.getUnsignedValueOf(value, 0, 7, 8), unsignedByte(value));
+			assertEquals(NumberUtils.getMSB(value), msb(value));
+			assertEquals(NumberUtils.getMSB(value, 9), msb(value, 9));
+			assertEquals(NumberUtils.getLSB(value), lsb(value));
+			for (int i = 0; i < 4; i++) {
+				assertEquals(NumberUtils.getUnsignedValueOf(value, 3 - i, 3 - i, 4), bit(value, i));
+			}
+		}
+	}
+
+	@Test
+	public void testExtremes() {
+		int[] values = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0};
+		for (int value : values) {
+			assertEquals(NumberUtils.getUnsignedValueOf(value, 0, 4, 16), opCode(value));
+			assertEquals(NumberUtils.getSignedValueOf(value, 8, 15, 16), operand(value));
+			assertEquals(NumberUtils.getMSB(value, 32), msb(value, 32));
+			assertEquals(NumberUtils.getUnsignedValueOf(value, 31, 31, 32), bit(value, 0));
+		}
+	}
+
+}
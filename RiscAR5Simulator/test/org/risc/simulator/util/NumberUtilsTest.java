@@ -20,6 +20,20 @@ public class NumberUtilsTest {
 		assertEquals(expected, intToTwosComplementString(10, 2));
 	}
 
+	@Test
+	public void testWrapToBits() {
+		assertEquals(0, wrapToBits(256, 8));
+		assertEquals(254, wrapToBits(-2, 8));
+		assertEquals(5, wrapToBits(5, 3));
+	}
+
+	@Test
+	public void testSaturateToBits() {
+		assertEquals(7, saturateToBits(8, 3));
+		assertEquals(-4, saturateToBits(-100, 3));
+		assertEquals(-3, saturateToBits(-3, 3));
+	}
+
 	@Test
 	public void testFitsInBits() {
 		int bits = 3;
@@ -72,6 +86,22 @@ public class NumberUtilsTest {
 
 		expected = "FFEFE";
 		assertEquals(expected, intToHexString(-258, 5));
+
+		expected = "FFFFFEFE";
+		assertEquals(expected, intToHexString(-258, 8));
+
+		expected = "89ABCDEF";
+		assertEquals(expected, intToHexString(0x89ABCDEF, 8));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIntToHexTooManyDigits() {
+		intToHexString(1, 9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIntToHexNoDigits() {
+		intToHexString(1, 0);
 	}
 	
 	@Test